@@ -100,8 +100,8 @@ public class AzureBackuper extends Backuper {
     }
 
     @Override
-    public void uploadText(final String text, final RemoteObjectReference objectReference) throws Exception {
+    public void uploadBytes(final byte[] bytes, final RemoteObjectReference objectReference) throws Exception {
         final CloudBlockBlob blob = ((AzureRemoteObjectReference) objectReference).blob;
-        blob.uploadText(text);
+        blob.uploadFromByteArray(bytes, 0, bytes.length);
     }
 }
@@ -1,9 +1,11 @@
 package com.instaclustr.esop.azure;
 
+import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
@@ -20,6 +22,8 @@ import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import com.instaclustr.esop.azure.AzureModule.CloudStorageAccountFactory;
 import com.instaclustr.esop.impl.Manifest;
+import com.instaclustr.esop.impl.Manifest.AllManifestsReport;
+import com.instaclustr.esop.impl.ManifestCompression;
 import com.instaclustr.esop.impl.ManifestEntry;
 import com.instaclustr.esop.impl.RemoteObjectReference;
 import com.instaclustr.esop.impl.StorageLocation;
@@ -28,7 +32,6 @@ import com.instaclustr.esop.impl.remove.RemoveBackupRequest;
 import com.instaclustr.esop.impl.restore.RestoreCommitLogsOperationRequest;
 import com.instaclustr.esop.impl.restore.RestoreOperationRequest;
 import com.instaclustr.esop.impl.restore.Restorer;
-import com.instaclustr.io.FileUtils;
 import com.microsoft.azure.storage.CloudStorageAccount;
 import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azure.storage.blob.BlobListingDetails;
@@ -118,9 +121,26 @@ public class AzureRestorer extends Restorer {
 
     @Override
     public void downloadFile(final Path localPath, ManifestEntry manifestEntry, final RemoteObjectReference objectReference) throws Exception {
+        downloadFile(localPath, manifestEntry, objectReference, null);
+    }
+
+    @Override
+    protected void downloadFile(final Path localPath,
+                                final ManifestEntry manifestEntry,
+                                final RemoteObjectReference objectReference,
+                                final DownloadDigest digest) throws Exception {
         final CloudBlockBlob blob = ((AzureRemoteObjectReference) objectReference).blob;
+
+        if (manifestEntry != null && rangedDownloader.isRanged(manifestEntry.size)) {
+            rangedDownloader.download(localPath, manifestEntry.size, (offset, length) -> blob.openInputStream(offset, length, null, null, null), digest);
+            return;
+        }
+
         Files.createDirectories(localPath.getParent());
-        blob.downloadToFile(localPath.toAbsolutePath().toString());
+
+        try (final InputStream inputStream = throttle(blob.openInputStream(), digest)) {
+            Files.copy(inputStream, localPath, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 
     @Override
@@ -133,7 +153,8 @@ public class AzureRestorer extends Restorer {
     public String downloadManifest(final Path remotePrefix, final Predicate<String> keyFilter) throws Exception {
         final String blobItemPath = getManifest(nodeList(remotePrefix), keyFilter);
         final String fileName = blobItemPath.split("/")[blobItemPath.split("/").length - 1];
-        return downloadFileToString(objectKeyToNodeAwareRemoteReference(remotePrefix.resolve(fileName)));
+        final CloudBlockBlob blob = ((AzureRemoteObjectReference) objectKeyToNodeAwareRemoteReference(remotePrefix.resolve(fileName))).blob;
+        return ManifestCompression.toString(blob.openInputStream());
     }
 
     @Override
@@ -199,18 +220,23 @@ public class AzureRestorer extends Restorer {
     }
 
     public void downloadManifestsToDirectory(Path downloadDir) throws Exception {
-        FileUtils.createDirectory(downloadDir);
-        FileUtils.cleanDirectory(downloadDir.toFile());
         final List<String> manifestKeys = getBlobPaths(list(""), s -> s.contains("manifests"));
-        for (String o: manifestKeys) {
-            Path manifestPath = Paths.get(o).subpath(1, 6);
-            Path destination = downloadDir.resolve(manifestPath);
-            downloadFile(destination, objectKeyToRemoteReference(manifestPath));
-        }
+        syncManifestsToDirectory(downloadDir, manifestKeys.stream().map(o -> Paths.get(o).subpath(1, 6)).collect(toList()));
     }
 
     @Override
     public List<Manifest> listManifests() throws Exception {
+        downloadManifestsIfRequested();
+        return localFileRestorer.listManifests();
+    }
+
+    @Override
+    public AllManifestsReport reportManifests() throws Exception {
+        downloadManifestsIfRequested();
+        return localFileRestorer.reportManifests();
+    }
+
+    private void downloadManifestsIfRequested() throws Exception {
         //If skipDownload flag is not set, download manifests
         if (this.request instanceof ListOperationRequest) {
             if (!((ListOperationRequest) this.request).skipDownload) {
@@ -219,7 +245,6 @@ public class AzureRestorer extends Restorer {
                 downloadManifestsToDirectory(downloadDirectory);
             }
         }
-        return localFileRestorer.listManifests();
     }
 
     @Override
@@ -94,9 +94,9 @@ public class GCPBackuper extends Backuper {
     }
 
     @Override
-    public void uploadText(final String text, final RemoteObjectReference objectReference) {
+    public void uploadBytes(final byte[] bytes, final RemoteObjectReference objectReference) {
         final BlobId blobId = ((GCPRemoteObjectReference) objectReference).blobId;
-        storage.create(BlobInfo.newBuilder(blobId).build(), text.getBytes(), Storage.BlobTargetOption.predefinedAcl(BUCKET_OWNER_FULL_CONTROL));
+        storage.create(BlobInfo.newBuilder(blobId).build(), bytes, Storage.BlobTargetOption.predefinedAcl(BUCKET_OWNER_FULL_CONTROL));
     }
 
     @Override
@@ -30,6 +30,8 @@ import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import com.instaclustr.esop.gcp.GCPModule.GoogleStorageFactory;
 import com.instaclustr.esop.impl.Manifest;
+import com.instaclustr.esop.impl.Manifest.AllManifestsReport;
+import com.instaclustr.esop.impl.ManifestCompression;
 import com.instaclustr.esop.impl.ManifestEntry;
 import com.instaclustr.esop.impl.RemoteObjectReference;
 import com.instaclustr.esop.impl.StorageLocation;
@@ -39,7 +41,6 @@ import com.instaclustr.esop.impl.restore.RestoreCommitLogsOperationRequest;
 import com.instaclustr.esop.impl.restore.RestoreOperationRequest;
 import com.instaclustr.esop.impl.restore.Restorer;
 import com.instaclustr.esop.local.LocalFileRestorer;
-import com.instaclustr.io.FileUtils;
 
 import static com.instaclustr.esop.impl.list.ListOperationRequest.getForLocalListing;
 import static java.lang.String.format;
@@ -110,11 +111,30 @@ public class GCPRestorer extends Restorer {
 
     @Override
     public void downloadFile(final Path localFile, ManifestEntry manifestEntry, final RemoteObjectReference objectReference) throws Exception {
+        downloadFile(localFile, manifestEntry, objectReference, null);
+    }
+
+    @Override
+    protected void downloadFile(final Path localFile,
+                                final ManifestEntry manifestEntry,
+                                final RemoteObjectReference objectReference,
+                                final DownloadDigest digest) throws Exception {
         final BlobId blobId = ((GCPRemoteObjectReference) objectReference).blobId;
+
+        if (manifestEntry != null && rangedDownloader.isRanged(manifestEntry.size)) {
+            rangedDownloader.download(localFile, manifestEntry.size, (offset, length) -> {
+                final ReadChannel rangeChannel = storage.reader(blobId);
+                rangeChannel.seek(offset);
+                rangeChannel.limit(offset + length);
+                return Channels.newInputStream(rangeChannel);
+            }, digest);
+            return;
+        }
+
         Files.createDirectories(localFile.getParent());
 
         try (final ReadChannel inputChannel = storage.reader(blobId)) {
-            Files.copy(Channels.newInputStream(inputChannel), localFile, StandardCopyOption.REPLACE_EXISTING);
+            Files.copy(throttle(Channels.newInputStream(inputChannel), digest), localFile, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 
@@ -139,7 +159,11 @@ public class GCPRestorer extends Restorer {
     public String downloadManifest(final Path remotePrefix, final Predicate<String> keyFilter) throws Exception {
         final String blobItemPath = getManifest(nodeList(request.storageLocation.bucket, remotePrefix), keyFilter);
         final String fileName = blobItemPath.split("/")[blobItemPath.split("/").length - 1];
-        return downloadFileToString(objectKeyToNodeAwareRemoteReference(remotePrefix.resolve(fileName)));
+        final BlobId blobId = ((GCPRemoteObjectReference) objectKeyToNodeAwareRemoteReference(remotePrefix.resolve(fileName))).blobId;
+
+        try (final ReadChannel inputChannel = storage.reader(blobId)) {
+            return ManifestCompression.toString(Channels.newInputStream(inputChannel));
+        }
     }
 
     @Override
@@ -204,20 +228,24 @@ public class GCPRestorer extends Restorer {
     }
 
     public void downloadManifestsToDirectory(Path downloadDir) throws Exception {
-        FileUtils.createDirectory(downloadDir);
-        FileUtils.cleanDirectory(downloadDir.toFile());
         final List<String> manifestKeys = getBlobPaths(storage.list(storageLocation.bucket),
                 s -> s.contains("manifests"));
-        for (String o: manifestKeys) {
-            Path manifestPath = Paths.get(o);
-            Path destination = downloadDir.resolve(manifestPath);
-
-            downloadFile(destination, objectKeyToRemoteReference(manifestPath));
-        }
+        syncManifestsToDirectory(downloadDir, manifestKeys.stream().map(Paths::get).collect(toList()));
     }
 
     @Override
     public List<Manifest> listManifests() throws Exception {
+        downloadManifestsIfRequested();
+        return localFileRestorer.listManifests();
+    }
+
+    @Override
+    public AllManifestsReport reportManifests() throws Exception {
+        downloadManifestsIfRequested();
+        return localFileRestorer.reportManifests();
+    }
+
+    private void downloadManifestsIfRequested() throws Exception {
         //If skipDownload flag is not set, download manifests
         if (this.request instanceof ListOperationRequest) {
             if (!((ListOperationRequest) this.request).skipDownload) {
@@ -226,7 +254,6 @@ public class GCPRestorer extends Restorer {
                 downloadManifestsToDirectory(downloadDirectory);
             }
         }
-        return localFileRestorer.listManifests();
     }
 
     @Override
@@ -1,5 +1,7 @@
 package com.instaclustr.esop.impl;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 import java.util.Set;
 
@@ -18,6 +20,11 @@ import static java.lang.String.format;
 
 public abstract class AbstractOperationRequest extends OperationRequest {
 
+    /**
+     * Directory where Esop caches downloaded manifests and hashes of local files unless it is set otherwise.
+     */
+    public static final Path DEFAULT_CACHE_DIR = Paths.get(System.getProperty("user.home"), ".esop");
+
     @Option(names = {"--sl", "--storage-location"},
         converter = StorageLocationTypeConverter.class,
         description = "Location to which files will be backed up or restored from, in form " +
@@ -1,16 +1,18 @@
 package com.instaclustr.esop.impl;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -18,6 +20,7 @@ import com.google.common.base.Objects;
 import com.google.common.util.concurrent.AbstractIdleService;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,9 +41,7 @@ import static com.instaclustr.esop.impl.AbstractTracker.Unit.State.IGNORED;
 import static com.instaclustr.esop.impl.AbstractTracker.Unit.State.NOT_STARTED;
 import static java.lang.String.format;
 import static java.util.concurrent.TimeUnit.MINUTES;
-import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.Collectors.toList;
-import static org.awaitility.Awaitility.await;
 
 public abstract class AbstractTracker<UNIT extends Unit, SESSION extends Session<UNIT>, INTERACTOR extends StorageInteractor, REQUEST extends OperationRequest> extends AbstractIdleService {
 
@@ -50,7 +51,11 @@ public abstract class AbstractTracker<UNIT extends Unit, SESSION extends Session
     protected final OperationsService operationsService;
     protected final HashSpec hashSpec;
 
-    protected final List<UNIT> units = Collections.synchronizedList(new ArrayList<>());
+    // object key -> unit which is going to process it, a unit is in this map until it is finished
+    protected final Map<Path, UNIT> units = new ConcurrentHashMap<>();
+    // object key -> sessions which are waiting for the unit processing it to be finished,
+    // keyed by object key as a unit's manifest entry (hence its hash code) changes while it is processed
+    protected final Map<Path, Set<Session<UNIT>>> unitSessions = new ConcurrentHashMap<>();
     protected final Set<Session<UNIT>> sessions = Collections.synchronizedSet(new HashSet<>());
 
     public AtomicLong submittedUnits = new AtomicLong(0);
@@ -106,6 +111,7 @@ public abstract class AbstractTracker<UNIT extends Unit, SESSION extends Session
 
         if (entries.isEmpty()) {
             logger.info("0 files to process.");
+            currentSession.submissionFinished();
             return currentSession;
         }
 
@@ -113,35 +119,46 @@ public abstract class AbstractTracker<UNIT extends Unit, SESSION extends Session
         // concurrent uploads, if we had one global executor, we could not "cap it".
         final ListeningExecutorService executorService = new FixedTasksExecutorSupplier().get(concurrentConnections);
 
-        final Map<ListenableFuture<Void>, Unit> futures = new HashMap<>();
+        final Map<ListenableFuture<Void>, UNIT> futures = new HashMap<>();
 
         for (final ManifestEntry entry : entries) {
 
-            UNIT alreadySubmitted = null;
-
-            final Iterator<UNIT> it = Collections.unmodifiableList(new ArrayList<>(units)).iterator();
-
-            while (it.hasNext()) {
-                UNIT unit = it.next();
-
-                if (unit.getManifestEntry().objectKey.equals(entry.objectKey)) {
-                    alreadySubmitted = unit;
-                    break;
-                }
-            }
+            final UNIT alreadySubmitted = units.get(entry.objectKey);
 
             if (alreadySubmitted == null) {
                 final UNIT unit = constructUnitToSubmit(interactor, entry, operation.getShouldCancel(), snapshotTag, hashSpec);
 
-                units.add(unit);
+                final Set<Session<UNIT>> interestedSessions = ConcurrentHashMap.newKeySet();
+                interestedSessions.add(currentSession);
+
+                units.put(entry.objectKey, unit);
+                unitSessions.put(entry.objectKey, interestedSessions);
                 futures.put(executorService.submit(unit), unit);
 
                 submittedUnits.incrementAndGet();
 
                 currentSession.addUnit(unit);
             } else {
-                logger.info(String.format("Session %s skips as already submitted: %s", currentSession.getId(), alreadySubmitted.getManifestEntry().objectKey));
+                logger.debug(String.format("Session %s skips as already submitted: %s", currentSession.getId(), alreadySubmitted.getManifestEntry().objectKey));
+
+                // register this session for the unit only if it is still being processed,
+                // if it has finished in the meanwhile, count it as completed right away
+                final AtomicBoolean alreadyInSession = new AtomicBoolean(false);
+
+                final Set<Session<UNIT>> interestedSessions = unitSessions.computeIfPresent(entry.objectKey, (key, sessionsOfUnit) -> {
+                    alreadyInSession.set(!sessionsOfUnit.add(currentSession));
+                    return sessionsOfUnit;
+                });
+
+                if (alreadyInSession.get()) {
+                    continue;
+                }
+
                 currentSession.addUnit(alreadySubmitted);
+
+                if (interestedSessions == null) {
+                    currentSession.unitCompleted(alreadySubmitted);
+                }
             }
         }
 
@@ -149,23 +166,28 @@ public abstract class AbstractTracker<UNIT extends Unit, SESSION extends Session
         submittedSessions.incrementAndGet();
 
         futures.forEach((key, value) -> key.addListener(() -> {
-            synchronized (sessions) {
-                // increment finished units across all sessions
-                sessions.stream().filter(s -> s.getUnits().contains(value)).forEach(s -> {
-                    operationsService.operation(s.getId()).ifPresent(op -> {
-                        s.finishedUnits.incrementAndGet();
-                        logger.info(String.format("Progress for snapshot %s: %.2f",
-                                                   s.snapshotTag,
-                                                   s.getProgress() * 100));
-                        op.progress = s.getProgress();
-                    });
-                });
+            final Set<Session<UNIT>> interestedSessions = unitSessions.remove(value.getManifestEntry().objectKey);
+
+            units.remove(value.getManifestEntry().objectKey, value);
 
-                units.remove(value);
+            if (interestedSessions == null) {
+                return;
             }
+
+            // notify all sessions interested in this unit
+            interestedSessions.forEach(s -> {
+                s.unitCompleted(value);
+                operationsService.operation(s.getId()).ifPresent(op -> {
+                    logger.info(String.format("Progress for snapshot %s: %.2f",
+                                              s.snapshotTag,
+                                              s.getProgress() * 100));
+                    op.progress = s.getProgress();
+                });
+            });
         }, finisherExecutorService));
 
         currentSession.setExecutorService(executorService);
+        currentSession.submissionFinished();
         return currentSession;
     }
 
@@ -175,6 +197,12 @@ public abstract class AbstractTracker<UNIT extends Unit, SESSION extends Session
 
     public void removeSession(final Session<?> session) {
         if (session != null) {
+            for (final Unit unit : session.getUnits()) {
+                final Set<Session<UNIT>> interestedSessions = unitSessions.get(unit.getManifestEntry().objectKey);
+                if (interestedSessions != null) {
+                    interestedSessions.remove(session);
+                }
+            }
             session.clear();
             sessions.remove(session);
         }
@@ -189,7 +217,7 @@ public abstract class AbstractTracker<UNIT extends Unit, SESSION extends Session
     }
 
     public List<UNIT> getUnits() {
-        return Collections.unmodifiableList(units);
+        return Collections.unmodifiableList(new ArrayList<>(units.values()));
     }
 
     public Set<Session<UNIT>> getSessions() {
@@ -314,6 +342,12 @@ public abstract class AbstractTracker<UNIT extends Unit, SESSION extends Session
 
         public final AtomicLong submittedUnits = new AtomicLong(0);
         public final AtomicLong finishedUnits = new AtomicLong(0);
+        public final AtomicLong failedUnits = new AtomicLong(0);
+
+        // completed as soon as all units are finished or the first of them fails
+        @JsonIgnore
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private volatile boolean submissionFinished = false;
 
         public void setId(final UUID id) {
             this.id = id;
@@ -335,13 +369,12 @@ public abstract class AbstractTracker<UNIT extends Unit, SESSION extends Session
             return units;
         }
 
-        public synchronized boolean isConsideredFinished() {
-            return units.stream().anyMatch(unit -> unit.getState() == FAILED) ||
-                units.stream().allMatch(unit -> unit.getState() == FINISHED);
+        public boolean isConsideredFinished() {
+            return completion.isDone();
         }
 
-        public synchronized boolean isSuccessful() {
-            return units.stream().noneMatch(unit -> unit.getState() == FAILED);
+        public boolean isSuccessful() {
+            return failedUnits.get() == 0;
         }
 
         @JsonIgnore
@@ -361,7 +394,7 @@ public abstract class AbstractTracker<UNIT extends Unit, SESSION extends Session
             this.executorService = executorService;
         }
 
-        public synchronized float getProgress() {
+        public float getProgress() {
             if (submittedUnits.get() == 0) {
                 return 0;
             } else {
@@ -369,13 +402,18 @@ public abstract class AbstractTracker<UNIT extends Unit, SESSION extends Session
             }
         }
 
+        @JsonIgnore
+        public CompletableFuture<Void> getCompletion() {
+            return completion;
+        }
+
         @JsonIgnore
         public void waitUntilConsideredFinished() {
-            await().pollInSameThread().forever().pollInterval(5, SECONDS).until(this::isConsideredFinished);
+            completion.join();
 
             if (executorService != null) {
                 executorService.shutdown();
-                await().pollInSameThread().forever().pollInterval(5, SECONDS).until(() -> executorService.isTerminated());
+                Uninterruptibles.awaitTerminationUninterruptibly(executorService);
             }
 
             logger.info(format("%sSession %s has finished %s",
@@ -389,6 +427,28 @@ public abstract class AbstractTracker<UNIT extends Unit, SESSION extends Session
             submittedUnits.incrementAndGet();
         }
 
+        void unitCompleted(final Unit unit) {
+            finishedUnits.incrementAndGet();
+
+            if (unit.getState() == FAILED) {
+                failedUnits.incrementAndGet();
+                completion.complete(null);
+            } else {
+                completeIfAllFinished();
+            }
+        }
+
+        void submissionFinished() {
+            submissionFinished = true;
+            completeIfAllFinished();
+        }
+
+        private void completeIfAllFinished() {
+            if (submissionFinished && finishedUnits.get() >= submittedUnits.get()) {
+                completion.complete(null);
+            }
+        }
+
         public void clear() {
             units.clear();
         }
@@ -0,0 +1,273 @@
+package com.instaclustr.esop.impl;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.RateLimiter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.instaclustr.measure.DataRate;
+import com.instaclustr.measure.DataRate.DataRateUnit;
+import com.instaclustr.measure.DataSize;
+import com.instaclustr.picocli.typeconverter.DataRateMeasureTypeConverter;
+
+/**
+ * Token bucket shared by all units transferring data for one operation so the aggregate
+ * rate of all concurrent uploads (or downloads) is kept at the target, no matter how many files
+ * or connections there are. Every operation governor is chained to a JVM-wide one which might be
+ * limited by system properties "esop.upload.bandwidth" and "esop.download.bandwidth", e.g. "50MBPS".
+ * The rate might be changed while data are being transferred.
+ * <p>
+ * Achieved throughput is measured over a sliding window of last seconds so pauses between transfers,
+ * e.g. while a snapshot is taken, do not pull it down.
+ */
+public class BandwidthGovernor {
+
+    private static final Logger logger = LoggerFactory.getLogger(BandwidthGovernor.class);
+
+    public static final BandwidthGovernor JVM_UPLOAD = new BandwidthGovernor(null, parseRate("esop.upload.bandwidth"));
+
+    public static final BandwidthGovernor JVM_DOWNLOAD = new BandwidthGovernor(null, parseRate("esop.download.bandwidth"));
+
+    private final BandwidthGovernor parent;
+
+    private volatile RateLimiter rateLimiter;
+
+    private volatile DataRate rate;
+
+    private final AtomicLong transferredBytes = new AtomicLong(0);
+
+    private final AtomicLong firstTransferNanos = new AtomicLong(0);
+
+    private static final int WINDOW_SECONDS = 10;
+
+    private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    // bytes transferred in each of last seconds, a slot of a second is cleared when the window moves to it
+    private final AtomicLongArray windowBytes = new AtomicLongArray(WINDOW_SECONDS);
+
+    private volatile long windowSecond = Long.MIN_VALUE;
+
+    public BandwidthGovernor(final BandwidthGovernor parent, final DataRate rate) {
+        this.parent = parent;
+        setRate(rate);
+    }
+
+    /**
+     * Operation transferring data by a governor, its rate might be changed while it is running.
+     */
+    public interface GovernedOperation {
+
+        /**
+         * Changes the rate of all transfers of an operation, even while they are running.
+         *
+         * @param bandwidth new rate, null means unlimited
+         */
+        void updateBandwidth(final DataRate bandwidth);
+
+        Throughput getThroughput();
+    }
+
+    public static BandwidthGovernor forUploads() {
+        return new BandwidthGovernor(JVM_UPLOAD, null);
+    }
+
+    public static BandwidthGovernor forDownloads() {
+        return new BandwidthGovernor(JVM_DOWNLOAD, null);
+    }
+
+    /**
+     * @param rate new target rate, null or zero rate means unlimited
+     */
+    public synchronized void setRate(final DataRate rate) {
+        final Long bytesPerSecond = rate == null ? null : rate.asBytesPerSecond().value;
+
+        if (bytesPerSecond == null || bytesPerSecond <= 0) {
+            this.rateLimiter = null;
+            this.rate = null;
+            return;
+        }
+
+        if (rateLimiter == null) {
+            rateLimiter = RateLimiter.create(bytesPerSecond);
+        } else {
+            rateLimiter.setRate(bytesPerSecond);
+        }
+
+        this.rate = new DataRate(bytesPerSecond, DataRateUnit.BPS);
+    }
+
+    public DataRate getRate() {
+        return rate;
+    }
+
+    /**
+     * Accounts bytes which were just transferred, blocking as long as it is necessary to keep the target rate.
+     */
+    public void acquire(final int bytes) {
+        if (bytes <= 0) {
+            return;
+        }
+
+        if (parent != null) {
+            parent.acquire(bytes);
+        }
+
+        firstTransferNanos.compareAndSet(0, System.nanoTime());
+
+        final RateLimiter limiter = rateLimiter;
+
+        if (limiter != null) {
+            limiter.acquire(bytes);
+        }
+
+        transferredBytes.addAndGet(bytes);
+
+        final long second = Math.floorDiv(System.nanoTime(), SECOND_NANOS);
+
+        if (second != windowSecond) {
+            moveWindow(second);
+        }
+
+        windowBytes.addAndGet(slot(second), bytes);
+    }
+
+    private synchronized void moveWindow(final long second) {
+        if (second <= windowSecond) {
+            return;
+        }
+
+        // slots of seconds without any transfer are cleared too
+        for (long cleared = Math.max(windowSecond + 1, second - WINDOW_SECONDS + 1); cleared <= second; cleared++) {
+            windowBytes.set(slot(cleared), 0);
+        }
+
+        windowSecond = second;
+    }
+
+    private static int slot(final long second) {
+        return (int) Math.floorMod(second, (long) WINDOW_SECONDS);
+    }
+
+    public InputStream throttle(final InputStream inputStream, final AtomicBoolean shouldCancel) {
+        return new GovernedInputStream(inputStream, shouldCancel);
+    }
+
+    /**
+     * @return throughput where the achieved rate is the one of the last {@value #WINDOW_SECONDS} seconds,
+     * or of the time since the first transfer if it is shorter
+     */
+    public Throughput getThroughput() {
+        final long transferred = transferredBytes.get();
+        final long start = firstTransferNanos.get();
+        final DataRate currentRate = rate;
+
+        if (start == 0) {
+            return new Throughput(currentRate == null ? null : currentRate.value, 0, transferred);
+        }
+
+        final long now = System.nanoTime();
+        final long second = Math.floorDiv(now, SECOND_NANOS);
+        final long lastSecond = windowSecond;
+
+        long windowed = 0;
+
+        // slots after the last second with a transfer were not cleared yet, they belong to older seconds
+        for (long s = second - WINDOW_SECONDS + 1; s <= Math.min(second, lastSecond); s++) {
+            windowed += windowBytes.get(slot(s));
+        }
+
+        final long windowStart = Math.max((second - WINDOW_SECONDS + 1) * SECOND_NANOS, start);
+        final long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(now - windowStart);
+
+        return new Throughput(currentRate == null ? null : currentRate.value,
+                              elapsedMillis == 0 ? 0 : windowed * 1000 / elapsedMillis,
+                              transferred);
+    }
+
+    private static DataRate parseRate(final String property) {
+        final String value = System.getProperty(property);
+
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+
+        try {
+            return new DataRateMeasureTypeConverter().convert(value.trim());
+        } catch (final Exception ex) {
+            logger.warn("Unable to parse value '{}' of property {}, bandwidth will not be limited.", value, property);
+            return null;
+        }
+    }
+
+    private class GovernedInputStream extends FilterInputStream {
+
+        private final AtomicBoolean shouldCancel;
+
+        GovernedInputStream(final InputStream in, final AtomicBoolean shouldCancel) {
+            super(in);
+            this.shouldCancel = shouldCancel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkCancelled();
+            final int b = super.read();
+            if (b != -1) {
+                acquire(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            checkCancelled();
+            final int read = super.read(b, off, len);
+            acquire(read);
+            return read;
+        }
+
+        private void checkCancelled() throws IOException {
+            if (shouldCancel != null && shouldCancel.get()) {
+                throw new IOException("read was cancelled");
+            }
+        }
+    }
+
+    public static class Throughput {
+
+        @JsonProperty("targetBytesPerSecond")
+        public final Long targetBytesPerSecond;
+
+        // rate of last seconds
+        @JsonProperty("achievedBytesPerSecond")
+        public final long achievedBytesPerSecond;
+
+        @JsonProperty("transferredBytes")
+        public final long transferredBytes;
+
+        public Throughput(final Long targetBytesPerSecond, final long achievedBytesPerSecond, final long transferredBytes) {
+            this.targetBytesPerSecond = targetBytesPerSecond;
+            this.achievedBytesPerSecond = achievedBytesPerSecond;
+            this.transferredBytes = transferredBytes;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                .add("target", targetBytesPerSecond == null ? "unlimited" : DataSize.bytesToHumanReadable(targetBytesPerSecond) + "/s")
+                .add("achieved", DataSize.bytesToHumanReadable(achievedBytesPerSecond) + "/s")
+                .add("transferred", DataSize.bytesToHumanReadable(transferredBytes))
+                .toString();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.instaclustr.esop.impl;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Layout of archived commit logs in a bucket. A commit log is stored under a partition of the hour (in UTC)
+ * it was last modified in, e.g. "commitlog/2021-03-25-14/CommitLog-7-1616681411243.log.1616681432000", so
+ * commit logs of a time window are found by listing only partitions of that window instead of the whole archive.
+ * <p>
+ * Commit logs archived before partitioning are stored directly under "commitlog".
+ */
+public final class CommitLogLayout {
+
+    public static final Path COMMIT_LOG_ROOT = Paths.get("commitlog");
+
+    /**
+     * Object keys of commit logs in the flat layout sort after this key and keys of all partitions sort before it,
+     * as a name of a partition starts with a digit and a name of a commit log with "CommitLog".
+     */
+    public static final String FLAT_LAYOUT_START_AFTER = COMMIT_LOG_ROOT.resolve("CommitLog").toString();
+
+    private static final DateTimeFormatter PARTITION_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd-HH").withZone(ZoneOffset.UTC);
+
+    private CommitLogLayout() {
+    }
+
+    /**
+     * @param commitLogName name of a commit log file, e.g. "CommitLog-7-1616681411243.log"
+     * @param lastModified  last modification time of a commit log in milliseconds
+     * @return object key of a commit log
+     */
+    public static Path objectKey(final String commitLogName, final long lastModified) {
+        return partition(lastModified).resolve(commitLogName + "." + lastModified);
+    }
+
+    /**
+     * @return prefix of all commit logs last modified in the same hour as given timestamp
+     */
+    public static Path partition(final long timestamp) {
+        return COMMIT_LOG_ROOT.resolve(PARTITION_FORMAT.format(Instant.ofEpochMilli(timestamp)));
+    }
+
+    /**
+     * @return key which sorts after all object keys of a partition of given timestamp and before keys of partitions which follow,
+     * '0' sorts right after '/' which separates a partition from a name of a commit log
+     */
+    public static String afterPartition(final long timestamp) {
+        return partition(timestamp).toString() + "0";
+    }
+
+    /**
+     * @param partition prefix of a partition, e.g. "commitlog/2021-03-25-14"
+     * @return timestamp in milliseconds of the end (exclusive) of the hour of a partition
+     */
+    public static long partitionEnd(final Path partition) {
+        final LocalDateTime hour = LocalDateTime.parse(partition.getFileName().toString(), PARTITION_FORMAT);
+        return hour.plusHours(1).toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * @return true if an object key of a commit log is in a partition, false if it is in the flat layout
+     */
+    public static boolean isPartitioned(final Path objectKey) {
+        return objectKey.getParent() != null && !objectKey.getParent().equals(COMMIT_LOG_ROOT);
+    }
+
+    /**
+     * @return prefixes of all partitions commit logs last modified between given timestamps (inclusive) are in
+     */
+    public static List<Path> partitions(final long timestampStart, final long timestampEnd) {
+        final List<Path> partitions = new ArrayList<>();
+
+        Instant hour = Instant.ofEpochMilli(timestampStart).truncatedTo(ChronoUnit.HOURS);
+        final Instant end = Instant.ofEpochMilli(timestampEnd);
+
+        while (!hour.isAfter(end)) {
+            partitions.add(partition(hour.toEpochMilli()));
+            hour = hour.plus(1, ChronoUnit.HOURS);
+        }
+
+        return partitions;
+    }
+}
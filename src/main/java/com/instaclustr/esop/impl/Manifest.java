@@ -1,6 +1,7 @@
 package com.instaclustr.esop.impl;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -8,12 +9,16 @@ import java.sql.Timestamp;
 import java.text.CharacterIterator;
 import java.text.StringCharacterIterator;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
@@ -31,6 +36,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.instaclustr.esop.impl.Manifest.ManifestReporter.ManifestReport;
 import com.instaclustr.esop.impl.ManifestEntry.Type;
@@ -38,6 +45,7 @@ import com.instaclustr.esop.impl.Snapshots.Snapshot;
 import com.instaclustr.esop.impl.Snapshots.Snapshot.Keyspace;
 import com.instaclustr.esop.impl.Snapshots.Snapshot.Keyspace.Table;
 import com.instaclustr.esop.impl.backup.BaseBackupOperationRequest;
+import com.instaclustr.esop.impl.hash.HashSpec.HashAlgorithm;
 
 import static com.instaclustr.esop.impl.ManifestEntry.Type.MANIFEST_FILE;
 import static java.lang.String.format;
@@ -58,6 +66,36 @@ public class Manifest implements Cloneable {
 
     private long size;
 
+    // algorithm hashes of entries were computed by, manifests of older versions do not have it
+    private String hashAlgorithm;
+
+    // KMS key all files of a backup are encrypted with, null if they are not encrypted
+    private String kmsKeyId;
+
+    // manifests of older versions do not record whether their files are encrypted
+    private boolean kmsKeyIdRecorded;
+
+    // object key of this manifest, e.g. "manifests/snapshot-schema-timestamp.json", recorded only if
+    // manifests of a backup might be chained so a next one can refer to this one as to its parent
+    @JsonInclude(Include.NON_NULL)
+    private String objectKey;
+
+    // object key of a manifest this one is a delta of, null if this manifest is full
+    @JsonInclude(Include.NON_NULL)
+    private String parent;
+
+    // number of deltas from the nearest full manifest, 0 for a full one
+    @JsonInclude(Include.NON_DEFAULT)
+    private int chainLength;
+
+    // object keys of entries of a parent which are not entries of this delta
+    @JsonInclude(Include.NON_NULL)
+    private List<String> removedEntries;
+
+    // a delta with entries of its parents merged in, see materialize(Manifest)
+    @JsonIgnore
+    private boolean materialized;
+
     public static Manifest from(final Snapshot snapshot) {
         return new Manifest(snapshot);
     }
@@ -109,6 +147,216 @@ public class Manifest implements Cloneable {
         return this.size;
     }
 
+    public String getHashAlgorithm() {
+        return hashAlgorithm;
+    }
+
+    public void setHashAlgorithm(final String hashAlgorithm) {
+        this.hashAlgorithm = hashAlgorithm;
+    }
+
+    public String getKmsKeyId() {
+        return kmsKeyId;
+    }
+
+    public void setKmsKeyId(final String kmsKeyId) {
+        this.kmsKeyId = kmsKeyId;
+    }
+
+    public boolean isKmsKeyIdRecorded() {
+        return kmsKeyIdRecorded;
+    }
+
+    public void setKmsKeyIdRecorded(final boolean kmsKeyIdRecorded) {
+        this.kmsKeyIdRecorded = kmsKeyIdRecorded;
+    }
+
+    public String getObjectKey() {
+        return objectKey;
+    }
+
+    public void setObjectKey(final String objectKey) {
+        this.objectKey = objectKey;
+    }
+
+    public String getParent() {
+        return parent;
+    }
+
+    public void setParent(final String parent) {
+        this.parent = parent;
+    }
+
+    public int getChainLength() {
+        return chainLength;
+    }
+
+    public void setChainLength(final int chainLength) {
+        this.chainLength = chainLength;
+    }
+
+    public List<String> getRemovedEntries() {
+        return removedEntries;
+    }
+
+    public void setRemovedEntries(final List<String> removedEntries) {
+        this.removedEntries = removedEntries;
+    }
+
+    /**
+     * @return true if this manifest holds only entries added since its parent, false if it holds all its entries
+     */
+    @JsonIgnore
+    public boolean isDelta() {
+        return parent != null && !materialized;
+    }
+
+    /**
+     * Turns this manifest into a delta of a parent. All keyspaces and tables are kept so a delta tells what a backup
+     * consists of, but only entries the parent does not have are, and object keys of entries of the parent this manifest
+     * does not have anymore are recorded as removed ones.
+     *
+     * @param parent materialised parent, it has to have its object key recorded
+     * @return this manifest
+     */
+    public Manifest toDelta(final Manifest parent) {
+        final Set<Path> parentKeys = new HashSet<>();
+        parent.getManifestEntries(false).forEach(entry -> parentKeys.add(entry.objectKey));
+
+        final Set<Path> keys = new HashSet<>();
+
+        snapshot.forEachKeyspace(keyspace -> keyspace.getValue().forEachTable(table -> {
+            final Map<String, List<ManifestEntry>> added = new HashMap<>();
+
+            table.getValue().getSstables().forEach((sstable, entries) -> entries.forEach(entry -> {
+                keys.add(entry.objectKey);
+                if (!parentKeys.contains(entry.objectKey)) {
+                    added.computeIfAbsent(sstable, s -> new ArrayList<>()).add(entry);
+                }
+            }));
+
+            table.getValue().setSstables(added);
+        }));
+
+        removedEntries = parentKeys.stream().filter(key -> !keys.contains(key)).map(Path::toString).sorted().collect(toList());
+        this.parent = parent.objectKey;
+        chainLength = parent.chainLength + 1;
+
+        return this;
+    }
+
+    /**
+     * Merges entries of a parent into this delta so it has all entries of its backup, as a full manifest would have.
+     * Only tables this delta has are merged, tables which were dropped since the parent was taken are not.
+     *
+     * @param parent materialised parent
+     * @return this manifest
+     */
+    public Manifest materialize(final Manifest parent) {
+        if (!isDelta()) {
+            return this;
+        }
+
+        final Set<String> removed = removedEntries == null ? new HashSet<>() : new HashSet<>(removedEntries);
+
+        snapshot.forEachKeyspace(keyspace -> parent.snapshot.getKeyspace(keyspace.getKey()).ifPresent(
+            parentKeyspace -> keyspace.getValue().forEachTable(table -> parentKeyspace.getTable(table.getKey()).ifPresent(
+                parentTable -> parentTable.getSstables().forEach((sstable, entries) -> entries.forEach(entry -> {
+                    if (!removed.contains(entry.objectKey.toString())) {
+                        table.getValue().add(sstable, entry);
+                    }
+                }))))));
+
+        removedEntries = null;
+        materialized = true;
+
+        return this;
+    }
+
+    /**
+     * Materialises all deltas of listed manifests by their parents among them. A delta whose parent is not listed
+     * keeps its own entries only.
+     *
+     * @param manifests manifests with their manifest entries set
+     */
+    public static void materialize(final List<Manifest> manifests) {
+        final Map<String, Manifest> manifestsByKey = new HashMap<>();
+
+        for (final Manifest manifest : manifests) {
+            if (manifest.manifest != null) {
+                manifestsByKey.put(manifest.manifest.objectKey.toString(), manifest);
+            }
+        }
+
+        for (final Manifest manifest : manifests) {
+            materialize(manifest, manifestsByKey, new HashSet<>());
+        }
+    }
+
+    private static void materialize(final Manifest manifest, final Map<String, Manifest> manifestsByKey, final Set<String> visited) {
+        if (!manifest.isDelta()) {
+            return;
+        }
+
+        if (!visited.add(manifest.parent)) {
+            throw new IllegalStateException(format("Manifest %s is in a cycle of parents", manifest.parent));
+        }
+
+        final Manifest parent = manifestsByKey.get(manifest.parent);
+
+        if (parent == null) {
+            logger.warn("Parent {} of manifest {} does not exist, only its own entries are considered.", manifest.parent, manifest.getManifestName());
+            return;
+        }
+
+        materialize(parent, manifestsByKey, visited);
+        manifest.materialize(parent);
+    }
+
+    /**
+     * Records the KMS key all files of a backup are encrypted with, or that they are not encrypted if it is null.
+     */
+    public void recordKmsKeyId(final String kmsKeyId) {
+        this.kmsKeyId = kmsKeyId;
+        this.kmsKeyIdRecorded = true;
+    }
+
+    /**
+     * Marks all entries with the KMS key they are encrypted with so it does not need to be looked up for each of them.
+     */
+    private Manifest resolveKmsKeyIdOfEntries() {
+        if (!kmsKeyIdRecorded || snapshot == null) {
+            return this;
+        }
+
+        getManifestEntries(false).forEach(entry -> {
+            entry.kmsKeyId = kmsKeyId;
+            entry.kmsKeyIdRecorded = true;
+        });
+
+        return this;
+    }
+
+    /**
+     * Marks all entries with the algorithm their hashes were computed by so they are verified by the same one.
+     */
+    private Manifest resolveHashAlgorithmOfEntries() {
+        if (hashAlgorithm == null || snapshot == null) {
+            return this;
+        }
+
+        for (final HashAlgorithm algorithm : HashAlgorithm.values()) {
+            if (algorithm.toString().equals(hashAlgorithm)) {
+                getManifestEntries(false).forEach(entry -> entry.hashAlgorithm = algorithm);
+                return this;
+            }
+        }
+
+        logger.warn("Unknown hash algorithm {} in manifest, files will be verified by the configured one.", hashAlgorithm);
+
+        return this;
+    }
+
     @JsonIgnore
     public String getInitialTokensCassandraYamlFragment() {
         return "initial_token: " + String.join(",", getTokens());
@@ -165,6 +413,15 @@ public class Manifest implements Cloneable {
 
     @JsonIgnore
     public String getManifestName() {
+        return getManifestName(manifest);
+    }
+
+    @JsonIgnore
+    public Long getManifestTimestamp() {
+        return getManifestTimestamp(manifest);
+    }
+
+    public static String getManifestName(final ManifestEntry manifest) {
         if (manifest != null && manifest.objectKey != null) {
             final String manifestName = manifest.objectKey.getFileName().toString();
             // dot is file type separator
@@ -174,8 +431,7 @@ public class Manifest implements Cloneable {
         return null;
     }
 
-    @JsonIgnore
-    public Long getManifestTimestamp() {
+    public static Long getManifestTimestamp(final ManifestEntry manifest) {
         if (manifest != null && manifest.objectKey != null) {
             final String manifestPath = manifest.objectKey.getFileName().toString();
             final String timestampWithFileSuffix = manifestPath.substring(manifestPath.lastIndexOf("-") + 1);
@@ -204,7 +460,9 @@ public class Manifest implements Cloneable {
         return Objects.equal(snapshot, manifest1.snapshot) &&
             Objects.equal(manifest, manifest1.manifest) &&
             Objects.equal(tokens, manifest1.tokens) &&
-            Objects.equal(schemaVersion, manifest1.schemaVersion);
+            Objects.equal(schemaVersion, manifest1.schemaVersion) &&
+            Objects.equal(parent, manifest1.parent) &&
+            Objects.equal(removedEntries, manifest1.removedEntries);
     }
 
     @Override
@@ -213,6 +471,14 @@ public class Manifest implements Cloneable {
 
         cloned.setTokens(tokens == null ? null : new ArrayList<>(tokens));
         cloned.setSchemaVersion(this.schemaVersion);
+        cloned.setHashAlgorithm(this.hashAlgorithm);
+        cloned.setKmsKeyId(this.kmsKeyId);
+        cloned.setKmsKeyIdRecorded(this.kmsKeyIdRecorded);
+        cloned.setObjectKey(this.objectKey);
+        cloned.setParent(this.parent);
+        cloned.setChainLength(this.chainLength);
+        cloned.setRemovedEntries(removedEntries == null ? null : new ArrayList<>(removedEntries));
+        cloned.materialized = this.materialized;
         cloned.setManifest(manifest == null ? null : manifest.clone());
         cloned.setSnapshot(snapshot == null ? null : snapshot.clone());
 
@@ -221,7 +487,7 @@ public class Manifest implements Cloneable {
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(snapshot, manifest, tokens, schemaVersion);
+        return Objects.hashCode(snapshot, manifest, tokens, schemaVersion, parent, removedEntries);
     }
 
     public static ManifestEntry getManifestAsManifestEntry(final Path localManifestPath,
@@ -243,11 +509,13 @@ public class Manifest implements Cloneable {
     }
 
     public static Manifest read(final Path localManifestPath, final ObjectMapper objectMapper) throws Exception {
-        return objectMapper.readValue(localManifestPath.toFile(), Manifest.class);
+        try (final InputStream manifest = ManifestCompression.open(localManifestPath)) {
+            return objectMapper.readValue(manifest, Manifest.class).resolveHashAlgorithmOfEntries().resolveKmsKeyIdOfEntries();
+        }
     }
 
     public static Manifest read(final String manifest, final ObjectMapper objectMapper) throws Exception {
-        return objectMapper.readValue(manifest, Manifest.class);
+        return objectMapper.readValue(manifest, Manifest.class).resolveHashAlgorithmOfEntries().resolveKmsKeyIdOfEntries();
     }
 
     public static Path getLocalManifestPath(final String snapshotTag) {
@@ -407,43 +675,144 @@ public class Manifest implements Cloneable {
         }
     }
 
+    /**
+     * Reference counts of all files of a set of manifests. Every distinct object key gets a slot in primitive arrays
+     * once, so a count or a size of a file is looked up in constant time and computing reclaimable space or removable
+     * entries of a manifest is linear in the number of its entries.
+     * <p>
+     * Object keys are interned in slots of a counter, entries which are added are not changed. Names of manifests
+     * referencing a file are recorded only for entries added together with a name of their manifest.
+     */
     public static class ManifestFilesCounter {
 
-        public final Map<String, List<String>> files = new ConcurrentHashMap<>();
-        public final Map<String, Long> sizes = new ConcurrentHashMap<>();
+        private static final int INITIAL_CAPACITY = 1024;
 
-        public List<String> getManifestsOfEntry(final String manifestEntry) {
-            return files.get(manifestEntry);
-        }
+        private final Map<Path, Integer> slots = new HashMap<>();
+
+        private Path[] keys = new Path[INITIAL_CAPACITY];
+        private int[] counts = new int[INITIAL_CAPACITY];
+        private long[] sizes = new long[INITIAL_CAPACITY];
+        private List<String>[] manifests = newManifests(INITIAL_CAPACITY);
+
+        private long totalSize;
 
         public boolean isOnlyInOneManifest(final String manifestEntry) {
-            return files.entrySet().stream().filter(entry -> entry.getKey().equals(manifestEntry)).findFirst().map(e -> e.getValue().size()).orElse(0) == 1;
+            return count(manifestEntry) == 1;
         }
 
         public boolean isInMultipleManifests(final String manifestEntry) {
-            return files.entrySet().stream().filter(entry -> entry.getKey().equals(manifestEntry)).findFirst().map(e -> e.getValue().size()).orElse(0) > 1;
+            return count(manifestEntry) > 1;
         }
 
         public int count(final String manifestEntry) {
-            return files.entrySet().stream()
-                .filter(entry -> entry.getKey().equals(manifestEntry))
-                .map(entry -> entry.getValue().size())
-                .reduce(Integer::sum).orElse(0);
+            return count(Paths.get(manifestEntry));
+        }
+
+        public int count(final Path objectKey) {
+            final Integer slot = slots.get(objectKey);
+            return slot == null ? 0 : counts[slot];
+        }
+
+        /**
+         * @return names of manifests an entry was added with or null if it was not added with any
+         */
+        public List<String> getManifestsOfEntry(final String manifestEntry) {
+            final Integer slot = slots.get(Paths.get(manifestEntry));
+            return slot == null ? null : manifests[slot];
+        }
+
+        /**
+         * @return size of a file or null if no manifest was added with it
+         */
+        public Long getSizeOfEntry(final String manifestEntry) {
+            final Integer slot = slots.get(Paths.get(manifestEntry));
+            return slot == null ? null : sizes[slot];
+        }
+
+        public void add(final ManifestEntry manifestEntry) {
+            add(manifestEntry.objectKey, manifestEntry.size);
         }
 
         public void add(final String manifestName, final ManifestEntry manifestEntry) {
-            final String key = manifestEntry.objectKey.toString();
-            if (files.containsKey(key)) {
-                files.get(key).add(manifestName);
-            } else {
-                files.put(key, new ArrayList<String>() {{
-                    add(manifestName);
-                }});
-                // we put it into sizes map just once
-                // as it might be technically present in all manifests multiple times
-                // but it is persisted just once
-                sizes.put(key, manifestEntry.size);
+            final int slot = slot(manifestEntry.objectKey, manifestEntry.size);
+            counts[slot]++;
+
+            if (manifests[slot] == null) {
+                manifests[slot] = new ArrayList<>(1);
             }
+
+            manifests[slot].add(manifestName);
+        }
+
+        /**
+         * @return interned object key
+         */
+        public Path add(final Path objectKey, final long size) {
+            final int slot = slot(objectKey, size);
+            counts[slot]++;
+            return keys[slot];
+        }
+
+        /**
+         * Gets a slot of a file without counting a reference to it, a new slot is taken if no manifest was added
+         * with it yet. References are counted by {@link #reference(int)} then.
+         */
+        public int slot(final Path objectKey, final long size) {
+            final Integer slot = slots.get(objectKey);
+
+            if (slot != null) {
+                return slot;
+            }
+
+            final int newSlot = slots.size();
+
+            if (newSlot == keys.length) {
+                final int capacity = keys.length * 2;
+                keys = Arrays.copyOf(keys, capacity);
+                counts = Arrays.copyOf(counts, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+                manifests = Arrays.copyOf(manifests, capacity);
+            }
+
+            slots.put(objectKey, newSlot);
+            keys[newSlot] = objectKey;
+            // a file might be referenced by many manifests but it is persisted just once
+            sizes[newSlot] = size;
+            totalSize += size;
+
+            return newSlot;
+        }
+
+        /**
+         * @return slot of a file or -1 if no manifest was added with it
+         */
+        public int slotOf(final Path objectKey) {
+            final Integer slot = slots.get(objectKey);
+            return slot == null ? -1 : slot;
+        }
+
+        public void reference(final int slot) {
+            counts[slot]++;
+        }
+
+        public Path getObjectKey(final int slot) {
+            return keys[slot];
+        }
+
+        public long getSize(final int slot) {
+            return sizes[slot];
+        }
+
+        public int getCount(final int slot) {
+            return counts[slot];
+        }
+
+        /**
+         * @return size of a file if no other manifest references it, -1 otherwise
+         */
+        public long getReclaimableSize(final Path objectKey) {
+            final Integer slot = slots.get(objectKey);
+            return slot != null && counts[slot] == 1 ? sizes[slot] : -1;
         }
 
         public void add(final Manifest manifest) {
@@ -453,21 +822,18 @@ public class Manifest implements Cloneable {
         }
 
         public int getNumberOfEntries() {
-            return files.keySet().size();
+            return slots.size();
         }
 
         public long getSize() {
-            return sizes.values().stream().reduce(Long::sum).orElse(0L);
+            return totalSize;
         }
 
         public long getReclaimableSpace(final Manifest m) {
             long reclaimableSpace = 0;
 
             for (final ManifestEntry manifestEntry : m.getManifestEntries()) {
-                final String key = manifestEntry.objectKey.toString();
-                if (isOnlyInOneManifest(key)) {
-                    reclaimableSpace += sizes.getOrDefault(key, 0L);
-                }
+                reclaimableSpace += Math.max(0, getReclaimableSize(manifestEntry.objectKey));
             }
 
             return reclaimableSpace;
@@ -475,15 +841,20 @@ public class Manifest implements Cloneable {
 
         public List<String> getRemovableEntries(final Manifest m) {
             final List<String> removableEntries = new ArrayList<>();
+
             for (final ManifestEntry manifestEntry : m.getManifestEntries()) {
-                final String key = manifestEntry.objectKey.toString();
-                if (isOnlyInOneManifest(key)) {
+                if (getReclaimableSize(manifestEntry.objectKey) >= 0) {
                     removableEntries.add(manifestEntry.objectKey.toString());
                 }
             }
 
             return removableEntries;
         }
+
+        @SuppressWarnings("unchecked")
+        private static List<String>[] newManifests(final int capacity) {
+            return (List<String>[]) new List[capacity];
+        }
     }
 
     public static class ManifestReporter {
@@ -494,6 +865,7 @@ public class Manifest implements Cloneable {
             report.size = manifest.getTotalSize();
             report.name = manifest.getManifestName();
             report.manifest = manifest.manifest;
+            report.parent = manifest.parent;
             return report;
         }
 
@@ -509,6 +881,9 @@ public class Manifest implements Cloneable {
             public String timestamp;
             public ManifestEntry manifest;
             public Long unixtimestamp;
+            // object key of a parent of a delta manifest
+            @JsonInclude(Include.NON_NULL)
+            public String parent;
 
             public int getFiles() {
                 return files;
@@ -574,6 +949,14 @@ public class Manifest implements Cloneable {
                 this.manifest = manifest;
             }
 
+            public String getParent() {
+                return parent;
+            }
+
+            public void setParent(final String parent) {
+                this.parent = parent;
+            }
+
             @Override
             public String toString() {
                 return MoreObjects.toStringHelper(this)
@@ -584,6 +967,7 @@ public class Manifest implements Cloneable {
                     .add("removableEntries", removableEntries)
                     .add("timestamp", timestamp)
                     .add("unixtimestamp", unixtimestamp)
+                    .add("parent", parent)
                     .toString();
             }
         }
@@ -689,12 +1073,71 @@ public class Manifest implements Cloneable {
                 final ManifestReport report = manifestReporter.report(m);
                 report.reclaimableSpace = counter.getReclaimableSpace(m);
                 report.removableEntries = counter.getRemovableEntries(m);
-                Long manifestTimestamp = m.getManifestTimestamp();
-                report.timestamp = new Timestamp(m.getManifestTimestamp()).toLocalDateTime().toString();
-                report.unixtimestamp = manifestTimestamp;
+                setTimestamp(report, m.getManifestTimestamp());
                 reports.add(report);
             }
 
+            return report(counter, reports);
+        }
+
+        /**
+         * Reports manifests which are read as a stream, so only slots of files of every manifest and reports
+         * themselves are held in memory, not whole manifests. Deltas are materialised by slots of their parents
+         * so files of a delta are all files of its backup, as if it was a full manifest.
+         *
+         * @param manifests entries of manifests, their local files are read
+         */
+        public static AllManifestsReport report(final List<ManifestEntry> manifests, final ManifestSummaryReader reader) throws IOException {
+            final ManifestFilesCounter counter = new ManifestFilesCounter();
+            final List<ManifestReport> reports = new ArrayList<>();
+            final MaterializedSlots materializedSlots = new MaterializedSlots(counter, reports);
+
+            for (final ManifestEntry manifest : manifests) {
+                final ManifestReport report = new ManifestReport();
+                report.name = getManifestName(manifest);
+                report.manifest = manifest;
+
+                final SlotList ownSlots = new SlotList();
+                final ManifestSummaryReader.Summary summary = reader.read(manifest.localFile,
+                                                                          (objectKey, size) -> ownSlots.add(counter.slot(objectKey, size)));
+                report.parent = summary.parent;
+
+                setTimestamp(report, getManifestTimestamp(manifest));
+                reports.add(report);
+                materializedSlots.add(manifest, ownSlots.toArray(), summary.removedEntries);
+            }
+
+            for (int i = 0; i < reports.size(); i++) {
+                for (final int slot : materializedSlots.get(i)) {
+                    counter.reference(slot);
+                }
+            }
+
+            for (int i = 0; i < reports.size(); i++) {
+                final ManifestReport report = reports.get(i);
+
+                for (final int slot : materializedSlots.get(i)) {
+                    final long size = counter.getSize(slot);
+
+                    report.files++;
+                    report.size += size;
+
+                    if (counter.getCount(slot) == 1) {
+                        report.reclaimableSpace += size;
+                        report.removableEntries.add(counter.getObjectKey(slot).toString());
+                    }
+                }
+            }
+
+            return report(counter, reports);
+        }
+
+        private static void setTimestamp(final ManifestReport report, final Long manifestTimestamp) {
+            report.timestamp = new Timestamp(manifestTimestamp).toLocalDateTime().toString();
+            report.unixtimestamp = manifestTimestamp;
+        }
+
+        private static AllManifestsReport report(final ManifestFilesCounter counter, final List<ManifestReport> reports) {
             final AllManifestsReport report = new AllManifestsReport();
             report.totalFiles = counter.getNumberOfEntries();
             report.totalManifests = reports.size();
@@ -704,6 +1147,110 @@ public class Manifest implements Cloneable {
             return report;
         }
 
+        /**
+         * Growable array of slots of files of a manifest.
+         */
+        private static final class SlotList {
+
+            private int[] slots = new int[64];
+            private int size;
+
+            void add(final int slot) {
+                if (size == slots.length) {
+                    slots = Arrays.copyOf(slots, size * 2);
+                }
+                slots[size++] = slot;
+            }
+
+            int[] toArray() {
+                return Arrays.copyOf(slots, size);
+            }
+        }
+
+        /**
+         * Slots of all files of reported manifests, a delta has slots of its parent without removed ones merged
+         * into its own. Parents are materialised first and just once.
+         */
+        private static final class MaterializedSlots {
+
+            private final ManifestFilesCounter counter;
+            private final List<ManifestReport> reports;
+            private final Map<String, Integer> indices = new HashMap<>();
+            private final List<int[]> ownSlots = new ArrayList<>();
+            private final List<List<String>> removedEntries = new ArrayList<>();
+            private final List<int[]> materialized = new ArrayList<>();
+            private final Set<Integer> visiting = new HashSet<>();
+
+            MaterializedSlots(final ManifestFilesCounter counter, final List<ManifestReport> reports) {
+                this.counter = counter;
+                this.reports = reports;
+            }
+
+            void add(final ManifestEntry manifest, final int[] slots, final List<String> removed) {
+                indices.put(manifest.objectKey.toString(), ownSlots.size());
+                ownSlots.add(slots);
+                removedEntries.add(removed);
+                materialized.add(null);
+            }
+
+            int[] get(final int index) {
+                if (materialized.get(index) != null) {
+                    return materialized.get(index);
+                }
+
+                final int[] own = ownSlots.get(index);
+                final String parent = reports.get(index).parent;
+
+                if (parent == null) {
+                    materialized.set(index, own);
+                    return own;
+                }
+
+                final Integer parentIndex = indices.get(parent);
+
+                if (parentIndex == null) {
+                    logger.warn("Parent {} of manifest {} does not exist, only its own entries are considered.", parent, reports.get(index).name);
+                    materialized.set(index, own);
+                    return own;
+                }
+
+                if (!visiting.add(index)) {
+                    throw new IllegalStateException(format("Manifest %s is in a cycle of parents", parent));
+                }
+
+                final int[] parentSlots = get(parentIndex);
+                visiting.remove(index);
+
+                final BitSet excluded = new BitSet(counter.getNumberOfEntries());
+
+                for (final int slot : own) {
+                    excluded.set(slot);
+                }
+
+                if (removedEntries.get(index) != null) {
+                    for (final String removed : removedEntries.get(index)) {
+                        final int slot = counter.slotOf(Paths.get(removed));
+                        if (slot >= 0) {
+                            excluded.set(slot);
+                        }
+                    }
+                }
+
+                final int[] slots = Arrays.copyOf(own, own.length + parentSlots.length);
+                int size = own.length;
+
+                for (final int slot : parentSlots) {
+                    if (!excluded.get(slot)) {
+                        slots[size++] = slot;
+                    }
+                }
+
+                materialized.set(index, Arrays.copyOf(slots, size));
+
+                return materialized.get(index);
+            }
+        }
+
         public List<ManifestReport> filter(final Predicate<ManifestReport> predicate) {
             return reports.stream().filter(predicate).collect(toList());
         }
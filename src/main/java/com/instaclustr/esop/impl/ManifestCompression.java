@@ -0,0 +1,75 @@
+package com.instaclustr.esop.impl;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.io.ByteStreams;
+
+/**
+ * Manifests might be stored compressed by gzip. A compressed manifest has the very same object key as a plain one,
+ * it is recognised by gzip magic bytes at its beginning, so everything which finds manifests by their names,
+ * timestamps or schema versions works with both and manifests of older versions are still read as they are.
+ */
+public final class ManifestCompression {
+
+    private static final int GZIP_MAGIC_FIRST_BYTE = 0x1f;
+    private static final int GZIP_MAGIC_SECOND_BYTE = 0x8b;
+
+    private ManifestCompression() {
+    }
+
+    /**
+     * @return manifest serialised as JSON and compressed by gzip
+     */
+    public static byte[] compress(final Manifest manifest, final ObjectMapper objectMapper) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (final GZIPOutputStream gzip = new GZIPOutputStream(bytes, 64 * 1024)) {
+            objectMapper.writeValue(gzip, manifest);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return stream of plain JSON of a manifest, decompressed if given stream is compressed
+     */
+    public static InputStream decompress(final InputStream inputStream) throws IOException {
+        final BufferedInputStream buffered = new BufferedInputStream(inputStream, 64 * 1024);
+
+        buffered.mark(2);
+        final int first = buffered.read();
+        final int second = buffered.read();
+        buffered.reset();
+
+        if (first == GZIP_MAGIC_FIRST_BYTE && second == GZIP_MAGIC_SECOND_BYTE) {
+            return new GZIPInputStream(buffered, 64 * 1024);
+        }
+
+        return buffered;
+    }
+
+    /**
+     * @return stream of plain JSON of a local manifest, compressed or not
+     */
+    public static InputStream open(final Path manifest) throws IOException {
+        return decompress(Files.newInputStream(manifest));
+    }
+
+    /**
+     * @return plain JSON of a manifest which is read from given stream, compressed or not
+     */
+    public static String toString(final InputStream inputStream) throws IOException {
+        try (final InputStream manifest = decompress(inputStream)) {
+            return new String(ByteStreams.toByteArray(manifest), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -15,6 +15,7 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonSerializer;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.instaclustr.esop.impl.hash.HashSpec.HashAlgorithm;
 
 public class ManifestEntry implements Cloneable {
 
@@ -52,6 +53,14 @@ public class ManifestEntry implements Cloneable {
     @JsonIgnore
     public KeyspaceTable keyspaceTable;
 
+    // algorithm the hash was computed by as recorded in a manifest, null if not known
+    @JsonIgnore
+    public HashAlgorithm hashAlgorithm;
+
+    // true if kmsKeyId is known from a manifest, even when it is null as a file is not encrypted
+    @JsonIgnore
+    public boolean kmsKeyIdRecorded;
+
     public ManifestEntry(final Path objectKey,
                          final Path localFile,
                          final Type type,
@@ -135,12 +144,15 @@ public class ManifestEntry implements Cloneable {
 
     @Override
     public ManifestEntry clone() throws CloneNotSupportedException {
-        return new ManifestEntry(this.objectKey == null ? null : Paths.get(this.objectKey.toString()),
+        final ManifestEntry cloned = new ManifestEntry(this.objectKey == null ? null : Paths.get(this.objectKey.toString()),
                                  this.localFile == null ? null : Paths.get(this.localFile.toString()),
                                  this.type,
                                  this.size,
                                  this.keyspaceTable == null ? null : this.keyspaceTable.clone(),
                                  this.hash,
                                  this.kmsKeyId);
+        cloned.hashAlgorithm = this.hashAlgorithm;
+        cloned.kmsKeyIdRecorded = this.kmsKeyIdRecorded;
+        return cloned;
     }
 }
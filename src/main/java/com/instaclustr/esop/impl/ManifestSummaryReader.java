@@ -0,0 +1,188 @@
+package com.instaclustr.esop.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instaclustr.esop.impl.ManifestEntry.Type;
+import com.instaclustr.esop.impl.restore.strategy.DataSynchronizator.ManifestEntrySSTableClassifier;
+
+/**
+ * Reads object keys and sizes of files of a manifest as a stream of tokens, without building
+ * a {@link Manifest} with all its snapshot, keyspaces, tables and entries. Listing or removing of backups
+ * needs nothing else so it reads manifests in memory bounded by the size of one table.
+ * <p>
+ * Compressed manifests are read as well as plain ones, see {@link ManifestCompression}.
+ * <p>
+ * Files of a manifest are reported exactly as {@link Manifest#getManifestEntries(boolean)} of a read manifest
+ * without the manifest itself would report them, including tables of manifests before 2.0.0. Files of a delta
+ * manifest are only those it added to its parent, see {@link Manifest#toDelta(Manifest)}.
+ */
+public class ManifestSummaryReader {
+
+    /**
+     * Consumes a file of a manifest.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+
+        void accept(final Path objectKey, final long size);
+    }
+
+    /**
+     * What a manifest tells about its place in a chain of deltas, everything is null for a full manifest.
+     */
+    public static class Summary {
+
+        public String parent;
+        public List<String> removedEntries;
+    }
+
+    private final JsonFactory jsonFactory;
+
+    public ManifestSummaryReader(final ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    public Summary read(final Path manifest, final EntryConsumer consumer) throws IOException {
+        final Summary summary = new Summary();
+
+        try (final JsonParser parser = jsonFactory.createParser(ManifestCompression.open(manifest))) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT, manifest);
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String field = parser.getCurrentName();
+                final JsonToken value = parser.nextToken();
+
+                if ("snapshot".equals(field) && value == JsonToken.START_OBJECT) {
+                    readSnapshot(parser, consumer);
+                } else if ("parent".equals(field) && value == JsonToken.VALUE_STRING) {
+                    summary.parent = parser.getText();
+                } else if ("removedEntries".equals(field) && value == JsonToken.START_ARRAY) {
+                    summary.removedEntries = new ArrayList<>();
+                    while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                        summary.removedEntries.add(parser.getText());
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return summary;
+    }
+
+    private void readSnapshot(final JsonParser parser, final EntryConsumer consumer) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+
+            if ("keyspaces".equals(field) && value == JsonToken.START_OBJECT) {
+                // keyspace name -> keyspace
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    if (parser.nextToken() == JsonToken.START_OBJECT) {
+                        readKeyspace(parser, consumer);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readKeyspace(final JsonParser parser, final EntryConsumer consumer) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+
+            if ("tables".equals(field) && value == JsonToken.START_OBJECT) {
+                // table name -> table
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    if (parser.nextToken() == JsonToken.START_OBJECT) {
+                        readTable(parser, consumer);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void readTable(final JsonParser parser, final EntryConsumer consumer) throws IOException {
+        boolean hasSSTables = false;
+        // entries of manifests before 2.0.0, they count only if a table has no sstables
+        final List<ManifestEntry> legacyEntries = new ArrayList<>();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+
+            if ("sstables".equals(field) && value == JsonToken.START_OBJECT) {
+                // sstable name -> its entries
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    if (parser.nextToken() == JsonToken.START_ARRAY) {
+                        while (parser.nextToken() == JsonToken.START_OBJECT) {
+                            final ManifestEntry entry = readEntry(parser);
+                            consumer.accept(entry.objectKey, entry.size);
+                            hasSSTables = true;
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else if ("entries".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    legacyEntries.add(readEntry(parser));
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (!hasSSTables && !legacyEntries.isEmpty()) {
+            new ManifestEntrySSTableClassifier().classify(legacyEntries)
+                                                .values()
+                                                .forEach(entries -> entries.forEach(entry -> consumer.accept(entry.objectKey, entry.size)));
+        }
+    }
+
+    private ManifestEntry readEntry(final JsonParser parser) throws IOException {
+        Path objectKey = null;
+        long size = 0;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            final String field = parser.getCurrentName();
+            final JsonToken value = parser.nextToken();
+
+            if ("objectKey".equals(field) && value == JsonToken.VALUE_STRING) {
+                objectKey = Paths.get(parser.getText());
+            } else if ("size".equals(field) && value.isNumeric()) {
+                size = parser.getLongValue();
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (objectKey == null) {
+            throw new IOException("Manifest entry without object key at " + parser.getCurrentLocation());
+        }
+
+        return new ManifestEntry(objectKey, null, Type.FILE, size, null, null, null);
+    }
+
+    private static void expect(final JsonToken actual, final JsonToken expected, final Path manifest) throws IOException {
+        if (actual != expected) {
+            throw new IOException(String.format("Manifest %s is not valid, expected %s but got %s", manifest, expected, actual));
+        }
+    }
+}
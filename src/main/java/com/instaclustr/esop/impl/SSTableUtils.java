@@ -113,7 +113,8 @@ public class SSTableUtils {
 
         final HashService hashService = new HashServiceImpl(hashSpec);
 
-        return Files.list(snapshotDirectory)
+        try (final Stream<Path> snapshotFiles = Files.list(snapshotDirectory)) {
+            return snapshotFiles
                     .flatMap(path -> {
                         if (isCassandra22SecIndex(path)) {
                             return FileUtils.tryListFiles(path);
@@ -166,6 +167,7 @@ public class SSTableUtils {
                             throw new UncheckedIOException(new IOException(e));
                         }
                     }).collect(Collectors.toMap(Pair::getKey, Pair::getValue));
+        }
     }
 
     /**
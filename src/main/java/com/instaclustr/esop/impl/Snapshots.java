@@ -2,8 +2,11 @@ package com.instaclustr.esop.impl;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
@@ -20,6 +23,9 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.regex.Matcher;
@@ -32,6 +38,8 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Multimap;
 
 import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -48,7 +56,12 @@ import static java.util.stream.Collectors.toSet;
 
 public class Snapshots implements Cloneable {
 
-    public static HashSpec hashSpec;
+    private static final Logger logger = LoggerFactory.getLogger(Snapshots.class);
+
+    public static volatile HashSpec hashSpec;
+
+    private static final ForkJoinPool PARSING_POOL = new ForkJoinPool(Integer.getInteger("esop.snapshots.parsing.parallelism",
+                                                                                         Runtime.getRuntime().availableProcessors()));
 
     private final Map<String, Snapshot> snapshots = new HashMap<>();
 
@@ -280,7 +293,7 @@ public class Snapshots implements Cloneable {
             return keyspaces.entrySet().stream().flatMap(keyspace -> keyspace.getValue().getManifestEntries().stream()).collect(toList());
         }
 
-        public static Snapshot parse(final String snapshotName, final List<Path> snapshotPaths) throws Exception {
+        public static Snapshot parse(final String snapshotName, final List<Path> snapshotPaths, final HashSpec hashSpec) throws Exception {
 
             final Snapshot snapshot = new Snapshot();
             snapshot.setName(snapshotName);
@@ -288,9 +301,13 @@ public class Snapshots implements Cloneable {
             final Map<String, List<Path>> keyspaceSnapshotPaths = snapshotPaths.stream()
                                                                                .collect(groupingBy(p -> p.getParent().getParent().getParent().getFileName().toString()));
 
-            for (final Entry<String, List<Path>> entry : keyspaceSnapshotPaths.entrySet()) {
-                snapshot.keyspaces.put(entry.getKey(), Keyspace.parse(entry.getKey(), entry.getValue()));
-            }
+            snapshot.keyspaces.putAll(keyspaceSnapshotPaths.entrySet().parallelStream().collect(toMap(Entry::getKey, entry -> {
+                try {
+                    return Keyspace.parse(entry.getKey(), entry.getValue(), hashSpec);
+                } catch (final Exception ex) {
+                    throw new RuntimeException(format("Unable to parse keyspace %s of snapshot %s", entry.getKey(), snapshotName), ex);
+                }
+            })));
 
             return snapshot;
         }
@@ -400,23 +417,22 @@ public class Snapshots implements Cloneable {
                 }
             }
 
-            public static Keyspace parse(final String keyspace, List<Path> snapshotPaths) throws Exception {
+            public static Keyspace parse(final String keyspace, List<Path> snapshotPaths, final HashSpec hashSpec) throws Exception {
                 final Map<String, List<Path>> tableSnapshotPaths = snapshotPaths.stream().collect(groupingBy(p -> p.getParent().getParent().getFileName().toString()));
 
-                final Map<String, Table> tables = new HashMap<>();
-
-                for (final Entry<String, List<Path>> entry : tableSnapshotPaths.entrySet()) {
-                    Table parsedTable = Table.parse(keyspace, entry.getKey(), entry.getValue());
-                    tables.put(parsedTable.name, parsedTable);
-                }
+                final Map<String, Table> tables = tableSnapshotPaths.entrySet().parallelStream().map(entry -> {
+                    try {
+                        return Table.parse(keyspace, entry.getKey(), entry.getValue(), hashSpec);
+                    } catch (final Exception ex) {
+                        throw new RuntimeException(format("Unable to parse table %s.%s", keyspace, entry.getKey()), ex);
+                    }
+                }).collect(toMap(table -> table.name, table -> table, (first, second) -> second));
 
                 return new Keyspace(tables);
             }
 
             public void forEachTable(Consumer<Entry<String, Table>> consumer) {
-                this.tables.forEach((name, table) -> {
-                    tables.entrySet().forEach(consumer);
-                });
+                tables.entrySet().forEach(consumer);
             }
 
             public Map<String, Table> getTables() {
@@ -553,7 +569,7 @@ public class Snapshots implements Cloneable {
                     this.id = id;
                 }
 
-                public static Table parse(final String keyspace, final String table, final List<Path> value) throws Exception {
+                public static Table parse(final String keyspace, final String table, final List<Path> value, final HashSpec hashSpec) throws Exception {
                     final Matcher matcher = TABLE_PATTERN.matcher(table);
 
                     String tableName;
@@ -571,7 +587,7 @@ public class Snapshots implements Cloneable {
                     final Path tablePath = Paths.get("data").resolve(Paths.get(keyspace, table));
 
                     for (final Path path : value) {
-                        tb.sstables.putAll(SSTableUtils.getSSTables(keyspace, table, path, tablePath, Snapshots.hashSpec));
+                        tb.sstables.putAll(SSTableUtils.getSSTables(keyspace, table, path, tablePath, hashSpec));
                     }
 
                     final Optional<Path> schemaPath = value.stream().map(p -> p.resolve("schema.cql")).filter(Files::exists).findFirst();
@@ -714,24 +730,31 @@ public class Snapshots implements Cloneable {
         }
     }
 
-    public static synchronized Snapshots parse(final List<Path> cassandraDirs) throws Exception {
+    public static Snapshots parse(final List<Path> cassandraDirs) throws Exception {
         return parse(cassandraDirs, null);
     }
 
-    public static synchronized Snapshots parse(final List<Path> cassandraDataDirs, final String snapshot) throws Exception {
-        final List<Snapshots> snapshots = cassandraDataDirs.stream()
-                                                           .map(dataDir -> {
-                                                               try {
-                                                                   return Snapshots.parse(dataDir, snapshot);
-                                                               } catch (final Exception ex) {
-                                                                   throw new RuntimeException(String.format("Unable to parse snapshots in directory %s", dataDir), ex);
-                                                               }
-                                                           }).collect(toList());
+    public static Snapshots parse(final List<Path> cassandraDataDirs, final String snapshot) throws Exception {
+        return parse(cassandraDataDirs, snapshot, defaultHashSpec());
+    }
+
+    /**
+     * @param hashSpec spec SSTables are hashed by while they are parsed, hashing is skipped for {@link HashSpec.HashAlgorithm#NONE}
+     */
+    public static Snapshots parse(final List<Path> cassandraDataDirs, final String snapshot, final HashSpec hashSpec) throws Exception {
+        final List<Snapshots> snapshots = inParsingPool(() -> cassandraDataDirs.parallelStream()
+                                                                               .map(dataDir -> {
+                                                                                   try {
+                                                                                       return Snapshots.parse(dataDir, snapshot, hashSpec);
+                                                                                   } catch (final Exception ex) {
+                                                                                       throw new RuntimeException(String.format("Unable to parse snapshots in directory %s", dataDir), ex);
+                                                                                   }
+                                                                               }).collect(toList()));
 
         return merge(snapshots);
     }
 
-    public static synchronized Snapshots merge(final List<Snapshots> scannedSnapshotDirs) {
+    public static Snapshots merge(final List<Snapshots> scannedSnapshotDirs) {
         Multimap<String, Snapshot> snapshotsMap = ArrayListMultimap.create();
 
         scannedSnapshotDirs.stream()
@@ -751,32 +774,108 @@ public class Snapshots implements Cloneable {
         return Snapshots.of(snapshots);
     }
 
-    public static synchronized Snapshots parse(final Path cassandraDir, final String snapshot) throws Exception {
-        if (Snapshots.hashSpec == null) {
-            Snapshots.hashSpec = new HashSpec();
-        }
+    public static Snapshots parse(final Path cassandraDir, final String snapshot) throws Exception {
+        return parse(cassandraDir, snapshot, defaultHashSpec());
+    }
 
+    public static Snapshots parse(final Path cassandraDir, final String snapshot, final HashSpec hashSpec) throws Exception {
         final Snapshots snapshots = new Snapshots();
-        final SnapshotLister lister = new SnapshotLister();
-        Files.walkFileTree(cassandraDir, lister);
 
-        final Map<String, List<Path>> snapshotPaths = lister.getSnapshotPaths()
-                                                            .entrySet()
-                                                            .stream()
-                                                            .filter(entry -> snapshot == null || (entry.getKey().equals(snapshot)))
-                                                            .collect(Collectors.toMap(Entry::getKey, Entry::getValue));
+        final Map<String, List<Path>> snapshotPaths = findSnapshotPaths(cassandraDir, snapshot).stream()
+                                                                                              .collect(groupingBy(p -> p.getFileName().toString()));
 
         for (final Entry<String, List<Path>> paths : snapshotPaths.entrySet()) {
-            snapshots.snapshots.put(paths.getKey(), Snapshot.parse(paths.getKey(), paths.getValue()));
+            snapshots.snapshots.put(paths.getKey(), inParsingPool(() -> Snapshot.parse(paths.getKey(), paths.getValue(), hashSpec)));
         }
 
         return snapshots;
     }
 
-    public static synchronized Snapshots parse(final Path cassandraDir) throws Exception {
+    public static Snapshots parse(final Path cassandraDir) throws Exception {
         return Snapshots.parse(cassandraDir, null);
     }
 
+    private static HashSpec defaultHashSpec() {
+        final HashSpec spec = Snapshots.hashSpec;
+        return spec == null ? new HashSpec() : spec;
+    }
+
+    /**
+     * Finds directories of snapshots in a data directory. Only keyspace, table and snapshots directories are listed,
+     * live SSTables of tables are never visited. If no snapshot is found there, e.g. a given directory does not have
+     * keyspaces right in it, whole directory is walked by {@link SnapshotLister} as it was done before, so snapshots
+     * of a layout of any depth are still found.
+     *
+     * @param cassandraDir data directory with keyspaces in it
+     * @param snapshot     name of snapshot to find, if null, all snapshots are found
+     * @return paths to snapshot directories of all tables, in the form of "keyspace/table/snapshots/snapshot"
+     * in a data directory of standard layout
+     */
+    public static List<Path> findSnapshotPaths(final Path cassandraDir, final String snapshot) throws Exception {
+        final List<Path> snapshotPaths = findSnapshotPathsOfTables(cassandraDir, snapshot);
+
+        if (!snapshotPaths.isEmpty() || !Files.isDirectory(cassandraDir)) {
+            return snapshotPaths;
+        }
+
+        logger.debug("No snapshot found in tables of keyspaces of {}, walking whole directory", cassandraDir);
+
+        final SnapshotLister lister = new SnapshotLister();
+        Files.walkFileTree(cassandraDir, lister);
+
+        return lister.getSnapshotPaths().entrySet().stream()
+                     .filter(entry -> snapshot == null || entry.getKey().equals(snapshot))
+                     .flatMap(entry -> entry.getValue().stream())
+                     .collect(toList());
+    }
+
+    private static List<Path> findSnapshotPathsOfTables(final Path cassandraDir, final String snapshot) throws Exception {
+        return inParsingPool(() -> listDirectories(cassandraDir).parallelStream()
+                                                                .flatMap(keyspaceDir -> listDirectories(keyspaceDir).stream())
+                                                                .flatMap(tableDir -> {
+                                                                    final Path snapshotsDir = tableDir.resolve("snapshots");
+
+                                                                    if (snapshot != null) {
+                                                                        final Path snapshotDir = snapshotsDir.resolve(snapshot);
+                                                                        return Files.isDirectory(snapshotDir) ? Stream.of(snapshotDir) : Stream.empty();
+                                                                    }
+
+                                                                    return listDirectories(snapshotsDir).stream().filter(dir -> {
+                                                                        final String name = dir.getFileName().toString();
+                                                                        return !name.startsWith("truncated-") && !name.startsWith("dropped-");
+                                                                    });
+                                                                })
+                                                                .collect(toList()));
+    }
+
+    /**
+     * @return directories in given directory, empty list if it does not exist (e.g. a table was dropped in the meanwhile)
+     */
+    private static List<Path> listDirectories(final Path dir) {
+        try (final Stream<Path> paths = Files.list(dir)) {
+            return paths.filter(Files::isDirectory).collect(toList());
+        } catch (final NoSuchFileException | NotDirectoryException ex) {
+            return Collections.emptyList();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Runs parallel streams of snapshot parsing in a pool of its own, its parallelism is set by
+     * "esop.snapshots.parsing.parallelism", it defaults to number of processors.
+     */
+    private static <T> T inParsingPool(final Callable<T> task) throws Exception {
+        try {
+            return PARSING_POOL.submit(task).get();
+        } catch (final ExecutionException ex) {
+            if (ex.getCause() instanceof Exception) {
+                throw (Exception) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
     public static boolean snapshotContainsTimestamp(String snapshotTag) {
         // most probably it is of form "snapshot-uuid-timestamp"
         if (snapshotTag.contains("-") && !snapshotTag.startsWith("-") && !snapshotTag.endsWith("-")) {
@@ -791,6 +890,10 @@ public class Snapshots implements Cloneable {
         return false;
     }
 
+    /**
+     * Walks whole directory tree to find directories of snapshots, in any depth. It is a fallback of
+     * {@link #findSnapshotPaths(Path, String)} for directories which do not have the standard layout.
+     */
     public static class SnapshotLister extends SimpleFileVisitor<Path> {
 
         private final List<Path> snapshotPaths = new ArrayList<>();
@@ -813,15 +916,11 @@ public class Snapshots implements Cloneable {
         @Override
         public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException {
             if (dir.getParent() != null && dir.getParent().getFileName() != null && dir.getParent().getFileName().toString().equals("snapshots")) {
-                if (!dir.getFileName().toString().startsWith("truncated-")) {
-                    if (!dir.getFileName().toString().startsWith("dropped-")) {
-                        snapshotPaths.add(dir);
-                    } else {
-                        return FileVisitResult.SKIP_SUBTREE;
-                    }
-                } else {
+                if (dir.getFileName().toString().startsWith("truncated-") || dir.getFileName().toString().startsWith("dropped-")) {
                     return FileVisitResult.SKIP_SUBTREE;
                 }
+
+                snapshotPaths.add(dir);
             }
 
             return FileVisitResult.CONTINUE;
@@ -5,6 +5,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 
+import com.instaclustr.esop.impl.Manifest.AllManifestsReport;
 import com.instaclustr.esop.impl.Manifest.ManifestReporter.ManifestReport;
 import com.instaclustr.esop.impl.remove.RemoveBackupRequest;
 import com.instaclustr.esop.local.LocalFileRestorer;
@@ -38,6 +39,13 @@ public abstract class StorageInteractor implements AutoCloseable {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Reports all manifests without holding them all in memory.
+     */
+    public AllManifestsReport reportManifests() throws Exception {
+        throw new UnsupportedOperationException();
+    }
+
     public void deleteNodeAwareKey(final Path objectKey) throws Exception {
         delete(objectKey, true);
     }
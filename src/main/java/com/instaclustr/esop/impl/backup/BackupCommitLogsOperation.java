@@ -4,7 +4,6 @@ import java.net.InetAddress;
 import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.LinkedList;
 import java.util.Map;
@@ -16,12 +15,17 @@ import java.util.regex.Pattern;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonProperty.Access;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import com.instaclustr.esop.guice.BackuperFactory;
 import com.instaclustr.esop.guice.BucketServiceFactory;
 import com.instaclustr.esop.impl.AbstractTracker.Session;
+import com.instaclustr.esop.impl.BandwidthGovernor.GovernedOperation;
+import com.instaclustr.esop.impl.BandwidthGovernor.Throughput;
 import com.instaclustr.esop.impl.BucketService;
+import com.instaclustr.esop.impl.CommitLogLayout;
 import com.instaclustr.esop.impl.ManifestEntry;
 import com.instaclustr.esop.impl.StorageLocation;
 import com.instaclustr.esop.impl.backup.UploadTracker.UploadUnit;
@@ -29,15 +33,15 @@ import com.instaclustr.esop.impl.interaction.CassandraMyEndpoint;
 import com.instaclustr.esop.topology.CassandraClusterName;
 import com.instaclustr.esop.topology.CassandraEndpointDC;
 import com.instaclustr.esop.topology.CassandraEndpoints;
+import com.instaclustr.measure.DataRate;
 import com.instaclustr.operations.Operation;
 import jmx.org.apache.cassandra.service.CassandraJMXService;
 
 import static com.instaclustr.esop.impl.ManifestEntry.Type.COMMIT_LOG;
 
-public class BackupCommitLogsOperation extends Operation<BackupCommitLogsOperationRequest> {
+public class BackupCommitLogsOperation extends Operation<BackupCommitLogsOperationRequest> implements GovernedOperation {
 
     private static final Logger logger = LoggerFactory.getLogger(BackupCommitLogsOperation.class);
-    private static final Path CASSANDRA_COMMITLOG = Paths.get("commitlog");
 
     private final Map<String, BackuperFactory> backuperFactoryMap;
     private final Map<String, BucketServiceFactory> bucketServiceMap;
@@ -57,6 +61,18 @@ public class BackupCommitLogsOperation extends Operation<BackupCommitLogsOperati
         this.cassandraJMXService = cassandraJMXService;
     }
 
+    @Override
+    public void updateBandwidth(final DataRate bandwidth) {
+        request.bandwidth = bandwidth;
+        request.uploadGovernor.setRate(bandwidth);
+    }
+
+    @Override
+    @JsonProperty(value = "throughput", access = Access.READ_ONLY)
+    public Throughput getThroughput() {
+        return request.uploadGovernor.getThroughput();
+    }
+
     @Override
     protected void run0() throws Exception {
 
@@ -82,7 +98,7 @@ public class BackupCommitLogsOperation extends Operation<BackupCommitLogsOperati
                 // when using File.lastModified
                 long commitLogLastModified = Files.getLastModifiedTime(commitLog.toFile().toPath()).toMillis();
 
-                final Path bucketKey = CASSANDRA_COMMITLOG.resolve(commitLog.getFileName().toString() + "." + commitLogLastModified);
+                final Path bucketKey = CommitLogLayout.objectKey(commitLog.getFileName().toString(), commitLogLastModified);
 
                 manifestEntries.add(new ManifestEntry(bucketKey, commitLog, COMMIT_LOG, null, request.kmsKeyId));
             }
@@ -95,6 +111,7 @@ public class BackupCommitLogsOperation extends Operation<BackupCommitLogsOperati
                 uploadSession = uploadTracker.submit(backuper, this, manifestEntries, null, this.request.concurrentConnections);
                 uploadSession.waitUntilConsideredFinished();
                 uploadTracker.cancelIfNecessary(uploadSession);
+                logger.info("Upload throughput: {}", request.uploadGovernor.getThroughput());
             } finally {
                 uploadTracker.removeSession(uploadSession);
             }
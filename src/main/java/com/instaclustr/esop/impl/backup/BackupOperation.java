@@ -10,17 +10,21 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonProperty.Access;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import com.instaclustr.esop.guice.StorageProviders;
+import com.instaclustr.esop.impl.BandwidthGovernor.GovernedOperation;
+import com.instaclustr.esop.impl.BandwidthGovernor.Throughput;
 import com.instaclustr.esop.impl.DatabaseEntities;
 import com.instaclustr.esop.impl.DatabaseEntities.DatabaseEntitiesDeserializer;
 import com.instaclustr.esop.impl.DatabaseEntities.DatabaseEntitiesSerializer;
 import com.instaclustr.esop.impl.ListPathSerializer;
 import com.instaclustr.esop.impl.ProxySettings;
 import com.instaclustr.esop.impl.StorageLocation;
+import com.instaclustr.esop.impl.hash.HashCache;
 import com.instaclustr.esop.impl.retry.RetrySpec;
 import com.instaclustr.jackson.PathDeserializer;
 import com.instaclustr.measure.DataRate;
@@ -30,7 +34,7 @@ import com.instaclustr.operations.OperationCoordinator;
 import com.instaclustr.operations.OperationFailureException;
 import software.amazon.awssdk.services.s3.model.MetadataDirective;
 
-public class BackupOperation extends Operation<BackupOperationRequest> implements Cloneable {
+public class BackupOperation extends Operation<BackupOperationRequest> implements Cloneable, GovernedOperation {
 
     private final Set<String> storageProviders;
     private final OperationCoordinator<BackupOperationRequest> coordinator;
@@ -91,7 +95,9 @@ public class BackupOperation extends Operation<BackupOperationRequest> implement
                             @JsonSerialize(using = ListPathSerializer.class)
                             @JsonDeserialize(contentUsing = PathDeserializer.class)
                             @JsonProperty("dataDirs") final List<Path> dataDirs,
-                            @JsonProperty("kmsKeyId") final String kmsKeyId) {
+                            @JsonProperty("kmsKeyId") final String kmsKeyId,
+                            @JsonProperty("compressManifest") final boolean compressManifest,
+                            @JsonProperty("maxManifestChain") final int maxManifestChain) {
         super(type, id, creationTime, state, errors, progress, startTime, new BackupOperationRequest(type,
                                                                                                      storageLocation,
                                                                                                      duration,
@@ -113,6 +119,8 @@ public class BackupOperation extends Operation<BackupOperationRequest> implement
                                                                                                      skipRefreshing,
                                                                                                      dataDirs,
                                                                                                      kmsKeyId));
+        this.request.compressManifest = compressManifest;
+        this.request.maxManifestChain = maxManifestChain;
         coordinator = null;
         storageProviders = null;
     }
@@ -122,11 +130,27 @@ public class BackupOperation extends Operation<BackupOperationRequest> implement
         return super.clone();
     }
 
+    @Override
+    public void updateBandwidth(final DataRate bandwidth) {
+        request.bandwidth = bandwidth;
+        request.uploadGovernor.setRate(bandwidth);
+    }
+
+    @Override
+    @JsonProperty(value = "throughput", access = Access.READ_ONLY)
+    public Throughput getThroughput() {
+        return request.uploadGovernor.getThroughput();
+    }
+
     @Override
     protected void run0() throws Exception {
         assert coordinator != null;
         assert storageProviders != null;
         request.validate(storageProviders);
-        coordinator.coordinate(this);
+        try {
+            coordinator.coordinate(this);
+        } finally {
+            HashCache.getInstance().persist();
+        }
     }
 }
@@ -72,6 +72,19 @@ public class BackupOperationRequest extends BaseBackupOperationRequest {
             + "implicitly set to true if a request is global - coordinator node will upload this file every time.")
     public boolean uploadClusterTopology;
 
+    @JsonProperty("compressManifest")
+    @Option(names = "--compress-manifest",
+        description = "If set, a manifest is uploaded compressed by gzip, defaults to false. Compressed manifests are recognised "
+            + "by their content, their names do not change, so they are read by listing, removal and restore just as plain ones.")
+    public boolean compressManifest;
+
+    @JsonProperty("maxManifestChain")
+    @Option(names = "--max-manifest-chain",
+        description = "If set to a positive number, a manifest records only files added and removed since the latest manifest of a node "
+            + "and refers to that one as to its parent. After this number of such manifests in a row, a full manifest is uploaded again. "
+            + "Defaults to 0, every manifest is full.")
+    public int maxManifestChain;
+
     public BackupOperationRequest() {
         // for picocli
     }
@@ -142,6 +155,8 @@ public class BackupOperationRequest extends BaseBackupOperationRequest {
             .add("insecure", insecure)
             .add("schemaVersion", schemaVersion)
             .add("uploadClusterTopology", uploadClusterTopology)
+            .add("compressManifest", compressManifest)
+            .add("maxManifestChain", maxManifestChain)
             .add("createMissingBucket", createMissingBucket)
             .add("skipBucketVerification", skipBucketVerification)
             .add("proxySettings", proxySettings)
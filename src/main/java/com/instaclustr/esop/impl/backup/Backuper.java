@@ -1,6 +1,8 @@
 package com.instaclustr.esop.impl.backup;
 
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
 
 import com.instaclustr.esop.impl.ManifestEntry;
 import com.instaclustr.esop.impl.RemoteObjectReference;
@@ -24,13 +26,24 @@ public abstract class Backuper extends StorageInteractor {
         UPLOAD_REQUIRED
     }
 
+    /**
+     * @return KMS key files are encrypted with upon upload, empty if they are not encrypted
+     */
+    public Optional<String> getKmsKeyId() {
+        return Optional.empty();
+    }
+
     public abstract FreshenResult freshenRemoteObject(ManifestEntry manifestEntry, final RemoteObjectReference object) throws Exception;
 
     public abstract void uploadFile(final ManifestEntry manifestEntry,
                                     final InputStream localFileStream,
                                     final RemoteObjectReference objectReference) throws Exception;
 
-    public abstract void uploadText(final String text, final RemoteObjectReference objectReference) throws Exception;
+    public void uploadText(final String text, final RemoteObjectReference objectReference) throws Exception {
+        uploadBytes(text.getBytes(StandardCharsets.UTF_8), objectReference);
+    }
+
+    public abstract void uploadBytes(final byte[] bytes, final RemoteObjectReference objectReference) throws Exception;
 
     public void uploadEncryptedFile(final ManifestEntry manifestEntry,
                                     final InputStream localFileStream,
@@ -3,10 +3,12 @@ package com.instaclustr.esop.impl.backup;
 import java.nio.file.Path;
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.instaclustr.esop.impl.AbstractOperationRequest;
+import com.instaclustr.esop.impl.BandwidthGovernor;
 import com.instaclustr.esop.impl.ListPathSerializer;
 import com.instaclustr.esop.impl.ProxySettings;
 import com.instaclustr.esop.impl.StorageLocation;
@@ -37,10 +39,14 @@ public class BaseBackupOperationRequest extends AbstractOperationRequest {
     public Time duration;
 
     @Option(names = {"-b", "--bandwidth"},
-        description = "Maximum upload throughput.",
+        description = "Maximum upload throughput of all concurrent uploads together.",
         converter = DataRateMeasureTypeConverter.class)
     public DataRate bandwidth;
 
+    // shared by all uploads of an operation
+    @JsonIgnore
+    public final BandwidthGovernor uploadGovernor = BandwidthGovernor.forUploads();
+
     @Option(names = {"--create-missing-bucket"},
         description = "Automatically creates a bucket if it does not exist. If a bucket does not exist, backup operation will fail.")
     public boolean createMissingBucket;
@@ -3,14 +3,13 @@ package com.instaclustr.esop.impl.backup;
 import java.io.BufferedInputStream;
 import java.io.FileInputStream;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
 import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.function.Function;
 
 import com.google.common.util.concurrent.ListeningExecutorService;
-import com.google.common.util.concurrent.RateLimiter;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,9 +22,12 @@ import com.instaclustr.esop.impl.RemoteObjectReference;
 import com.instaclustr.esop.impl.backup.BackupModules.UploadingFinisher;
 import com.instaclustr.esop.impl.backup.UploadTracker.UploadSession;
 import com.instaclustr.esop.impl.backup.UploadTracker.UploadUnit;
+import com.instaclustr.esop.impl.hash.HashCache;
+import com.instaclustr.esop.impl.hash.HashServiceImpl;
 import com.instaclustr.esop.impl.hash.HashSpec;
+import com.instaclustr.esop.impl.hash.HashSpec.HashAlgorithm;
+import com.instaclustr.esop.impl.hash.HashingInputStream;
 import com.instaclustr.esop.impl.retry.Retrier.RetriableException;
-import com.instaclustr.io.RateLimitedInputStream;
 import com.instaclustr.measure.DataRate;
 import com.instaclustr.measure.DataRate.DataRateUnit;
 import com.instaclustr.measure.DataSize;
@@ -34,11 +36,11 @@ import com.instaclustr.operations.OperationsService;
 import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
 import software.amazon.awssdk.services.s3.model.S3Exception;
 
+import static com.instaclustr.esop.impl.ManifestEntry.Type.FILE;
 import static com.instaclustr.esop.impl.ManifestEntry.Type.MANIFEST_FILE;
 import static com.instaclustr.esop.impl.backup.Backuper.FreshenResult.FRESHENED;
 import static com.instaclustr.esop.impl.retry.RetrierFactory.getRetrier;
 import static java.lang.String.format;
-import static java.util.function.Function.identity;
 
 public class UploadTracker extends AbstractTracker<UploadUnit, UploadSession, Backuper, BaseBackupOperationRequest> {
 
@@ -70,7 +72,7 @@ public class UploadTracker extends AbstractTracker<UploadUnit, UploadSession, Ba
                                       final String snapshotTag,
                                       final int concurrentConnections) {
         final long filesSizeSum = getFilesSizeSum(entries);
-        computeBPS(backuper.request, filesSizeSum, concurrentConnections);
+        computeBPS(backuper.request, filesSizeSum);
         return super.submit(backuper,
                             operation,
                             entries,
@@ -117,6 +119,14 @@ public class UploadTracker extends AbstractTracker<UploadUnit, UploadSession, Ba
 
                 final RemoteObjectReference ref = getRemoteObjectReference(manifestEntry.objectKey);
 
+                // a file hashed by some previous backup does not need to be hashed again
+                final HashCache hashCache = HashCache.getInstance();
+                final String hashCacheKey = isHashPending() ? hashCache.key(manifestEntry.localFile, hashSpec.algorithm) : null;
+
+                if (hashCacheKey != null) {
+                    manifestEntry.hash = hashCache.get(hashCacheKey);
+                }
+
                 // try to refresh object / decide if it is required to upload it
                 Callable<Boolean> condition = () -> {
                     try {
@@ -131,6 +141,10 @@ public class UploadTracker extends AbstractTracker<UploadUnit, UploadSession, Ba
                                 snapshotTag != null ? "Snapshot " + snapshotTag + " - " : "",
                                 ref.canonicalPath);
 
+                    if (isHashPending()) {
+                        manifestEntry.hash = new HashServiceImpl(hashSpec).hash(manifestEntry);
+                    }
+
                     state = State.FINISHED;
                     return null;
                 }
@@ -138,7 +152,10 @@ public class UploadTracker extends AbstractTracker<UploadUnit, UploadSession, Ba
                 // do the upload
                 getRetrier(backuper.request.retry).submit(() -> {
                     try (final InputStream fileStream = new BufferedInputStream(new FileInputStream(manifestEntry.localFile.toFile()))) {
-                        final InputStream rateLimitedStream = getUploadingInputStreamFunction(backuper.request).apply(fileStream);
+                        // hash of a file is computed from the very same bytes which are uploaded
+                        final HashingInputStream hashingStream = isHashPending() ? new HashingInputStream(fileStream, hashSpec) : null;
+                        final InputStream rateLimitedStream = backuper.request.uploadGovernor.throttle(hashingStream != null ? hashingStream : fileStream,
+                                                                                                     shouldCancel);
 
                         logger.debug(format("%suploading file '%s' (%s).",
                                             snapshotTag != null ? "Snapshot " + snapshotTag + " - " : "",
@@ -150,6 +167,15 @@ public class UploadTracker extends AbstractTracker<UploadUnit, UploadSession, Ba
                         } else {
                             backuper.uploadEncryptedFile(manifestEntry, rateLimitedStream, ref);
                         }
+
+                        if (hashingStream != null && isHashPending()) {
+                            if (hashingStream.getBytesRead() == Files.size(manifestEntry.localFile)) {
+                                manifestEntry.hash = hashingStream.getHash();
+                                hashCache.put(hashCacheKey, manifestEntry.localFile, manifestEntry.hash);
+                            } else {
+                                manifestEntry.hash = new HashServiceImpl(hashSpec).hash(manifestEntry);
+                            }
+                        }
                     } catch (final Exception ex) {
                         throw new RetriableException(String.format("Retrying upload of %s", manifestEntry.objectKey), ex);
                     }
@@ -179,11 +205,12 @@ public class UploadTracker extends AbstractTracker<UploadUnit, UploadSession, Ba
             return null;
         }
 
-        private Function<InputStream, InputStream> getUploadingInputStreamFunction(final BaseBackupOperationRequest request) {
-            return request.bandwidth == null ? identity() : inputStream -> {
-                final RateLimiter rateLimiter = RateLimiter.create(request.bandwidth.asBytesPerSecond().value);
-                return new RateLimitedInputStream(inputStream, rateLimiter, shouldCancel);
-            };
+        // hashes of SSTables are not computed upon snapshot parsing but here, so a file is read just once
+        private boolean isHashPending() {
+            return manifestEntry.type == FILE
+                && manifestEntry.hash == null
+                && hashSpec != null
+                && hashSpec.algorithm != HashAlgorithm.NONE;
         }
     }
 
@@ -191,7 +218,7 @@ public class UploadTracker extends AbstractTracker<UploadUnit, UploadSession, Ba
         return manifestEntries.stream().map(e -> e.size).reduce(0L, Long::sum);
     }
 
-    private void computeBPS(final BaseBackupOperationRequest request, final long filesSizeSum, final int concurrentConnections) {
+    private void computeBPS(final BaseBackupOperationRequest request, final long filesSizeSum) {
 
         long bpsFromBandwidth = 0;
         long bpsFromDuration = 0;
@@ -205,9 +232,10 @@ public class UploadTracker extends AbstractTracker<UploadUnit, UploadSession, Ba
         }
 
         if (bpsFromBandwidth != 0 || bpsFromDuration != 0) {
-            long bps = Math.max(bpsFromBandwidth, bpsFromDuration) / concurrentConnections;
+            // the rate is shared by all concurrent uploads, it is not divided among connections
+            long bps = Math.max(bpsFromBandwidth, bpsFromDuration);
             logger.info("BPS computed to be {}", bps);
-            request.bandwidth = new DataRate(bps, DataRateUnit.BPS);
+            request.uploadGovernor.setRate(new DataRate(bps, DataRateUnit.BPS));
         }
     }
 }
@@ -1,9 +1,12 @@
 package com.instaclustr.esop.impl.backup.coordination;
 
 import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -16,10 +19,12 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.instaclustr.cassandra.CassandraVersion;
 import com.instaclustr.esop.guice.BackuperFactory;
 import com.instaclustr.esop.guice.BucketServiceFactory;
+import com.instaclustr.esop.guice.RestorerFactory;
 import com.instaclustr.esop.impl.AbstractTracker.Session;
 import com.instaclustr.esop.impl.BucketService;
 import com.instaclustr.esop.impl.CassandraData;
 import com.instaclustr.esop.impl.Manifest;
+import com.instaclustr.esop.impl.ManifestCompression;
 import com.instaclustr.esop.impl.ManifestEntry;
 import com.instaclustr.esop.impl.Snapshots;
 import com.instaclustr.esop.impl.Snapshots.Snapshot;
@@ -31,7 +36,13 @@ import com.instaclustr.esop.impl.backup.UploadTracker;
 import com.instaclustr.esop.impl.backup.UploadTracker.UploadUnit;
 import com.instaclustr.esop.impl.backup.coordination.ClearSnapshotOperation.ClearSnapshotOperationRequest;
 import com.instaclustr.esop.impl.backup.coordination.TakeSnapshotOperation.TakeSnapshotOperationRequest;
+import com.instaclustr.esop.impl.hash.HashService;
+import com.instaclustr.esop.impl.hash.HashServiceImpl;
 import com.instaclustr.esop.impl.hash.HashSpec;
+import com.instaclustr.esop.impl.hash.HashSpec.HashAlgorithm;
+import com.instaclustr.esop.impl.list.ListOperationRequest;
+import com.instaclustr.esop.impl.restore.RestorationUtilities;
+import com.instaclustr.esop.impl.restore.Restorer;
 import com.instaclustr.esop.impl.interaction.CassandraSchemaVersion;
 import com.instaclustr.esop.impl.interaction.CassandraTokens;
 import com.instaclustr.esop.topology.CassandraClusterTopology;
@@ -43,6 +54,7 @@ import com.instaclustr.operations.Operation.Error;
 import com.instaclustr.operations.OperationCoordinator;
 import jmx.org.apache.cassandra.service.CassandraJMXService;
 
+import static com.instaclustr.esop.impl.ManifestEntry.Type.FILE;
 import static com.instaclustr.esop.impl.Manifest.getLocalManifestPath;
 import static com.instaclustr.esop.impl.Manifest.getManifestAsManifestEntry;
 import static java.lang.String.format;
@@ -54,6 +66,7 @@ public class BaseBackupOperationCoordinator extends OperationCoordinator<BackupO
     protected final CassandraJMXService cassandraJMXService;
     protected final Map<String, BackuperFactory> backuperFactoryMap;
     protected final Map<String, BucketServiceFactory> bucketServiceFactoryMap;
+    protected final Map<String, RestorerFactory> restorerFactoryMap;
     protected final ObjectMapper objectMapper;
     protected final UploadTracker uploadTracker;
     protected final Provider<CassandraVersion> cassandraVersionProvider;
@@ -63,12 +76,14 @@ public class BaseBackupOperationCoordinator extends OperationCoordinator<BackupO
                                           final Provider<CassandraVersion> cassandraVersionProvider,
                                           final Map<String, BackuperFactory> backuperFactoryMap,
                                           final Map<String, BucketServiceFactory> bucketServiceFactoryMap,
+                                          final Map<String, RestorerFactory> restorerFactoryMap,
                                           final ObjectMapper objectMapper,
                                           final UploadTracker uploadTracker,
                                           final HashSpec hashSpec) {
         this.cassandraJMXService = cassandraJMXService;
         this.backuperFactoryMap = backuperFactoryMap;
         this.bucketServiceFactoryMap = bucketServiceFactoryMap;
+        this.restorerFactoryMap = restorerFactoryMap;
         this.objectMapper = objectMapper;
         this.uploadTracker = uploadTracker;
         this.cassandraVersionProvider = cassandraVersionProvider;
@@ -128,8 +143,8 @@ public class BaseBackupOperationCoordinator extends OperationCoordinator<BackupO
                                       new TakeSnapshotOperationRequest(request.entities, request.snapshotTag),
                                       cassandraVersionProvider).run0();
 
-            Snapshots.hashSpec = hashSpec;
-            final Snapshots snapshots = Snapshots.parse(request.dataDirs, request.snapshotTag);
+            // hashes of SSTables are computed while they are uploaded so every file is read just once
+            final Snapshots snapshots = Snapshots.parse(request.dataDirs, request.snapshotTag, new HashSpec(HashAlgorithm.NONE));
             final Optional<Snapshot> snapshot = snapshots.get(request.snapshotTag);
 
             if (!snapshot.isPresent()) {
@@ -139,6 +154,7 @@ public class BaseBackupOperationCoordinator extends OperationCoordinator<BackupO
             final Manifest manifest = Manifest.from(snapshot.get());
 
             manifest.setSchemaVersion(request.schemaVersion);
+            manifest.setHashAlgorithm(hashSpec.algorithm.toString());
             manifest.setTokens(tokens);
 
             // manifest
@@ -149,10 +165,25 @@ public class BaseBackupOperationCoordinator extends OperationCoordinator<BackupO
 
                 backuper.init(manifest.getManifestEntries(true));
                 performUpload(manifest.getManifestEntries(false), backuper, operation, request);
+                hashRemainingEntries(manifest.getManifestEntries(false));
+
+                // files are freshened only if they are encrypted by the very key they would be uploaded with
+                manifest.recordKmsKeyId(backuper.getKmsKeyId().orElse(null));
 
                 manifest.setSize(manifest.getManifestEntries(true).stream().map(m -> m.size).reduce(Long::sum).orElse(0L));
-                backuper.uploadText(objectMapper.writeValueAsString(manifest),
-                                    backuper.objectKeyToNodeAwareRemoteReference(manifest.getManifest().objectKey));
+
+                if (request.maxManifestChain > 0) {
+                    manifest.setObjectKey(manifest.getManifest().objectKey.toString());
+                    toDeltaOfLatestManifest(manifest, request);
+                }
+
+                if (request.compressManifest) {
+                    backuper.uploadBytes(ManifestCompression.compress(manifest, objectMapper),
+                                         backuper.objectKeyToNodeAwareRemoteReference(manifest.getManifest().objectKey));
+                } else {
+                    backuper.uploadText(objectMapper.writeValueAsString(manifest),
+                                        backuper.objectKeyToNodeAwareRemoteReference(manifest.getManifest().objectKey));
+                }
 
                 if (operation.request.uploadClusterTopology) {
                     // here we will upload all topology because we do not know what restore might look like (what dc a restorer will restore against if any)
@@ -172,6 +203,63 @@ public class BaseBackupOperationCoordinator extends OperationCoordinator<BackupO
         }
     }
 
+    /**
+     * Turns a manifest into a delta of the latest manifest of a node, unless there is not any, it was not uploaded
+     * with chaining of manifests enabled, the chain is long enough already or files were encrypted or hashed
+     * differently. Size of a manifest stays as the one of a full manifest.
+     */
+    private void toDeltaOfLatestManifest(final Manifest manifest, final BackupOperationRequest request) throws Exception {
+        final ListOperationRequest listRequest = ListOperationRequest.getForRemoteListing(request);
+
+        try (final Restorer restorer = restorerFactoryMap.get(request.storageLocation.storageProvider).createListingInteractor(listRequest)) {
+            final String nodeManifests = request.storageLocation.nodePath() + "/manifests/";
+            final Manifest latest = Manifest.read(restorer.downloadManifest(Paths.get("manifests"), s -> s.contains(nodeManifests)), objectMapper);
+
+            if (latest.getObjectKey() == null) {
+                logger.info("Latest manifest of node {} can not be a parent, full manifest will be uploaded", request.storageLocation.nodePath());
+                return;
+            }
+
+            if (latest.getChainLength() >= request.maxManifestChain) {
+                logger.info("Chain of manifests of node {} has {} deltas, full manifest will be uploaded", request.storageLocation.nodePath(), latest.getChainLength());
+                return;
+            }
+
+            if (!Objects.equals(latest.getKmsKeyId(), manifest.getKmsKeyId()) || !Objects.equals(latest.getHashAlgorithm(), manifest.getHashAlgorithm())) {
+                logger.info("Latest manifest {} was encrypted or hashed differently, full manifest will be uploaded", latest.getObjectKey());
+                return;
+            }
+
+            manifest.toDelta(RestorationUtilities.materialize(latest, restorer, request.storageLocation, objectMapper));
+
+            logger.info("Manifest is a delta of {} with {} added and {} removed entries",
+                        manifest.getParent(),
+                        manifest.getManifestEntries(false).size(),
+                        manifest.getRemovedEntries().size());
+        } catch (final IllegalStateException | NoSuchFileException ex) {
+            // there is no manifest of a node yet or some parent of the latest one is gone
+            logger.warn("Latest manifest of node {} can not be a parent, full manifest will be uploaded: {}", request.storageLocation.nodePath(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Entries which were uploaded by a unit of another session are hashed by that unit on their own
+     * instance so these are hashed here, all others have their hashes computed upon upload already.
+     */
+    private void hashRemainingEntries(final List<ManifestEntry> manifestEntries) throws Exception {
+        if (hashSpec.algorithm == HashAlgorithm.NONE) {
+            return;
+        }
+
+        final HashService hashService = new HashServiceImpl(hashSpec);
+
+        for (final ManifestEntry entry : manifestEntries) {
+            if (entry.type == FILE && entry.hash == null) {
+                entry.hash = hashService.hash(entry);
+            }
+        }
+    }
+
     private void performUpload(List<ManifestEntry> manifestEntries,
                                Backuper backuper,
                                Operation<? extends BaseBackupOperationRequest> operation,
@@ -188,6 +276,8 @@ public class BaseBackupOperationCoordinator extends OperationCoordinator<BackupO
             uploadSession.waitUntilConsideredFinished();
             uploadTracker.cancelIfNecessary(uploadSession);
 
+            logger.info("Upload throughput: {}", operation.request.uploadGovernor.getThroughput());
+
             final List<UploadUnit> failedUnits = uploadSession.getFailedUnits();
 
             if (!failedUnits.isEmpty()) {
@@ -9,6 +9,7 @@ import com.google.inject.Inject;
 import com.instaclustr.cassandra.CassandraVersion;
 import com.instaclustr.esop.guice.BackuperFactory;
 import com.instaclustr.esop.guice.BucketServiceFactory;
+import com.instaclustr.esop.guice.RestorerFactory;
 import com.instaclustr.esop.impl.backup.BackupOperationRequest;
 import com.instaclustr.esop.impl.backup.UploadTracker;
 import com.instaclustr.esop.impl.hash.HashSpec;
@@ -24,6 +25,7 @@ public class DefaultBackupOperationCoordinator extends BaseBackupOperationCoordi
                                              final Provider<CassandraVersion> cassandraVersionProvider,
                                              final Map<String, BackuperFactory> backuperFactoryMap,
                                              final Map<String, BucketServiceFactory> bucketServiceFactoryMap,
+                                             final Map<String, RestorerFactory> restorerFactoryMap,
                                              final ObjectMapper objectMapper,
                                              final UploadTracker uploadTracker,
                                              final HashSpec hashSpec) {
@@ -31,6 +33,7 @@ public class DefaultBackupOperationCoordinator extends BaseBackupOperationCoordi
               cassandraVersionProvider,
               backuperFactoryMap,
               bucketServiceFactoryMap,
+              restorerFactoryMap,
               objectMapper,
               uploadTracker,
               hashSpec);
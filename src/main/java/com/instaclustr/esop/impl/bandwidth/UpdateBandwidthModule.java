@@ -0,0 +1,16 @@
+package com.instaclustr.esop.impl.bandwidth;
+
+import com.google.inject.AbstractModule;
+
+import static com.instaclustr.operations.OperationBindings.installOperationBindings;
+
+public class UpdateBandwidthModule extends AbstractModule {
+
+    @Override
+    protected void configure() {
+        installOperationBindings(binder(),
+                                 "update-bandwidth",
+                                 UpdateBandwidthOperationRequest.class,
+                                 UpdateBandwidthOperation.class);
+    }
+}
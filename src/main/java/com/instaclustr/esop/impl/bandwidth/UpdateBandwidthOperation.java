@@ -0,0 +1,73 @@
+package com.instaclustr.esop.impl.bandwidth;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.inject.assistedinject.Assisted;
+import com.google.inject.assistedinject.AssistedInject;
+import com.instaclustr.esop.impl.BandwidthGovernor.GovernedOperation;
+import com.instaclustr.measure.DataRate;
+import com.instaclustr.operations.Operation;
+import com.instaclustr.operations.OperationsService;
+
+import static java.lang.String.format;
+
+/**
+ * Changes the bandwidth of another operation while it is running, its transfers pick the new rate up immediately.
+ */
+public class UpdateBandwidthOperation extends Operation<UpdateBandwidthOperationRequest> {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpdateBandwidthOperation.class);
+
+    private final OperationsService operationsService;
+
+    @AssistedInject
+    public UpdateBandwidthOperation(final OperationsService operationsService,
+                                    @Assisted final UpdateBandwidthOperationRequest request) {
+        super(request);
+
+        this.operationsService = operationsService;
+    }
+
+    // this constructor is not meant to be instantiated manually
+    // and it fulfills the purpose of deserialisation from JSON string to an Operation object, currently just for testing purposes
+    @JsonCreator
+    private UpdateBandwidthOperation(@JsonProperty("type") final String type,
+                                     @JsonProperty("id") final UUID id,
+                                     @JsonProperty("creationTime") final Instant creationTime,
+                                     @JsonProperty("state") final State state,
+                                     @JsonProperty("errors") final List<Error> errors,
+                                     @JsonProperty("progress") final float progress,
+                                     @JsonProperty("startTime") final Instant startTime,
+                                     @JsonProperty("operationId") final UUID operationId,
+                                     @JsonProperty("bandwidth") final DataRate bandwidth) {
+        super(type, id, creationTime, state, errors, progress, startTime, new UpdateBandwidthOperationRequest(type, operationId, bandwidth));
+        this.operationsService = null;
+    }
+
+    @Override
+    protected void run0() throws Exception {
+        assert operationsService != null;
+
+        final Operation<?> operation = operationsService.operation(request.operationId)
+            .orElseThrow(() -> new IllegalStateException(format("There is no operation %s", request.operationId)));
+
+        if (!(operation instanceof GovernedOperation)) {
+            throw new IllegalStateException(format("Bandwidth of operation %s of type %s can not be changed", request.operationId, operation.type));
+        }
+
+        if (operation.state.isTerminalState()) {
+            throw new IllegalStateException(format("Operation %s is %s already", request.operationId, operation.state));
+        }
+
+        ((GovernedOperation) operation).updateBandwidth(request.bandwidth);
+
+        logger.info("Bandwidth of operation {} was changed to {}", request.operationId, request.bandwidth == null ? "unlimited" : request.bandwidth);
+    }
+}
@@ -0,0 +1,45 @@
+package com.instaclustr.esop.impl.bandwidth;
+
+import java.util.UUID;
+
+import com.google.common.base.MoreObjects;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.instaclustr.measure.DataRate;
+import com.instaclustr.operations.OperationRequest;
+
+/**
+ * Request to change the bandwidth of a running backup, restore or commit log operation, e.g.
+ * {"type": "update-bandwidth", "operationId": "...", "bandwidth": {"value": 50, "unit": "MBPS"}}.
+ * Bandwidth which is null lifts the limit.
+ */
+public class UpdateBandwidthOperationRequest extends OperationRequest {
+
+    @JsonProperty("operationId")
+    public UUID operationId;
+
+    @JsonProperty("bandwidth")
+    public DataRate bandwidth;
+
+    public UpdateBandwidthOperationRequest(final UUID operationId, final DataRate bandwidth) {
+        this("update-bandwidth", operationId, bandwidth);
+    }
+
+    @JsonCreator
+    public UpdateBandwidthOperationRequest(@JsonProperty("type") final String type,
+                                           @JsonProperty("operationId") final UUID operationId,
+                                           @JsonProperty("bandwidth") final DataRate bandwidth) {
+        this.operationId = operationId;
+        this.bandwidth = bandwidth;
+        this.type = type;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+            .add("operationId", operationId)
+            .add("bandwidth", bandwidth)
+            .toString();
+    }
+}
@@ -0,0 +1,333 @@
+package com.instaclustr.esop.impl.hash;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import com.google.common.base.MoreObjects;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instaclustr.esop.impl.AbstractOperationRequest;
+import com.instaclustr.esop.impl.hash.HashSpec.HashAlgorithm;
+
+/**
+ * Persistent cache of hashes of local files. SSTable components are immutable so once a file is hashed,
+ * its hash is valid for as long as the file exists. A file is identified by its device and inode (so hardlinks
+ * of the same SSTable in different snapshots share their entry), its size, its modification time and
+ * the hashing algorithm.
+ * <p>
+ * The cache is stored in a directory set by "esop.hash.cache.dir" (the cache dir of Esop, ".esop" in user's home dir,
+ * by default) and it might be turned off by setting "esop.hash.cache.enabled" to false. Entries of files which do not
+ * exist anymore are evicted upon persisting incrementally, at most "esop.hash.cache.eviction.batch" entries
+ * (ten thousand by default) checked the longest time ago are checked each time, so persisting does not touch every
+ * file ever hashed. The least recently used entries are evicted when there are more than
+ * "esop.hash.cache.max.entries" of them (one million by default).
+ */
+public class HashCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashCache.class);
+
+    private static final String CACHE_FILE_NAME = "hashes.json";
+
+    private static final long DEFAULT_MAX_ENTRIES = 1_000_000;
+
+    private static final int DEFAULT_EVICTION_BATCH = 10_000;
+
+    private static HashCache instance;
+
+    private final Path cacheFile;
+    private final long maxEntries;
+    private final int evictionBatch;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+
+    /**
+     * @param cacheDir directory to persist the cache to, if null, nothing is cached
+     * @param maxEntries maximal number of entries to persist
+     */
+    public HashCache(final Path cacheDir, final long maxEntries) {
+        this(cacheDir, maxEntries, DEFAULT_EVICTION_BATCH);
+    }
+
+    /**
+     * @param cacheDir directory to persist the cache to, if null, nothing is cached
+     * @param maxEntries maximal number of entries to persist
+     * @param evictionBatch maximal number of entries checked for existence of their files upon persisting
+     */
+    public HashCache(final Path cacheDir, final long maxEntries, final int evictionBatch) {
+        this.cacheFile = cacheDir == null ? null : cacheDir.resolve(CACHE_FILE_NAME);
+        this.maxEntries = maxEntries;
+        this.evictionBatch = evictionBatch;
+        load();
+    }
+
+    public static synchronized HashCache getInstance() {
+        if (instance == null) {
+            if (Boolean.parseBoolean(System.getProperty("esop.hash.cache.enabled", "true"))) {
+                final Path cacheDir = Paths.get(System.getProperty("esop.hash.cache.dir", AbstractOperationRequest.DEFAULT_CACHE_DIR.toString()));
+                final long maxEntries = Long.parseLong(System.getProperty("esop.hash.cache.max.entries", Long.toString(DEFAULT_MAX_ENTRIES)));
+                final int evictionBatch = Integer.parseInt(System.getProperty("esop.hash.cache.eviction.batch", Integer.toString(DEFAULT_EVICTION_BATCH)));
+
+                instance = new HashCache(cacheDir, maxEntries, evictionBatch);
+            } else {
+                instance = new HashCache(null, 0);
+            }
+        }
+
+        return instance;
+    }
+
+    public boolean isEnabled() {
+        return cacheFile != null;
+    }
+
+    /**
+     * @return key identifying the current content of a file for given algorithm, null if a file can not be identified
+     */
+    public String key(final Path file, final HashAlgorithm algorithm) {
+        if (!isEnabled() || file == null || algorithm == HashAlgorithm.NONE) {
+            return null;
+        }
+
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+
+            final Object fileKey = attributes.fileKey();
+
+            return String.format("%s:%s:%s:%s",
+                                 fileKey == null ? file.toRealPath() : fileKey,
+                                 attributes.size(),
+                                 attributes.lastModifiedTime().to(TimeUnit.MICROSECONDS),
+                                 algorithm.name());
+        } catch (final IOException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * @return cached hash for given key or null if it is not cached
+     */
+    public String get(final String key) {
+        if (key == null) {
+            return null;
+        }
+
+        final Entry entry = entries.get(key);
+
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+
+        hits.incrementAndGet();
+        entry.lastSeen = System.currentTimeMillis();
+
+        return entry.hash;
+    }
+
+    /**
+     * Caches a hash of a file computed while the file was identified by given key. If the file
+     * has changed in the meanwhile, its hash is not cached.
+     */
+    public void put(final String key, final Path file, final String hash) {
+        if (key == null || hash == null || !key.equals(key(file, algorithmOf(key)))) {
+            return;
+        }
+
+        entries.put(key, new Entry(hash, file.toAbsolutePath().toString(), System.currentTimeMillis()));
+    }
+
+    /**
+     * @return cached hash of a file or the one computed by given function which is cached afterwards
+     */
+    public String hash(final Path file, final HashAlgorithm algorithm, final Callable<String> hashFunction) throws Exception {
+        final String key = key(file, algorithm);
+        final String cached = get(key);
+
+        if (cached != null) {
+            return cached;
+        }
+
+        final String hash = hashFunction.call();
+
+        put(key, file, hash);
+
+        return hash;
+    }
+
+    public Stats getStats() {
+        return new Stats(hits.get(), misses.get(), entries.size());
+    }
+
+    /**
+     * Evicts entries of files which do not exist anymore, out of a batch of entries checked the longest time ago,
+     * and writes the cache to disk.
+     */
+    public synchronized void persist() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        final long now = System.currentTimeMillis();
+
+        entries.entrySet().stream()
+            .sorted(Comparator.comparingLong(e -> e.getValue().lastChecked))
+            .limit(evictionBatch)
+            .collect(Collectors.toList())
+            .forEach(e -> {
+                if (exists(Paths.get(e.getValue().path))) {
+                    e.getValue().lastChecked = now;
+                } else {
+                    entries.remove(e.getKey());
+                }
+            });
+
+        if (entries.size() > maxEntries) {
+            entries.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> e.getValue().lastSeen))
+                .limit(entries.size() - maxEntries)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList())
+                .forEach(entries::remove);
+        }
+
+        try {
+            Files.createDirectories(cacheFile.getParent());
+
+            final Path tempFile = cacheFile.resolveSibling(CACHE_FILE_NAME + ".tmp");
+
+            objectMapper.writeValue(tempFile.toFile(), new HashMap<>(entries));
+
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            logger.info("Hash cache persisted to {}: {}", cacheFile, getStats());
+        } catch (final Exception ex) {
+            logger.warn(String.format("Unable to persist hash cache to %s", cacheFile), ex);
+        }
+    }
+
+    private void load() {
+        if (!isEnabled() || !Files.exists(cacheFile)) {
+            return;
+        }
+
+        try {
+            final Map<String, Entry> loaded = objectMapper.readValue(cacheFile.toFile(), new TypeReference<Map<String, Entry>>() {});
+            entries.putAll(loaded);
+            logger.info("Loaded {} entries of hash cache from {}", loaded.size(), cacheFile);
+        } catch (final Exception ex) {
+            logger.warn(String.format("Unable to load hash cache from %s, it will be rebuilt", cacheFile), ex);
+        }
+    }
+
+    private static HashAlgorithm algorithmOf(final String key) {
+        return HashAlgorithm.valueOf(key.substring(key.lastIndexOf(':') + 1));
+    }
+
+    /**
+     * A file was hashed in a snapshot (or in incremental backups) which are removed after a backup is done, but
+     * the very same file (its hardlink) lives on in the table's directory until it is compacted away.
+     */
+    private static boolean exists(final Path path) {
+        if (Files.exists(path)) {
+            return true;
+        }
+
+        Path parent = path.getParent();
+
+        while (parent != null && parent.getFileName() != null) {
+            final String name = parent.getFileName().toString();
+
+            if ("snapshots".equals(name) || "backups".equals(name)) {
+                return parent.getParent() != null && Files.exists(parent.getParent().resolve(path.getFileName()));
+            }
+
+            parent = parent.getParent();
+        }
+
+        return false;
+    }
+
+    public static class Entry {
+
+        @JsonProperty("hash")
+        public final String hash;
+
+        @JsonProperty("path")
+        public final String path;
+
+        @JsonProperty("lastSeen")
+        public volatile long lastSeen;
+
+        // when existence of a file of an entry was checked last time, 0 if never
+        @JsonProperty("lastChecked")
+        public volatile long lastChecked;
+
+        public Entry(final String hash, final String path, final long lastSeen) {
+            this(hash, path, lastSeen, 0);
+        }
+
+        @JsonCreator
+        public Entry(@JsonProperty("hash") final String hash,
+                     @JsonProperty("path") final String path,
+                     @JsonProperty("lastSeen") final long lastSeen,
+                     @JsonProperty("lastChecked") final long lastChecked) {
+            this.hash = hash;
+            this.path = path;
+            this.lastSeen = lastSeen;
+            this.lastChecked = lastChecked;
+        }
+    }
+
+    public static class Stats {
+
+        public final long hits;
+        public final long misses;
+        public final long entries;
+
+        public Stats(final long hits, final long misses, final long entries) {
+            this.hits = hits;
+            this.misses = misses;
+            this.entries = entries;
+        }
+
+        public double getHitRate() {
+            final long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                .add("hits", hits)
+                .add("misses", misses)
+                .add("hitRate", String.format("%.2f%%", getHitRate() * 100))
+                .add("entries", entries)
+                .toString();
+        }
+    }
+}
@@ -19,10 +19,16 @@ public class HashServiceImpl implements HashService {
     private static final Logger logger = LoggerFactory.getLogger(HashServiceImpl.class);
 
     private final HashSpec hashSpec;
+    private final HashCache hashCache;
 
     @Inject
     public HashServiceImpl(final HashSpec hashSpec) {
+        this(hashSpec, HashCache.getInstance());
+    }
+
+    public HashServiceImpl(final HashSpec hashSpec, final HashCache hashCache) {
         this.hashSpec = hashSpec;
+        this.hashCache = hashCache;
     }
 
     @Override
@@ -48,7 +54,13 @@ public class HashServiceImpl implements HashService {
 
     @Override
     public void verify(final ManifestEntry entry) throws HashVerificationException {
-        verify(entry.localFile, entry.hash);
+        final HashSpec verificationSpec = hashSpec.forVerificationOf(entry.hashAlgorithm);
+
+        if (verificationSpec != hashSpec) {
+            new HashServiceImpl(verificationSpec, hashCache).verify(entry.localFile, entry.hash);
+        } else {
+            verify(entry.localFile, entry.hash);
+        }
     }
 
     @Override
@@ -89,9 +101,11 @@ public class HashServiceImpl implements HashService {
     {
         if (hashSpec.algorithm == HashSpec.HashAlgorithm.NONE)
             return null;
-        try (final InputStream is = new FileInputStream(file)) {
-            logger.info("Getting {} hash of {} ", hashSpec.algorithm.toString(), file.getAbsolutePath());
-            return hashSpec.algorithm.getHasher().getHash(is);
-        }
+        return hashCache.hash(file.toPath(), hashSpec.algorithm, () -> {
+            try (final InputStream is = new FileInputStream(file)) {
+                logger.info("Getting {} hash of {} ", hashSpec.algorithm.toString(), file.getAbsolutePath());
+                return hashSpec.algorithm.getHasher().getHash(is);
+            }
+        });
     }
 }
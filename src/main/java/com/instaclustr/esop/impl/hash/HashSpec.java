@@ -1,12 +1,18 @@
 package com.instaclustr.esop.impl.hash;
 
 import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.function.Supplier;
 import java.util.zip.CRC32;
 import java.util.zip.Checksum;
 
+import com.google.common.hash.Hashing;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,11 +32,24 @@ public class HashSpec {
     }
 
     @Option(names = {"--hash-algorithm"},
-        description = "Algorithm to use for hashing of SSTables and files to upload / download. For skipping, use NONE.",
+        description = "Algorithm to use for hashing of SSTables and files to upload / download, one of SHA-256, CRC, CRC32C, XXHASH64. "
+            + "CRC32C and XXHASH64 are much faster than SHA-256 but they are not cryptographic. For skipping, use NONE.",
         defaultValue = "SHA-256",
         converter = HashAlgorithmConverter.class)
     public HashAlgorithm algorithm;
 
+    /**
+     * @param hashedBy algorithm a hash to verify was computed by, null if not known
+     * @return spec to verify such hash with, hashing is still skipped if this spec is NONE
+     */
+    public HashSpec forVerificationOf(final HashAlgorithm hashedBy) {
+        if (hashedBy == null || hashedBy == algorithm || algorithm == HashAlgorithm.NONE) {
+            return this;
+        }
+
+        return new HashSpec(hashedBy);
+    }
+
     private static class HashAlgorithmConverter implements CommandLine.ITypeConverter<HashAlgorithm> {
 
         @Override
@@ -44,42 +63,105 @@ public class HashSpec {
         String getHash(InputStream is) throws Exception;
 
         String getHash(byte[] digest) throws Exception;
+
+        IncrementalHasher incremental() throws Exception;
+    }
+
+    /**
+     * Hasher fed by bytes as they are read so a file does not need to be read once more just to get its hash.
+     */
+    public interface IncrementalHasher {
+
+        void update(byte[] bytes, int offset, int length);
+
+        String getHash() throws Exception;
+    }
+
+    /**
+     * Size of buffers files are read through upon hashing, it is big enough to make
+     * the throughput bound by a hashing function rather than by the number of reads.
+     */
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[BUFFER_SIZE]);
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private interface BytesConsumer {
+        void update(byte[] bytes, int offset, int length);
+    }
+
+    private static void consume(final InputStream is, final BytesConsumer hasher) throws Exception {
+        final byte[] buffer = BUFFERS.get();
+
+        int bytesCount;
+
+        while ((bytesCount = is.read(buffer)) != -1) {
+            hasher.update(buffer, 0, bytesCount);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final char[] chars = new char[bytes.length * 2];
+
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX_DIGITS[(bytes[i] >> 4) & 0x0f];
+            chars[i * 2 + 1] = HEX_DIGITS[bytes[i] & 0x0f];
+        }
+
+        return new String(chars);
     }
 
     private static class SHAHasher implements Hasher {
         private final String algorithm;
+        // digests are reused by threads hashing whole streams at once
+        private final ThreadLocal<MessageDigest> digests;
+
         public SHAHasher(String algorithm) {
             this.algorithm = algorithm;
+            this.digests = ThreadLocal.withInitial(this::newDigest);
+        }
+
+        private MessageDigest newDigest() {
+            try {
+                return MessageDigest.getInstance(algorithm);
+            } catch (final NoSuchAlgorithmException ex) {
+                throw new IllegalStateException(format("Unable to get digest of algorithm %s", algorithm), ex);
+            }
         }
 
         @Override
         public String getHash(InputStream is) throws Exception
         {
-            final MessageDigest digest = MessageDigest.getInstance(algorithm);
-
-            // Create byte array to read data in chunks
-            byte[] byteArray = new byte[1024];
-            int bytesCount = 0;
+            final MessageDigest digest = digests.get();
 
-            // Read file data and update in message digest
-            while ((bytesCount = is.read(byteArray)) != -1) {
-                digest.update(byteArray, 0, bytesCount);
-            }
+            digest.reset();
 
-            byte[] bytes = digest.digest();
+            consume(is, digest::update);
 
-            return getHash(bytes);
+            return getHash(digest.digest());
         }
 
         @Override
         public String getHash(byte[] digest) throws Exception {
-            final StringBuilder sb = new StringBuilder();
+            return toHex(digest);
+        }
 
-            for (final byte aByte : digest) {
-                sb.append(Integer.toString((aByte & 0xff) + 0x100, 16).substring(1));
-            }
+        @Override
+        public IncrementalHasher incremental() throws Exception {
+            final MessageDigest digest = newDigest();
+
+            return new IncrementalHasher() {
+                @Override
+                public void update(final byte[] bytes, final int offset, final int length) {
+                    digest.update(bytes, offset, length);
+                }
 
-            return sb.toString();
+                @Override
+                public String getHash() throws Exception {
+                    return SHAHasher.this.getHash(digest.digest());
+                }
+            };
         }
     }
 
@@ -93,44 +175,184 @@ public class HashSpec {
         public String getHash(byte[] digest) throws Exception {
             return null;
         }
+
+        @Override
+        public IncrementalHasher incremental() {
+            return new IncrementalHasher() {
+                @Override
+                public void update(final byte[] bytes, final int offset, final int length) {
+                }
+
+                @Override
+                public String getHash() {
+                    return null;
+                }
+            };
+        }
     }
 
-    public static class CRCHasher implements Hasher {
+    /**
+     * Hasher of 32-bit checksums, the hash is the decimal value of a checksum.
+     */
+    public static class ChecksumHasher implements Hasher {
+
+        private final Supplier<Checksum> checksumSupplier;
+
+        public ChecksumHasher(final Supplier<Checksum> checksumSupplier) {
+            this.checksumSupplier = checksumSupplier;
+        }
+
         @Override
         public String getHash(InputStream is) throws Exception
         {
-            byte[] byteArray = new byte[1024];
-            int bytesCount = 0;
+            final IncrementalHasher hasher = incremental();
 
-            Checksum checksum = new CRC32();
+            consume(is, hasher::update);
 
-            while ((bytesCount = is.read(byteArray)) != -1) {
-                checksum.update(byteArray, 0, bytesCount);
+            return hasher.getHash();
+        }
+
+        @Override
+        public String getHash(byte[] digest) throws Exception {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public IncrementalHasher incremental() {
+            final Checksum checksum = checksumSupplier.get();
+
+            return new IncrementalHasher() {
+                @Override
+                public void update(final byte[] bytes, final int offset, final int length) {
+                    checksum.update(bytes, offset, length);
+                }
+
+                @Override
+                public String getHash() {
+                    return Long.toString(checksum.getValue());
+                }
+            };
+        }
+    }
+
+    public static class CRCHasher extends ChecksumHasher {
+        public CRCHasher() {
+            super(CRC32::new);
+        }
+    }
+
+    /**
+     * CRC32C is computed by {@code java.util.zip.CRC32C} which is hardware-accelerated on Java 9+,
+     * on Java 8, Guava's (software) implementation is used.
+     */
+    public static class CRC32CHasher extends ChecksumHasher {
+
+        private static final Supplier<Checksum> CRC32C_SUPPLIER = crc32cSupplier();
+
+        public CRC32CHasher() {
+            super(CRC32C_SUPPLIER);
+        }
+
+        private static Supplier<Checksum> crc32cSupplier() {
+            try {
+                final MethodHandle constructor = MethodHandles.publicLookup().findConstructor(Class.forName("java.util.zip.CRC32C"),
+                                                                                             MethodType.methodType(void.class));
+                return () -> {
+                    try {
+                        return (Checksum) constructor.invoke();
+                    } catch (final Throwable t) {
+                        throw new IllegalStateException("Unable to create CRC32C checksum", t);
+                    }
+                };
+            } catch (final ReflectiveOperationException ex) {
+                return GuavaCRC32C::new;
             }
+        }
+
+        /**
+         * Adapts Guava's CRC32C to {@link Checksum}, its value might be got just once.
+         */
+        public static class GuavaCRC32C implements Checksum {
+
+            private com.google.common.hash.Hasher hasher = Hashing.crc32c().newHasher();
 
-            return Long.toString(checksum.getValue());
+            @Override
+            public void update(final int b) {
+                hasher.putByte((byte) b);
+            }
+
+            @Override
+            public void update(final byte[] b, final int off, final int len) {
+                hasher.putBytes(b, off, len);
+            }
+
+            @Override
+            public long getValue() {
+                return hasher.hash().asInt() & 0xFFFFFFFFL;
+            }
+
+            @Override
+            public void reset() {
+                hasher = Hashing.crc32c().newHasher();
+            }
+        }
+    }
+
+    /**
+     * Hasher of 64-bit xxHash, the hash is the hexadecimal value of it.
+     */
+    public static class XXHash64Hasher implements Hasher {
+
+        @Override
+        public String getHash(InputStream is) throws Exception
+        {
+            final IncrementalHasher hasher = incremental();
+
+            consume(is, hasher::update);
+
+            return hasher.getHash();
         }
 
         @Override
         public String getHash(byte[] digest) throws Exception {
             throw new UnsupportedOperationException();
         }
+
+        @Override
+        public IncrementalHasher incremental() {
+            final XXHash64 xxHash64 = new XXHash64();
+
+            return new IncrementalHasher() {
+                @Override
+                public void update(final byte[] bytes, final int offset, final int length) {
+                    xxHash64.update(bytes, offset, length);
+                }
+
+                @Override
+                public String getHash() {
+                    return format("%016x", xxHash64.getValue());
+                }
+            };
+        }
     }
 
     public enum HashAlgorithm {
-        SHA_256("SHA-256", () -> new SHAHasher("SHA-256")),
-        CRC("CRC", () -> new CRCHasher()),
-        NONE("NONE", () -> new NoOp());
+        SHA_256("SHA-256", new SHAHasher("SHA-256")),
+        CRC("CRC", new CRCHasher()),
+        CRC32C("CRC32C", new CRC32CHasher()),
+        XXHASH64("XXHASH64", new XXHash64Hasher()),
+        NONE("NONE", new NoOp());
 
         private static final Logger logger = LoggerFactory.getLogger(HashAlgorithm.class);
         public static final HashAlgorithm DEFAULT_ALGORITHM = HashAlgorithm.SHA_256;
 
         private final String name;
-        private final Supplier<Hasher> hasherSupplier;
+        // hashers are stateless, a state of a hash being computed is held by an incremental hasher
+        private final Hasher hasher;
 
-        HashAlgorithm(final String name, final Supplier<Hasher> hasherSupplier) {
+        HashAlgorithm(final String name, final Hasher hasher) {
             this.name = name;
-            this.hasherSupplier = hasherSupplier;
+            this.hasher = hasher;
         }
 
         public String toString() {
@@ -138,7 +360,7 @@ public class HashSpec {
         }
 
         public Hasher getHasher() {
-            return hasherSupplier.get();
+            return hasher;
         }
 
         public static HashAlgorithm parse(final String value) {
@@ -0,0 +1,62 @@
+package com.instaclustr.esop.impl.hash;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.instaclustr.esop.impl.hash.HashSpec.IncrementalHasher;
+
+/**
+ * Computes a hash of all bytes read from the underlying stream, e.g. while a file is being uploaded.
+ */
+public class HashingInputStream extends FilterInputStream {
+
+    private final IncrementalHasher hasher;
+    private long bytesRead;
+
+    public HashingInputStream(final InputStream in, final HashSpec hashSpec) throws Exception {
+        super(in);
+        this.hasher = hashSpec.algorithm.getHasher().incremental();
+    }
+
+    @Override
+    public int read() throws IOException {
+        final int b = super.read();
+        if (b != -1) {
+            hasher.update(new byte[]{(byte) b}, 0, 1);
+            bytesRead++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        final int read = super.read(b, off, len);
+        if (read > 0) {
+            hasher.update(b, off, read);
+            bytesRead += read;
+        }
+        return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+        throw new IOException("skipping is not supported as skipped bytes would not be hashed");
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * @return hash of all bytes read so far
+     */
+    public String getHash() throws Exception {
+        return hasher.getHash();
+    }
+}
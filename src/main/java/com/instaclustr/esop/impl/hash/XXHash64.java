@@ -0,0 +1,178 @@
+package com.instaclustr.esop.impl.hash;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Streaming implementation of 64-bit xxHash (https://github.com/Cyan4973/xxHash), a non-cryptographic hash
+ * which is fast enough to be bound by disk throughput rather than by CPU.
+ */
+public class XXHash64 {
+
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+
+    private static final int STRIPE_SIZE = 32;
+
+    private final long seed;
+
+    private long v1;
+    private long v2;
+    private long v3;
+    private long v4;
+
+    private final byte[] buffer = new byte[STRIPE_SIZE];
+    private int bufferSize;
+    private long totalLength;
+
+    public XXHash64() {
+        this(0);
+    }
+
+    public XXHash64(final long seed) {
+        this.seed = seed;
+        reset();
+    }
+
+    public void reset() {
+        v1 = seed + PRIME64_1 + PRIME64_2;
+        v2 = seed + PRIME64_2;
+        v3 = seed;
+        v4 = seed - PRIME64_1;
+        bufferSize = 0;
+        totalLength = 0;
+    }
+
+    public void update(final byte[] bytes, final int offset, final int length) {
+        totalLength += length;
+
+        int position = offset;
+        final int end = offset + length;
+
+        // fill the remainder of the previous update first
+        if (bufferSize > 0) {
+            final int toCopy = Math.min(STRIPE_SIZE - bufferSize, length);
+            System.arraycopy(bytes, position, buffer, bufferSize, toCopy);
+            bufferSize += toCopy;
+            position += toCopy;
+
+            if (bufferSize < STRIPE_SIZE) {
+                return;
+            }
+
+            processStripe(buffer, 0);
+            bufferSize = 0;
+        }
+
+        if (position + STRIPE_SIZE <= end) {
+            // little-endian reads of a byte buffer are intrinsified, unlike assembling longs byte by byte
+            final ByteBuffer input = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+
+            long a1 = v1;
+            long a2 = v2;
+            long a3 = v3;
+            long a4 = v4;
+
+            while (position + STRIPE_SIZE <= end) {
+                a1 = round(a1, input.getLong(position));
+                a2 = round(a2, input.getLong(position + 8));
+                a3 = round(a3, input.getLong(position + 16));
+                a4 = round(a4, input.getLong(position + 24));
+                position += STRIPE_SIZE;
+            }
+
+            v1 = a1;
+            v2 = a2;
+            v3 = a3;
+            v4 = a4;
+        }
+
+        if (position < end) {
+            bufferSize = end - position;
+            System.arraycopy(bytes, position, buffer, 0, bufferSize);
+        }
+    }
+
+    public long getValue() {
+        long hash;
+
+        if (totalLength >= STRIPE_SIZE) {
+            hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            hash = mergeRound(hash, v1);
+            hash = mergeRound(hash, v2);
+            hash = mergeRound(hash, v3);
+            hash = mergeRound(hash, v4);
+        } else {
+            hash = seed + PRIME64_5;
+        }
+
+        hash += totalLength;
+
+        int position = 0;
+
+        while (position + 8 <= bufferSize) {
+            hash ^= round(0, getLong(buffer, position));
+            hash = Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+            position += 8;
+        }
+
+        if (position + 4 <= bufferSize) {
+            hash ^= (getInt(buffer, position) & 0xFFFFFFFFL) * PRIME64_1;
+            hash = Long.rotateLeft(hash, 23) * PRIME64_2 + PRIME64_3;
+            position += 4;
+        }
+
+        while (position < bufferSize) {
+            hash ^= (buffer[position] & 0xFFL) * PRIME64_5;
+            hash = Long.rotateLeft(hash, 11) * PRIME64_1;
+            position++;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+
+        return hash;
+    }
+
+    private void processStripe(final byte[] bytes, final int offset) {
+        v1 = round(v1, getLong(bytes, offset));
+        v2 = round(v2, getLong(bytes, offset + 8));
+        v3 = round(v3, getLong(bytes, offset + 16));
+        v4 = round(v4, getLong(bytes, offset + 24));
+    }
+
+    private static long round(long accumulator, final long input) {
+        accumulator += input * PRIME64_2;
+        accumulator = Long.rotateLeft(accumulator, 31);
+        return accumulator * PRIME64_1;
+    }
+
+    private static long mergeRound(long accumulator, final long value) {
+        accumulator ^= round(0, value);
+        return accumulator * PRIME64_1 + PRIME64_4;
+    }
+
+    private static long getLong(final byte[] bytes, final int offset) {
+        return (bytes[offset] & 0xFFL)
+            | (bytes[offset + 1] & 0xFFL) << 8
+            | (bytes[offset + 2] & 0xFFL) << 16
+            | (bytes[offset + 3] & 0xFFL) << 24
+            | (bytes[offset + 4] & 0xFFL) << 32
+            | (bytes[offset + 5] & 0xFFL) << 40
+            | (bytes[offset + 6] & 0xFFL) << 48
+            | (bytes[offset + 7] & 0xFFL) << 56;
+    }
+
+    private static int getInt(final byte[] bytes, final int offset) {
+        return (bytes[offset] & 0xFF)
+            | (bytes[offset + 1] & 0xFF) << 8
+            | (bytes[offset + 2] & 0xFF) << 16
+            | (bytes[offset + 3] & 0xFF) << 24;
+    }
+}
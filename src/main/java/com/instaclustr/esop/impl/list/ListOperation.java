@@ -147,7 +147,7 @@ public class ListOperation extends Operation<ListOperationRequest> {
                                                                                                 request.storageLocation),
                                                                              objectMapper));
 
-            final AllManifestsReport report = AllManifestsReport.report(interactor.listManifests());
+            final AllManifestsReport report = interactor.reportManifests();
             filterFromTimestamp(report, request.fromTimestamp);
             filterLastN(report, request.lastN);
             if (request.toRequest) {
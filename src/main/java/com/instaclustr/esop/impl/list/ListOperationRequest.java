@@ -1,7 +1,6 @@
 package com.instaclustr.esop.impl.list;
 
 import java.nio.file.Path;
-import java.nio.file.Paths;
 
 import com.google.common.base.MoreObjects;
 
@@ -9,6 +8,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.instaclustr.esop.impl.AbstractOperationRequest;
 import com.instaclustr.esop.impl.Manifest;
 import com.instaclustr.esop.impl.ProxySettings;
 import com.instaclustr.esop.impl.StorageLocation;
@@ -55,7 +55,7 @@ public class ListOperationRequest extends BaseRestoreOperationRequest {
     @Option(names = {"--cache-dir"}, description = "Directory where Esop caches downloaded manifests, defaults to a directory called '.esop' in user's home dir.")
     @JsonSerialize(using = PathSerializer.class)
     @JsonDeserialize(using = PathDeserializer.class)
-    public Path cacheDir = Paths.get(System.getProperty("user.home"), ".esop");
+    public Path cacheDir = DEFAULT_CACHE_DIR;
 
     public ListOperationRequest() {
         // for picocli
@@ -80,7 +80,7 @@ public class ListOperationRequest extends BaseRestoreOperationRequest {
                                 @JsonProperty("toRequest") final boolean toRequest,
                                 @JsonProperty("concurrentConnections") final Integer concurrentConnections,
                                 @JsonProperty("response") final Manifest.AllManifestsReport response) {
-        super(storageLocation, 1, insecure, skipBucketVerification, proxySettings, retry, null);
+        super(storageLocation, concurrentConnections, insecure, skipBucketVerification, proxySettings, retry, null);
         this.json = json;
         this.resolveNodes = resolveNodes;
         this.humanUnits = humanUnits;
@@ -89,7 +89,7 @@ public class ListOperationRequest extends BaseRestoreOperationRequest {
         this.fromTimestamp = fromTimestamp == null ? Long.MAX_VALUE : fromTimestamp;
         this.lastN = lastN == null ? 0 : lastN;
         this.skipDownload = skipDownload;
-        this.cacheDir = (cacheDir == null) ? Paths.get(System.getProperty("user.home"), ".esop") : cacheDir;
+        this.cacheDir = (cacheDir == null) ? DEFAULT_CACHE_DIR : cacheDir;
         this.response = response;
         this.toRequest = toRequest;
         this.type = type;
@@ -127,6 +127,32 @@ public class ListOperationRequest extends BaseRestoreOperationRequest {
                 null);
     }
 
+    /**
+     * @return request for listing of manifests in a bucket of given request, by its connection settings,
+     * which does not download manifests to any cache
+     */
+    public static ListOperationRequest getForRemoteListing(final AbstractOperationRequest request) {
+        return new ListOperationRequest(
+                "list",
+                request.storageLocation,
+                request.insecure,
+                request.skipBucketVerification,
+                request.proxySettings,
+                request.retry,
+                false,
+                false,
+                false,
+                null,
+                false,
+                null,
+                null,
+                true,
+                null,
+                false,
+                request.concurrentConnections,
+                null);
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
@@ -4,6 +4,7 @@ import java.nio.file.Path;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -187,12 +188,55 @@ public class RemoveBackupOperation extends Operation<RemoveBackupRequest> {
             manifestReports.addAll(allManifestsReport.filter(report -> report.unixtimestamp < cut));
         }
 
-        return manifestReports;
+        return withoutParentsOfRemainingBackups(allManifestsReport, manifestReports);
+    }
+
+    /**
+     * A backup which is a parent of delta manifests is removed only together with all its deltas, transitively,
+     * otherwise restoring of those would not be possible anymore. If any of them is not to be removed,
+     * the parent is not removed either.
+     *
+     * @param allManifestsReport report of all backups of a node
+     * @param backupsToDelete    backups chosen for removal by their names or ages
+     * @return backups which might be removed without breaking any chain of delta manifests
+     */
+    public static List<ManifestReport> withoutParentsOfRemainingBackups(final AllManifestsReport allManifestsReport,
+                                                                        final List<ManifestReport> backupsToDelete) {
+        final List<ManifestReport> toDelete = new ArrayList<>(backupsToDelete);
+
+        boolean changed = true;
+
+        while (changed) {
+            changed = false;
+
+            final Map<String, ManifestReport> remainingDeltas = new HashMap<>();
+
+            for (final ManifestReport report : allManifestsReport.reports) {
+                if (report.parent != null && !toDelete.contains(report)) {
+                    remainingDeltas.putIfAbsent(report.parent, report);
+                }
+            }
+
+            for (final ManifestReport report : new ArrayList<>(toDelete)) {
+                final ManifestReport delta = remainingDeltas.get(objectKey(report));
+                if (delta != null) {
+                    logger.warn("Backup {} will not be removed, backup {} which is not removed is its delta", report.name, delta.name);
+                    toDelete.remove(report);
+                    changed = true;
+                }
+            }
+        }
+
+        return toDelete;
+    }
+
+    private static String objectKey(final ManifestReport report) {
+        return report.manifest == null ? null : report.manifest.objectKey.toString();
     }
 
     private Optional<AllManifestsReport> getReport(final StorageInteractor storageInteractor) {
         try {
-            return Optional.of(AllManifestsReport.report(storageInteractor.listManifests()));
+            return Optional.of(storageInteractor.reportManifests());
         } catch (final Exception ex) {
             logger.error(String.format("Unable to perform listing against node %s - %s", storageInteractor.getStorageLocation(), ex.getMessage()), ex);
             this.addError(Error.from(ex));
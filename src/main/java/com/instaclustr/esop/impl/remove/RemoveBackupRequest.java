@@ -1,7 +1,6 @@
 package com.instaclustr.esop.impl.remove;
 
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
@@ -57,7 +56,7 @@ public class RemoveBackupRequest extends BaseRestoreOperationRequest {
     @Option(names = {"--cache-dir"}, description = "Directory where Esop caches downloaded manifests, defaults to a directory called '.esop' in user's home dir.")
     @JsonSerialize(using = PathSerializer.class)
     @JsonDeserialize(using = PathDeserializer.class)
-    public Path cacheDir = Paths.get(System.getProperty("user.home"), ".esop");
+    public Path cacheDir = DEFAULT_CACHE_DIR;
 
     public RemoveBackupRequest() {
         // for picocli
@@ -84,7 +83,7 @@ public class RemoveBackupRequest extends BaseRestoreOperationRequest {
         this.dry = dry;
         this.resolveNodes = resolveNodes;
         this.olderThan = olderThan == null ? Time.zeroTime() : olderThan;
-        this.cacheDir = (cacheDir == null) ? Paths.get(System.getProperty("user.home"), ".esop") : cacheDir;
+        this.cacheDir = (cacheDir == null) ? DEFAULT_CACHE_DIR : cacheDir;
         this.removeOldest = removeOldest;
         this.concurrentConnections = concurrentConnections;
         this.globalRequest = globalRequest;
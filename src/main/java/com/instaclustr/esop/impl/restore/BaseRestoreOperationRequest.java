@@ -1,12 +1,32 @@
 package com.instaclustr.esop.impl.restore;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.instaclustr.esop.impl.AbstractOperationRequest;
+import com.instaclustr.esop.impl.BandwidthGovernor;
 import com.instaclustr.esop.impl.ProxySettings;
 import com.instaclustr.esop.impl.StorageLocation;
 import com.instaclustr.esop.impl.retry.RetrySpec;
+import com.instaclustr.measure.DataRate;
+import com.instaclustr.picocli.typeconverter.DataRateMeasureTypeConverter;
+import picocli.CommandLine.Option;
 
 public class BaseRestoreOperationRequest extends AbstractOperationRequest {
 
+    @Option(names = {"--download-bandwidth"},
+        description = "Maximum download throughput of all concurrent downloads together.",
+        converter = DataRateMeasureTypeConverter.class)
+    @JsonProperty("downloadBandwidth")
+    public DataRate downloadBandwidth;
+
+    // shared by all downloads of an operation
+    @JsonIgnore
+    public final BandwidthGovernor downloadGovernor = BandwidthGovernor.forDownloads();
+
+    // journal of downloaded and verified files, if null, existing files are always verified again
+    @JsonIgnore
+    public RestoreJournal restoreJournal;
+
     public BaseRestoreOperationRequest() {
         // for picocli
     }
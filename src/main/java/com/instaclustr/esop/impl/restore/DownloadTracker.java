@@ -1,5 +1,6 @@
 package com.instaclustr.esop.impl.restore;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Collection;
@@ -16,9 +17,11 @@ import com.instaclustr.esop.impl.AbstractTracker;
 import com.instaclustr.esop.impl.ManifestEntry;
 import com.instaclustr.esop.impl.ManifestEntry.Type;
 import com.instaclustr.esop.impl.RemoteObjectReference;
+import com.instaclustr.esop.impl.hash.HashCache;
 import com.instaclustr.esop.impl.hash.HashService.HashVerificationException;
 import com.instaclustr.esop.impl.hash.HashServiceImpl;
 import com.instaclustr.esop.impl.hash.HashSpec;
+import com.instaclustr.esop.impl.hash.HashSpec.HashAlgorithm;
 import com.instaclustr.esop.impl.restore.DownloadTracker.DownloadSession;
 import com.instaclustr.esop.impl.restore.DownloadTracker.DownloadUnit;
 import com.instaclustr.esop.impl.restore.RestoreModules.DownloadingFinisher;
@@ -60,6 +63,10 @@ public class DownloadTracker extends AbstractTracker<DownloadUnit, DownloadSessi
                                         final Collection<ManifestEntry> entries,
                                         final String snapshotTag,
                                         final int concurrentConnections) {
+        if (restorer != null) {
+            // the rate is shared by all concurrent downloads, it is not divided among connections
+            restorer.request.downloadGovernor.setRate(restorer.request.downloadBandwidth);
+        }
         return super.submit(restorer,
                             operation,
                             entries,
@@ -101,12 +108,22 @@ public class DownloadTracker extends AbstractTracker<DownloadUnit, DownloadSessi
                 if (!Files.exists(localPath)) {
                     logger.info(String.format("Downloading file %s to %s.", remoteObjectReference.getObjectKey(), manifestEntry.localFile));
 
-                    restorer.downloadFile(localPath, manifestEntry, remoteObjectReference);
+                    final HashSpec verificationSpec = hashSpec.forVerificationOf(manifestEntry.hashAlgorithm);
+
+                    // hash upon downloading, from the bytes written to disk where possible so a file is not read again
+                    String downloadedHash = null;
+
+                    if (manifestEntry.type == Type.FILE && manifestEntry.hash != null && verificationSpec.algorithm != HashAlgorithm.NONE) {
+                        downloadedHash = restorer.downloadAndHashFile(localPath, manifestEntry, remoteObjectReference, verificationSpec);
+                    } else {
+                        restorer.downloadFile(localPath, manifestEntry, remoteObjectReference);
+                    }
 
-                    // hash upon downloading
                     try {
-                        if (manifestEntry.type == Type.FILE) {
-                            new HashServiceImpl(hashSpec).verify(localPath, manifestEntry.hash);
+                        if (downloadedHash != null) {
+                            verifyDownloadedHash(localPath, downloadedHash, verificationSpec);
+                        } else if (manifestEntry.type == Type.FILE) {
+                            new HashServiceImpl(verificationSpec).verify(localPath, manifestEntry.hash);
                         }
                     } catch (final HashVerificationException ex) {
                         // delete it if has is wrong so on the next try, it will be missing and we will download it again
@@ -114,16 +131,30 @@ public class DownloadTracker extends AbstractTracker<DownloadUnit, DownloadSessi
                         throw ex;
                     }
 
+                    recordVerified(localPath);
+
                     logger.info(String.format("Successfully downloaded file %s to %s.", remoteObjectReference.getObjectKey(), localPath));
 
                     state = FINISHED;
 
                     return null;
                 } else if (manifestEntry.hash != null) {
-                    logger.info(String.format("Skipping download of file %s to %s, file already exists locally.",
-                                              remoteObjectReference.getObjectKey(), manifestEntry.localFile));
-                    // if it exists, verify its hash to be sure it was not altered
-                    new HashServiceImpl(hashSpec).verify(localPath, manifestEntry.hash);
+                    final RestoreJournal journal = restorer.request.restoreJournal;
+                    final HashSpec verificationSpec = hashSpec.forVerificationOf(manifestEntry.hashAlgorithm);
+
+                    if (journal != null && journal.isVerified(manifestEntry, localPath)) {
+                        logger.info(String.format("Skipping download of file %s to %s, file already exists locally and it was verified before.",
+                                                  remoteObjectReference.getObjectKey(), manifestEntry.localFile));
+                        // the file will not be read again when it is verified before it is imported or hardlinked
+                        final HashCache hashCache = HashCache.getInstance();
+                        hashCache.put(hashCache.key(localPath, verificationSpec.algorithm), localPath, manifestEntry.hash);
+                    } else {
+                        logger.info(String.format("Skipping download of file %s to %s, file already exists locally.",
+                                                  remoteObjectReference.getObjectKey(), manifestEntry.localFile));
+                        // if it exists, verify its hash to be sure it was not altered
+                        new HashServiceImpl(verificationSpec).verify(localPath, manifestEntry.hash);
+                        recordVerified(localPath);
+                    }
                     state = FINISHED;
                 } else {
                     // if it exists and manifest does not have hash field, consider it to be finished without any check
@@ -137,5 +168,29 @@ public class DownloadTracker extends AbstractTracker<DownloadUnit, DownloadSessi
 
             return null;
         }
+
+        private void recordVerified(final Path localPath) throws IOException {
+            final RestoreJournal journal = restorer.request.restoreJournal;
+
+            if (journal != null && manifestEntry.type == Type.FILE && manifestEntry.hash != null) {
+                journal.record(manifestEntry, localPath);
+            }
+        }
+
+        /**
+         * Verifies a hash computed while a file was downloaded. The hash is cached so the file is not read again
+         * when it is verified before it is imported or hardlinked, even by a later restore phase.
+         */
+        private void verifyDownloadedHash(final Path localPath, final String downloadedHash, final HashSpec verificationSpec) throws HashVerificationException {
+            if (!downloadedHash.equals(manifestEntry.hash)) {
+                throw new HashVerificationException(String.format("hash of %s (%s) does not match with expected hash %s",
+                                                                  localPath,
+                                                                  downloadedHash,
+                                                                  manifestEntry.hash));
+            }
+
+            final HashCache hashCache = HashCache.getInstance();
+            hashCache.put(hashCache.key(localPath, verificationSpec.algorithm), localPath, downloadedHash);
+        }
     }
 }
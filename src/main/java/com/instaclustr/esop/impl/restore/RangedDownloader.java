@@ -0,0 +1,318 @@
+package com.instaclustr.esop.impl.restore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.instaclustr.esop.impl.restore.Restorer.DownloadDigest;
+import com.instaclustr.esop.impl.retry.Retrier.RetriableException;
+import com.instaclustr.esop.impl.retry.RetrySpec;
+import com.instaclustr.threading.Executors.FixedTasksExecutorSupplier;
+
+import static com.instaclustr.esop.impl.retry.RetrierFactory.getRetrier;
+
+/**
+ * Downloads a remote object as a number of byte ranges fetched concurrently, so a big file is not restored
+ * at the speed of a single connection. Ranges are written by positional writes into a preallocated temporary file
+ * which is moved to its final location once all ranges are downloaded, so a failed download never leaves
+ * a file which looks complete behind. A range which fails is retried on its own according to the retry spec
+ * of a request.
+ * <p>
+ * A range is "download.part.size" bytes long (64 MiB by default) and at most "download.max.parts.in.flight"
+ * ranges (4 by default) of one object are downloaded at the same time. Objects of at most one range are
+ * downloaded as a single stream.
+ * <p>
+ * If a download is given a digest, ranges are hashed in order of their offsets, each one as soon as it and all ranges
+ * before it are written, while the rest of ranges are still being downloaded. They are read back from the file which
+ * was just written so they are most likely in the page cache, and a file does not need to be read once more to be verified.
+ */
+public class RangedDownloader implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RangedDownloader.class);
+
+    private static final long DEFAULT_PART_SIZE = 64 * 1024 * 1024;
+
+    private static final int DEFAULT_MAX_PARTS_IN_FLIGHT = 4;
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(BUFFER_SIZE));
+
+    /**
+     * Opens a stream of given range of a remote object.
+     */
+    @FunctionalInterface
+    public interface RangeReader {
+
+        InputStream open(final long offset, final long length) throws Exception;
+    }
+
+    private final long partSize;
+    private final int maxPartsInFlight;
+    private final int concurrentConnections;
+    private final RetrySpec retrySpec;
+    private final Function<InputStream, InputStream> throttle;
+
+    private ListeningExecutorService executorService;
+
+    public RangedDownloader(final BaseRestoreOperationRequest request, final Function<InputStream, InputStream> throttle) {
+        this(getPartSize(),
+             Integer.parseInt(System.getProperty("download.max.parts.in.flight", Integer.toString(DEFAULT_MAX_PARTS_IN_FLIGHT))),
+             request.concurrentConnections == null ? 10 : request.concurrentConnections,
+             request.retry,
+             throttle);
+    }
+
+    public RangedDownloader(final long partSize,
+                            final int maxPartsInFlight,
+                            final int concurrentConnections,
+                            final RetrySpec retrySpec,
+                            final Function<InputStream, InputStream> throttle) {
+        if (partSize <= 0) {
+            throw new IllegalArgumentException("download.part.size has to be positive");
+        }
+
+        this.partSize = partSize;
+        this.maxPartsInFlight = Math.max(1, maxPartsInFlight);
+        this.concurrentConnections = Math.max(1, concurrentConnections);
+        this.retrySpec = retrySpec;
+        this.throttle = throttle;
+    }
+
+    public static long getPartSize() {
+        return Long.parseLong(System.getProperty("download.part.size", Long.toString(DEFAULT_PART_SIZE)));
+    }
+
+    /**
+     * @param size size of a remote object, might be null if it is not known
+     * @return true if an object of given size is downloaded in ranges
+     */
+    public boolean isRanged(final Long size) {
+        return size != null && maxPartsInFlight > 1 && size > partSize;
+    }
+
+    /**
+     * Downloads a remote object of given size to a local path, replacing a file which is already there.
+     */
+    public void download(final Path localPath, final long size, final RangeReader reader) throws Exception {
+        download(localPath, size, reader, null);
+    }
+
+    /**
+     * Downloads a remote object of given size to a local path, replacing a file which is already there.
+     *
+     * @param digest digest the file is hashed by, in order of its ranges, might be null
+     */
+    public void download(final Path localPath, final long size, final RangeReader reader, final DownloadDigest digest) throws Exception {
+        Files.createDirectories(localPath.getParent());
+
+        final Path tempFile = localPath.resolveSibling(localPath.getFileName() + ".download");
+
+        try {
+            try (final RandomAccessFile file = new RandomAccessFile(tempFile.toFile(), "rw")) {
+                file.setLength(size);
+                downloadRanges(file.getChannel(), size, reader, localPath, digest);
+            }
+
+            Files.move(tempFile, localPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final Throwable t) {
+            Files.deleteIfExists(tempFile);
+            throw t;
+        }
+    }
+
+    private void downloadRanges(final FileChannel channel,
+                                final long size,
+                                final RangeReader reader,
+                                final Path localPath,
+                                final DownloadDigest digest) throws Exception {
+        final List<long[]> ranges = new ArrayList<>();
+
+        for (long offset = 0; offset < size; offset += partSize) {
+            ranges.add(new long[]{offset, Math.min(partSize, size - offset)});
+        }
+
+        final RangesHasher hasher = digest == null ? null : new RangesHasher(channel, ranges, digest);
+
+        final AtomicInteger nextRange = new AtomicInteger(0);
+        final AtomicBoolean failed = new AtomicBoolean(false);
+        final List<ListenableFuture<Void>> workers = new ArrayList<>();
+
+        // every worker takes ranges one by one so there are never more of them in flight than there are workers
+        for (int i = 0; i < Math.min(maxPartsInFlight, ranges.size()); i++) {
+            workers.add(getExecutorService().submit(() -> {
+                int index;
+
+                while (!failed.get() && (index = nextRange.getAndIncrement()) < ranges.size()) {
+                    final long[] range = ranges.get(index);
+
+                    try {
+                        getRetrier(retrySpec).submit(() -> {
+                            try {
+                                downloadRange(channel, range[0], range[1], reader);
+                            } catch (final Exception ex) {
+                                throw new RetriableException(String.format("Unable to download range %s-%s of %s",
+                                                                           range[0],
+                                                                           range[0] + range[1] - 1,
+                                                                           localPath), ex);
+                            }
+                            return null;
+                        });
+
+                        if (hasher != null) {
+                            hasher.downloaded(index);
+                        }
+                    } catch (final Exception ex) {
+                        failed.set(true);
+                        throw ex;
+                    }
+                }
+
+                return null;
+            }));
+        }
+
+        try {
+            Futures.allAsList(workers).get();
+        } catch (final Exception ex) {
+            workers.forEach(worker -> worker.cancel(true));
+            throw ex;
+        }
+
+        logger.debug("Downloaded {} in {} ranges", localPath, ranges.size());
+    }
+
+    private void downloadRange(final FileChannel channel, final long offset, final long length, final RangeReader reader) throws Exception {
+        final ByteBuffer buffer = BUFFER.get();
+
+        long position = offset;
+        final long end = offset + length;
+
+        try (final InputStream inputStream = throttle.apply(reader.open(offset, length))) {
+            int read;
+
+            while (position < end && (read = inputStream.read(buffer.array(), 0, (int) Math.min(buffer.capacity(), end - position))) != -1) {
+                buffer.clear().limit(read);
+
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+            }
+        }
+
+        if (position != end) {
+            throw new IOException(String.format("Range %s-%s ended after %s bytes", offset, end - 1, position - offset));
+        }
+    }
+
+    /**
+     * Hashes ranges of a file in order of their offsets. A worker which finishes a range hashes all ranges which can be
+     * hashed by then, unless some other worker is hashing already, so workers do not wait for each other.
+     */
+    private static class RangesHasher {
+
+        private final FileChannel channel;
+        private final List<long[]> ranges;
+        private final DownloadDigest digest;
+        private final boolean[] downloaded;
+        private int hashed;
+        private boolean hashing;
+
+        RangesHasher(final FileChannel channel, final List<long[]> ranges, final DownloadDigest digest) {
+            this.channel = channel;
+            this.ranges = ranges;
+            this.digest = digest;
+            this.downloaded = new boolean[ranges.size()];
+        }
+
+        void downloaded(final int index) throws Exception {
+            synchronized (this) {
+                downloaded[index] = true;
+
+                if (hashing) {
+                    return;
+                }
+
+                hashing = true;
+            }
+
+            try {
+                while (true) {
+                    final long[] range;
+
+                    synchronized (this) {
+                        if (hashed == ranges.size() || !downloaded[hashed]) {
+                            hashing = false;
+                            return;
+                        }
+
+                        range = ranges.get(hashed);
+                    }
+
+                    hash(range[0], range[1]);
+
+                    synchronized (this) {
+                        hashed++;
+                    }
+                }
+            } catch (final Throwable t) {
+                synchronized (this) {
+                    hashing = false;
+                }
+
+                throw t;
+            }
+        }
+
+        private void hash(final long offset, final long length) throws Exception {
+            final ByteBuffer buffer = BUFFER.get();
+            final long end = offset + length;
+
+            for (long position = offset; position < end; ) {
+                buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+
+                final int read = channel.read(buffer, position);
+
+                if (read == -1) {
+                    throw new IOException(String.format("Range %s-%s ended after %s bytes upon hashing", offset, end - 1, position - offset));
+                }
+
+                digest.update(buffer.array(), 0, read);
+                position += read;
+            }
+        }
+    }
+
+    private synchronized ListeningExecutorService getExecutorService() {
+        if (executorService == null) {
+            executorService = new FixedTasksExecutorSupplier().get(concurrentConnections * maxPartsInFlight);
+        }
+
+        return executorService;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+            executorService = null;
+        }
+    }
+}
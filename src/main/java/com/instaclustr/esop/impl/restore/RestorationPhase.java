@@ -1,18 +1,31 @@
 package com.instaclustr.esop.impl.restore;
 
 import java.io.IOException;
+import java.nio.file.FileStore;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -45,6 +58,7 @@ import com.instaclustr.esop.impl.truncate.TruncateOperationRequest;
 import com.instaclustr.io.FileUtils;
 import com.instaclustr.operations.Operation;
 import com.instaclustr.operations.OperationFailureException;
+import com.instaclustr.threading.Executors.FixedTasksExecutorSupplier;
 import picocli.CommandLine;
 
 import static com.instaclustr.esop.impl.restore.RestorationPhase.RestorationPhaseType.CLEANUP;
@@ -67,6 +81,8 @@ import static java.util.stream.Collectors.toList;
  */
 public abstract class RestorationPhase {
 
+    private static final Logger logger = LoggerFactory.getLogger(RestorationPhase.class);
+
     protected RestorationContext ctxt;
 
     public RestorationPhase(RestorationContext ctxt, boolean parseCassandraData) throws Exception {
@@ -90,6 +106,45 @@ public abstract class RestorationPhase {
 
     public abstract void execute() throws RestorationPhaseException;
 
+    /**
+     * Downloads given entries and waits until they are all downloaded. Files verified already by a previous run
+     * of this phase, as recorded in the restore journal in the download dir, are not verified again.
+     *
+     * @throws IOException if some file was not downloaded successfully
+     */
+    protected static void download(final RestorationContext ctxt, final List<ManifestEntry> entries) throws Exception {
+        final RestoreOperationRequest request = ctxt.operation.request;
+
+        if (request.restoreJournal == null) {
+            request.restoreJournal = new RestoreJournal(request.importing.sourceDir);
+        }
+
+        Session<DownloadUnit> session = null;
+
+        try {
+            session = ctxt.downloadTracker.submit(ctxt.restorer,
+                                                  ctxt.operation,
+                                                  entries,
+                                                  request.snapshotTag,
+                                                  request.concurrentConnections);
+
+            session.waitUntilConsideredFinished();
+            ctxt.downloadTracker.cancelIfNecessary(session);
+
+            logger.info("Download throughput: {}", request.downloadGovernor.getThroughput());
+
+            final List<DownloadUnit> failedUnits = session.getFailedUnits();
+
+            if (!failedUnits.isEmpty()) {
+                final String message = failedUnits.stream().map(unit -> unit.getManifestEntry().objectKey.toString()).collect(Collectors.joining(","));
+                logger.error(message);
+                throw new IOException(format("Unable to download files successfully: %s", message));
+            }
+        } finally {
+            ctxt.downloadTracker.removeSession(session);
+        }
+    }
+
     public static final class RestorationPhaseException extends Exception {
 
         public RestorationPhaseException(final String message) {
@@ -291,35 +346,19 @@ public abstract class RestorationPhase {
                 // looking into downloaded manifest, download only these sstables for keyspaces / tables
                 // which were specified in request in "entities"
                 // there will be only entries in this list which are backed by existing keyspace on disk
+                if (request.pipelined) {
+                    logger.info("Restoration is pipelined, data will be downloaded table by table in importing phase.");
+                    return;
+                }
+
                 final List<ManifestEntry> manifestFiles = manifest.getManifestFiles(request.entities,
                                                                                     false,  // not possible to restore system keyspace on a live cluster
                                                                                     false, // not possible to restore system_auth on a live cluster
                                                                                     false,  // no new cluster
                                                                                     false); // with schemas
 
-                Session<DownloadUnit> session = null;
-
-                try {
-                    session = ctxt.downloadTracker.submit(ctxt.restorer,
-                                                          ctxt.operation,
-                                                          manifestFiles,
-                                                          request.snapshotTag,
-                                                          request.concurrentConnections);
-
-                    session.waitUntilConsideredFinished();
-                    ctxt.downloadTracker.cancelIfNecessary(session);
+                download(ctxt, manifestFiles);
 
-                    final List<DownloadUnit> failedUnits = session.getFailedUnits();
-
-                    if (!failedUnits.isEmpty()) {
-                        final String message = failedUnits.stream().map(unit -> unit.getManifestEntry().objectKey.toString()).collect(Collectors.joining(","));
-                        logger.error(message);
-                        throw new IOException(format("Unable to download files successfully: %s", message));
-                    }
-                } finally {
-                    ctxt.downloadTracker.removeSession(session);
-                    session = null;
-                }
                 logger.info("Downloading phase was successfully completed.");
             } catch (final Exception ex) {
                 logger.error("Downloading phase has failed: {}", ex.getMessage());
@@ -430,6 +469,14 @@ public abstract class RestorationPhase {
                 final DatabaseEntities databaseEntitiesToVerify = ctxt.cassandraData.getDatabaseEntitiesToProcessForVerification();
                 final DatabaseEntities databaseEntitiesToRestore = ctxt.cassandraData.getDatabaseEntitiesToProcessForRestore();
 
+                if (ctxt.operation.request.pipelined) {
+                    new TablePipeline(ctxt, (keyspace, table, tablePath) -> importTable(ctxt.operation.request.importing.copy(keyspace, table, tablePath)))
+                        .execute(manifest, databaseEntitiesToRestore);
+
+                    logger.info("Importing phase was finished successfully.");
+                    return;
+                }
+
                 final DataVerification dataVerification = new DataVerification(ctxt).verify(manifest, databaseEntitiesToVerify);
                 if (dataVerification.hasErrors()) {
                     throw new RestorationPhaseException("Some local files were corrupted or they are missing, "
@@ -456,12 +503,7 @@ public abstract class RestorationPhase {
 
                 for (final ImportOperationRequest request : imports) {
                     try {
-                        final ImportOperation op = new ImportOperation(ctxt.jmx, ctxt.cassandraVersion, request);
-                        op.run();
-
-                        if (!op.errors.isEmpty()) {
-                            throw op.errors.get(0).throwable;
-                        }
+                        importTable(request);
                     } catch (final Throwable t) {
                         failedImports.put(request.keyspace + "." + request.table, t.getMessage());
                     }
@@ -477,6 +519,15 @@ public abstract class RestorationPhase {
                 throw RestorationPhaseException.construct(ex, getRestorationPhaseType());
             }
         }
+
+        private void importTable(final ImportOperationRequest request) throws Throwable {
+            final ImportOperation op = new ImportOperation(ctxt.jmx, ctxt.cassandraVersion, request);
+            op.run();
+
+            if (!op.errors.isEmpty()) {
+                throw op.errors.get(0).throwable;
+            }
+        }
     }
 
     /**
@@ -487,6 +538,8 @@ public abstract class RestorationPhase {
 
         private static final Logger logger = LoggerFactory.getLogger(HardlinkingPhase.class);
 
+        private static final int DEFAULT_REFRESH_PARALLELISM = 4;
+
         public HardlinkingPhase(final RestorationContext ctxt) throws Exception {
             super(ctxt, true);
         }
@@ -507,92 +560,192 @@ public abstract class RestorationPhase {
                 final DatabaseEntities databaseEntitiesToVerify = ctxt.cassandraData.getDatabaseEntitiesToProcessForVerification();
                 final DatabaseEntities databaseEntitiesToRestore = ctxt.cassandraData.getDatabaseEntitiesToProcessForRestore();
 
+                if (ctxt.operation.request.pipelined) {
+                    new TablePipeline(ctxt, this::hardlinkTable).execute(manifest, databaseEntitiesToRestore);
+
+                    logger.info("Hardlinking phase was finished successfully.");
+                    return;
+                }
+
                 final DataVerification dataVerification = new DataVerification(ctxt).verify(manifest, databaseEntitiesToVerify);
                 if (dataVerification.hasErrors()) {
                     throw new RestorationPhaseException("Some local files were corrupted or they are missing, please consult the logs to see the details.");
                 }
 
-                final List<Path> downloadedFiles = CassandraData.list(ctxt.operation.request.importing.sourceDir);
-                final PathSSTableClassifier pathSSTableClassifier = new PathSSTableClassifier(ctxt.operation.request);
-                final Map<String, List<Path>> classifiedDownloadedFiles = pathSSTableClassifier.classify(downloadedFiles);
-                final Map<String, List<Path>> classifiedLinks = new LinkedHashMap<>(classifiedDownloadedFiles);
-                pathSSTableClassifier.map(classifiedLinks, ctxt.operation.request);
+                final List<Path> successfulLinks = Collections.synchronizedList(new ArrayList<>());
 
-                boolean failedLinkage = false;
-                final List<Path> successfulLinks = new ArrayList<>();
+                try {
+                    link(CassandraData.list(ctxt.operation.request.importing.sourceDir), successfulLinks);
+                } catch (final Exception ex) {
+                    deleteLinks(successfulLinks);
+                    throw new RestorationPhaseException("Hardlinking phase finished with errors, the linking of downloaded SSTables to Cassandra directory has failed.");
+                }
 
-                for (final Map.Entry<String, List<Path>> classifiedDownloadedSStable : classifiedDownloadedFiles.entrySet()) {
-                    List<Path> downloads = classifiedDownloadedSStable.getValue();
-                    List<Path> links = classifiedLinks.get(classifiedDownloadedSStable.getKey());
+                final Map<String, String> failedRefreshes = refresh(databaseEntitiesToRestore);
 
-                    if (failedLinkage) {
-                        break;
-                    }
+                if (!failedRefreshes.isEmpty()) {
+                    throw new RestorationPhaseException(format("Failed tables to refresh: %s", failedRefreshes));
+                }
 
-                    assert downloads.size() == links.size();
+                logger.info("Hardlinking phase was finished successfully.");
+            } catch (
+                    final Exception ex) {
+                logger.error("Hardlinking phase has failed: {}", ex.getMessage());
+                throw RestorationPhaseException.construct(ex, getRestorationPhaseType());
+            }
+        }
 
-                    for (int i = 0; i < downloads.size(); i++) {
-                        if (failedLinkage) {
-                            break;
-                        }
-                        Path existing = downloads.get(i);
-                        Path link = links.get(i);
+        private void hardlinkTable(final String keyspace, final String table, final Path tablePath) throws Throwable {
+            final List<Path> successfulLinks = Collections.synchronizedList(new ArrayList<>());
 
-                        try {
-                            if (Files.exists(link)) {
-                                logger.debug(format("not linking from %s to %s as target already exists", existing, link));
-                            } else {
-                                logger.debug(format("linking from %s to %s", existing, link));
-                                Files.createLink(link, existing);
-                                successfulLinks.add(link);
-                            }
-                        } catch (final Exception ex) {
-                            logger.error(format("Unable to create a hardlink from %s to %s, skipping the linking of all other resources and deleting already linked ones.",
-                                                existing.toAbsolutePath(),
-                                                link.toAbsolutePath()),
-                                         ex);
+            try {
+                link(CassandraData.list(tablePath), successfulLinks);
+            } catch (final Exception ex) {
+                deleteLinks(successfulLinks);
+                throw new RestorationPhaseException(format("The linking of downloaded SSTables of %s.%s to Cassandra directory has failed.", keyspace, table), ex);
+            }
+
+            refresh(keyspace, table);
+        }
+
+        /**
+         * Links downloaded files to Cassandra data directories. SSTables are linked in parallel, by "esop.hardlinking.parallelism"
+         * threads (as many as there are processors by default), and no other SSTable is linked once some link can not be created.
+         * All links created are in given list when this method returns, even if it has failed.
+         */
+        private void link(final List<Path> downloadedFiles, final List<Path> successfulLinks) throws Exception {
+            final PathSSTableClassifier pathSSTableClassifier = new PathSSTableClassifier(ctxt.operation.request);
+            final Map<String, List<Path>> classifiedDownloadedFiles = pathSSTableClassifier.classify(downloadedFiles);
+            final Map<String, List<Path>> classifiedLinks = new LinkedHashMap<>(classifiedDownloadedFiles);
+            pathSSTableClassifier.map(classifiedLinks, ctxt.operation.request);
+
+            final AtomicBoolean failedLinkage = new AtomicBoolean(false);
+            final List<ListenableFuture<Void>> futures = new ArrayList<>();
 
-                            failedLinkage = true;
+            final int parallelism = Integer.getInteger("esop.hardlinking.parallelism", Runtime.getRuntime().availableProcessors());
+            final ListeningExecutorService executorService = new FixedTasksExecutorSupplier().get(Math.max(1, parallelism));
+
+            try {
+                for (final Map.Entry<String, List<Path>> classifiedDownloadedSStable : classifiedDownloadedFiles.entrySet()) {
+                    final List<Path> downloads = classifiedDownloadedSStable.getValue();
+                    final List<Path> links = classifiedLinks.get(classifiedDownloadedSStable.getKey());
+
+                    assert downloads.size() == links.size();
+
+                    futures.add(executorService.submit(() -> {
+                        for (int i = 0; i < downloads.size() && !failedLinkage.get(); i++) {
+                            try {
+                                link(downloads.get(i), links.get(i), successfulLinks);
+                            } catch (final Exception ex) {
+                                failedLinkage.set(true);
+                                throw ex;
+                            }
                         }
-                    }
+
+                        return null;
+                    }));
                 }
 
-                if (failedLinkage) {
-                    for (final Path linked : successfulLinks) {
-                        try {
-                            Files.deleteIfExists(linked);
-                        } catch (final Exception ex) {
-                            logger.error(format("It is not possible to delete link %s.", linked.toString()), ex);
-                        }
-                    }
+                // wait for all of them so links which are still being created are not missed upon their deletion
+                Futures.successfulAsList(futures).get();
+                Futures.allAsList(futures).get();
+            } finally {
+                executorService.shutdown();
+            }
+        }
 
-                    throw new RestorationPhaseException("Hardlinking phase finished with errors, the linking of downloaded SSTables to Cassandra directory has failed.");
+        private void link(final Path existing, final Path link, final List<Path> successfulLinks) throws Exception {
+            try {
+                if (Files.exists(link)) {
+                    logger.debug(format("not linking from %s to %s as target already exists", existing, link));
                 } else {
-                    final Map<String, String> failedRefreshes = new HashMap<>();
+                    logger.debug(format("linking from %s to %s", existing, link));
+                    Files.createLink(link, existing);
+                    successfulLinks.add(link);
+                }
+            } catch (final Exception ex) {
+                logger.error(format("Unable to create a hardlink from %s to %s, skipping the linking of all other resources and deleting already linked ones.",
+                                    existing.toAbsolutePath(),
+                                    link.toAbsolutePath()),
+                             ex);
+
+                throw ex;
+            }
+        }
+
+        private void deleteLinks(final List<Path> links) {
+            for (final Path linked : links) {
+                try {
+                    Files.deleteIfExists(linked);
+                } catch (final Exception ex) {
+                    logger.error(format("It is not possible to delete link %s.", linked.toString()), ex);
+                }
+            }
+        }
+
+        /**
+         * Refreshes tables concurrently, at most "esop.refresh.parallelism" of them (4 by default) at the same time,
+         * and logs the slowest refreshes.
+         *
+         * @return error messages of tables which failed to be refreshed
+         */
+        private Map<String, String> refresh(final DatabaseEntities entities) throws Exception {
+            final Map<String, String> failedRefreshes = new ConcurrentHashMap<>();
+            final Map<String, Long> refreshTimes = new ConcurrentHashMap<>();
+            final List<ListenableFuture<?>> futures = new ArrayList<>();
 
-                    for (final Entry<String, String> entry : databaseEntitiesToRestore.getKeyspacesAndTables().entries()) {
+            final int parallelism = Integer.getInteger("esop.refresh.parallelism", DEFAULT_REFRESH_PARALLELISM);
+            final ListeningExecutorService executorService = new FixedTasksExecutorSupplier().get(Math.max(1, parallelism));
+
+            try {
+                for (final Entry<String, String> entry : entities.getKeyspacesAndTables().entries()) {
+                    final String name = entry.getKey() + "." + entry.getValue();
+
+                    futures.add(executorService.submit(() -> {
                         try {
-                            final RefreshOperation op = new RefreshOperation(ctxt.jmx, new RefreshOperationRequest(entry.getKey(), entry.getValue()));
-                            op.run();
-                            if (!op.errors.isEmpty() && !op.errors.get(0).throwable.getMessage().contains("Unknown")) {
-                                throw op.errors.get(0).throwable;
-                            }
+                            refreshTimes.put(name, refresh(entry.getKey(), entry.getValue()));
                         } catch (final Throwable t) {
-                            failedRefreshes.put(entry.getKey() + "." + entry.getValue(), t.getMessage());
+                            failedRefreshes.put(name, String.valueOf(t.getMessage()));
                         }
-                    }
+                    }));
+                }
 
-                    if (!failedRefreshes.isEmpty()) {
-                        throw new RestorationPhaseException(format("Failed tables to refresh: %s", failedRefreshes));
-                    }
+                Futures.allAsList(futures).get();
+            } finally {
+                executorService.shutdown();
+            }
 
-                    logger.info("Hardlinking phase was finished successfully.");
-                }
-            } catch (
-                    final Exception ex) {
-                logger.error("Hardlinking phase has failed: {}", ex.getMessage());
-                throw RestorationPhaseException.construct(ex, getRestorationPhaseType());
+            if (!refreshTimes.isEmpty()) {
+                logger.info("Refreshed {} tables in {} ms in total, the slowest ones: {}",
+                            refreshTimes.size(),
+                            refreshTimes.values().stream().mapToLong(Long::longValue).sum(),
+                            refreshTimes.entrySet().stream()
+                                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                                .limit(10)
+                                .map(e -> e.getKey() + " " + e.getValue() + " ms")
+                                .collect(Collectors.joining(", ")));
+            }
+
+            return failedRefreshes;
+        }
+
+        /**
+         * @return number of milliseconds the refresh of a table took
+         */
+        private long refresh(final String keyspace, final String table) throws Throwable {
+            final long start = System.nanoTime();
+
+            final RefreshOperation op = new RefreshOperation(ctxt.jmx, new RefreshOperationRequest(keyspace, table));
+            op.run();
+            if (!op.errors.isEmpty() && !op.errors.get(0).throwable.getMessage().contains("Unknown")) {
+                throw op.errors.get(0).throwable;
             }
+
+            final long took = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            logger.info("Refresh of {}.{} took {} ms", keyspace, table, took);
+
+            return took;
         }
     }
 
@@ -713,13 +866,21 @@ public abstract class RestorationPhase {
         }
     }
 
+    /**
+     * Verifies that all files to restore exist and that their hashes match the manifest. Files are verified in parallel,
+     * by as many threads as there are processors but at most {@link #THREADS_PER_DISK} per disk the files are on,
+     * unless set by "esop.verification.parallelism". Files verified upon download already are not read again as
+     * their hashes are served from the hash cache.
+     */
     public static final class DataVerification {
 
         private static final Logger logger = LoggerFactory.getLogger(DataVerification.class);
 
+        private static final int THREADS_PER_DISK = 4;
+
         private final RestorationContext ctxt;
-        public final List<String> nonExistingFiles = new ArrayList<>();
-        public final List<String> corruptedFiles = new ArrayList<>();
+        public final List<String> nonExistingFiles = Collections.synchronizedList(new ArrayList<>());
+        public final List<String> corruptedFiles = Collections.synchronizedList(new ArrayList<>());
 
         public DataVerification(final RestorationContext ctxt) {
             this.ctxt = ctxt;
@@ -729,27 +890,91 @@ public abstract class RestorationPhase {
             return !nonExistingFiles.isEmpty() || !corruptedFiles.isEmpty();
         }
 
-        public DataVerification verify(final Manifest manifest, final DatabaseEntities entities) {
-            final List<ManifestEntry> entries = manifest.getManifestFiles(entities, false, false, false, false);
+        public DataVerification verify(final Manifest manifest, final DatabaseEntities entities) throws Exception {
+            return verify(manifest.getManifestFiles(entities, false, false, false, false));
+        }
 
-            for (final ManifestEntry entry : entries) {
-                if (!Files.exists(entry.localFile)) {
-                    logger.error("File to import does not exist: " + entry.localFile.toAbsolutePath());
-                    nonExistingFiles.add(entry.localFile.toAbsolutePath().toString());
-                    continue;
+        public DataVerification verify(final List<ManifestEntry> entries) throws Exception {
+            if (entries.isEmpty()) {
+                return this;
+            }
+
+            final int parallelism = getParallelism(entries);
+            final AtomicInteger verified = new AtomicInteger();
+            final AtomicInteger lastLoggedPercent = new AtomicInteger();
+
+            logger.info("Verifying {} files by {} threads", entries.size(), parallelism);
+
+            final ListeningExecutorService executorService = new FixedTasksExecutorSupplier().get(parallelism);
+
+            try {
+                final List<ListenableFuture<?>> futures = new ArrayList<>();
+
+                for (final ManifestEntry entry : entries) {
+                    futures.add(executorService.submit(() -> {
+                        verify(entry);
+
+                        final int done = verified.incrementAndGet();
+                        final int percent = (int) ((long) done * 100 / entries.size());
+
+                        if (ctxt.operation != null) {
+                            ctxt.operation.progress = (float) done / entries.size();
+                        }
+
+                        final int logged = lastLoggedPercent.get();
+
+                        if (percent >= logged + 10 && lastLoggedPercent.compareAndSet(logged, percent)) {
+                            logger.info("Verified {} of {} files ({}%)", done, entries.size(), percent);
+                        }
+                    }));
                 }
 
-                if (entry.hash != null) {
-                    try {
-                        this.ctxt.hashService.verify(entry.localFile, entry.hash);
-                    } catch (final Exception ex) {
-                        logger.error(ex.getMessage());
-                        corruptedFiles.add(entry.localFile.toString());
+                Futures.allAsList(futures).get();
+            } finally {
+                executorService.shutdownNow();
+            }
+
+            return this;
+        }
+
+        private void verify(final ManifestEntry entry) {
+            if (!Files.exists(entry.localFile)) {
+                logger.error("File to import does not exist: " + entry.localFile.toAbsolutePath());
+                nonExistingFiles.add(entry.localFile.toAbsolutePath().toString());
+                return;
+            }
+
+            if (entry.hash != null) {
+                try {
+                    this.ctxt.hashService.verify(entry);
+                } catch (final Exception ex) {
+                    logger.error(ex.getMessage());
+                    corruptedFiles.add(entry.localFile.toString());
+                }
+            }
+        }
+
+        private int getParallelism(final List<ManifestEntry> entries) {
+            final Integer configured = Integer.getInteger("esop.verification.parallelism");
+
+            if (configured != null) {
+                return Math.max(1, configured);
+            }
+
+            final Set<FileStore> disks = new HashSet<>();
+
+            for (final ManifestEntry entry : entries) {
+                try {
+                    final Path parent = entry.localFile.toAbsolutePath().getParent();
+                    if (parent != null && Files.exists(parent)) {
+                        disks.add(Files.getFileStore(parent));
                     }
+                } catch (final IOException ex) {
+                    // disk of a missing file does not matter
                 }
             }
 
-            return this;
+            return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), Math.max(1, disks.size()) * THREADS_PER_DISK));
         }
 
         @Override
@@ -760,4 +985,120 @@ public abstract class RestorationPhase {
                               .toString();
         }
     }
+
+    /**
+     * Restores tables one after another instead of phase after phase. Files of a table are downloaded and verified
+     * and the table is imported or hardlinked right after that, while files of next tables are being downloaded.
+     * Downloaded files of a restored table are deleted, so there are files of at most "restore.pipeline.tables.in.flight"
+     * tables (2 by default) in a download dir at the same time.
+     */
+    public static final class TablePipeline {
+
+        private static final Logger logger = LoggerFactory.getLogger(TablePipeline.class);
+
+        private static final int DEFAULT_TABLES_IN_FLIGHT = 2;
+
+        /**
+         * Makes downloaded and verified files of a table live.
+         */
+        @FunctionalInterface
+        public interface TableRestorer {
+
+            void restore(final String keyspace, final String table, final Path tablePath) throws Throwable;
+        }
+
+        private final RestorationContext ctxt;
+        private final TableRestorer tableRestorer;
+        private final int tablesInFlight;
+
+        public TablePipeline(final RestorationContext ctxt, final TableRestorer tableRestorer) {
+            this(ctxt, tableRestorer, Integer.getInteger("restore.pipeline.tables.in.flight", DEFAULT_TABLES_IN_FLIGHT));
+        }
+
+        public TablePipeline(final RestorationContext ctxt, final TableRestorer tableRestorer, final int tablesInFlight) {
+            this.ctxt = ctxt;
+            this.tableRestorer = tableRestorer;
+            this.tablesInFlight = Math.max(1, tablesInFlight);
+        }
+
+        public void execute(final Manifest manifest, final DatabaseEntities entitiesToRestore) throws Exception {
+            final RestoreOperationRequest request = ctxt.operation.request;
+
+            final List<ManifestEntry> manifestFiles = manifest.getManifestFiles(request.entities, false, false, false, false);
+
+            final Map<String, String> failedTables = new ConcurrentHashMap<>();
+            final Semaphore downloadedTables = new Semaphore(tablesInFlight);
+            final List<ListenableFuture<?>> restores = new ArrayList<>();
+
+            // tables are restored one by one, in the order they are downloaded in
+            final ListeningExecutorService executorService = new FixedTasksExecutorSupplier().get(1);
+
+            try {
+                for (final Entry<String, String> entry : entitiesToRestore.getKeyspacesAndTables().entries()) {
+                    final String keyspace = entry.getKey();
+                    final String table = entry.getValue();
+
+                    final Optional<String> tableId = ctxt.cassandraData.getTableId(keyspace, table);
+
+                    if (!ctxt.cassandraData.getTablePath(keyspace, table).isPresent() || !tableId.isPresent()) {
+                        continue;
+                    }
+
+                    final Path tablePath = request.importing.sourceDir.resolve(keyspace).resolve(format("%s-%s", table, tableId.get()));
+                    final List<ManifestEntry> tableEntries = manifestFiles.stream().filter(e -> e.localFile.startsWith(tablePath)).collect(toList());
+
+                    if (tableEntries.isEmpty()) {
+                        continue;
+                    }
+
+                    downloadedTables.acquire();
+
+                    try {
+                        if (!request.noDownloadData) {
+                            logger.info("Downloading {} files of {}.{}", tableEntries.size(), keyspace, table);
+                            download(ctxt, tableEntries);
+                        }
+                    } catch (final Exception ex) {
+                        downloadedTables.release();
+                        throw ex;
+                    }
+
+                    restores.add(executorService.submit(() -> {
+                        try {
+                            restoreTable(keyspace, table, tablePath, tableEntries);
+                        } catch (final Throwable t) {
+                            logger.error(format("Unable to restore %s.%s", keyspace, table), t);
+                            failedTables.put(keyspace + "." + table, String.valueOf(t.getMessage()));
+                        } finally {
+                            downloadedTables.release();
+                        }
+                    }));
+                }
+            } finally {
+                // let tables which are downloaded already be restored even if some download has failed
+                Futures.successfulAsList(restores).get();
+                executorService.shutdown();
+            }
+
+            if (!failedTables.isEmpty()) {
+                throw new RestorationPhaseException(format("Failed tables to restore: %s", failedTables));
+            }
+        }
+
+        private void restoreTable(final String keyspace, final String table, final Path tablePath, final List<ManifestEntry> entries) throws Throwable {
+            final DataVerification dataVerification = new DataVerification(ctxt).verify(entries);
+
+            if (dataVerification.hasErrors()) {
+                throw new RestorationPhaseException("Some local files were corrupted or they are missing: " + dataVerification.toString());
+            }
+
+            tableRestorer.restore(keyspace, table, tablePath);
+
+            if (!ctxt.operation.request.noDeleteDownloads) {
+                FileUtils.deleteDirectory(tablePath);
+            }
+
+            logger.info("Table {}.{} was restored.", keyspace, table);
+        }
+    }
 }
@@ -1,10 +1,17 @@
 package com.instaclustr.esop.impl.restore;
 
 import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.function.Predicate;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.instaclustr.esop.impl.Manifest;
+import com.instaclustr.esop.impl.StorageLocation;
+
+import static java.lang.String.format;
 
 public class RestorationUtilities {
 
@@ -16,7 +23,49 @@ public class RestorationUtilities {
         final String manifestAsString = restorer.downloadManifest(Paths.get("manifests"),
                                                                   new ManifestFilteringPredicate(request, schemaVersion));
 
-        return Manifest.read(manifestAsString, objectMapper);
+        return materialize(Manifest.read(manifestAsString, objectMapper), restorer, request.storageLocation, objectMapper);
+    }
+
+    /**
+     * Walks a chain of parents of a delta manifest up to the nearest full one and merges their entries
+     * into the delta so it has all files of its backup.
+     *
+     * @param manifest        manifest to materialise, a full one is returned as it is
+     * @param storageLocation location of a node manifests are stored for
+     * @return materialised manifest
+     */
+    public static Manifest materialize(final Manifest manifest,
+                                       final Restorer restorer,
+                                       final StorageLocation storageLocation,
+                                       final ObjectMapper objectMapper) throws Exception {
+        final Deque<Manifest> deltas = new ArrayDeque<>();
+        final Set<String> parents = new HashSet<>();
+
+        Manifest current = manifest;
+
+        while (current.isDelta()) {
+            final String parent = current.getParent();
+
+            if (!parents.add(parent)) {
+                throw new IllegalStateException(format("Manifest %s is in a cycle of parents", parent));
+            }
+
+            final String parentKey = storageLocation.nodePath() + "/" + parent;
+
+            deltas.push(current);
+
+            try {
+                current = Manifest.read(restorer.downloadManifest(Paths.get("manifests"), s -> s.endsWith(parentKey)), objectMapper);
+            } catch (final Exception ex) {
+                throw new IllegalStateException(format("Unable to download parent manifest %s, its chain of deltas can not be materialised", parentKey), ex);
+            }
+        }
+
+        while (!deltas.isEmpty()) {
+            current = deltas.pop().materialize(current);
+        }
+
+        return current;
     }
 
     public static abstract class AbstractFilteringPredicate implements Predicate<String> {
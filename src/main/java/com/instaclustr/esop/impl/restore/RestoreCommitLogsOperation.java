@@ -11,12 +11,14 @@ import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.text.SimpleDateFormat;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TimeZone;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
@@ -26,26 +28,35 @@ import com.google.common.base.Joiner;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonProperty.Access;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.instaclustr.esop.guice.BucketServiceFactory;
 import com.instaclustr.esop.guice.RestorerFactory;
 import com.instaclustr.esop.impl.AbstractTracker.Session;
+import com.instaclustr.esop.impl.BandwidthGovernor.GovernedOperation;
+import com.instaclustr.esop.impl.BandwidthGovernor.Throughput;
 import com.instaclustr.esop.impl.BucketService;
+import com.instaclustr.esop.impl.CommitLogLayout;
 import com.instaclustr.esop.impl.ManifestEntry;
 import com.instaclustr.esop.impl.RemoteObjectReference;
 import com.instaclustr.esop.impl.restore.DownloadTracker.DownloadUnit;
+import com.instaclustr.measure.DataRate;
 import com.instaclustr.operations.Operation;
 
 import static com.instaclustr.esop.impl.ManifestEntry.Type.COMMIT_LOG;
 import static java.lang.String.format;
 
-public class RestoreCommitLogsOperation extends Operation<RestoreCommitLogsOperationRequest> {
+public class RestoreCommitLogsOperation extends Operation<RestoreCommitLogsOperationRequest> implements GovernedOperation {
 
     private static final Logger logger = LoggerFactory.getLogger(RestoreCommitLogsOperation.class);
 
     private final static String CASSANDRA_COMMIT_LOGS = "commitlog";
 
+    // a window longer than a year is looked up by listing the whole archive
+    private static final int MAX_LISTED_PARTITIONS = 24 * 366;
+
     private final Map<String, RestorerFactory> restorerFactoryMap;
     final Map<String, BucketServiceFactory> bucketServiceFactoryMap;
     private final DownloadTracker downloadTracker;
@@ -61,6 +72,18 @@ public class RestoreCommitLogsOperation extends Operation<RestoreCommitLogsOpera
         this.bucketServiceFactoryMap = bucketServiceFactoryMap;
     }
 
+    @Override
+    public void updateBandwidth(final DataRate bandwidth) {
+        request.downloadBandwidth = bandwidth;
+        request.downloadGovernor.setRate(bandwidth);
+    }
+
+    @Override
+    @JsonProperty(value = "throughput", access = Access.READ_ONLY)
+    public Throughput getThroughput() {
+        return request.downloadGovernor.getThroughput();
+    }
+
     @Override
     protected void run0() throws Exception {
         try (final Restorer restorer = restorerFactoryMap.get(request.storageLocation.storageProvider).createCommitLogRestorer(request)) {
@@ -106,15 +129,44 @@ public class RestoreCommitLogsOperation extends Operation<RestoreCommitLogsOpera
     }
 
     private void downloadCommitLogs(final Restorer restorer) throws Exception {
-        final RemoteObjectReference remoteObjectReference = restorer.objectKeyToNodeAwareRemoteReference(Paths.get("commitlog"));
+        logger.info("Commencing processing of commit log listing");
+
+        final Set<ManifestEntry> parsedCommitlogList = findCommitLogs(restorer, request);
+
+        logger.info("Found {} commit logs to download", parsedCommitlogList.size());
+
+        if (parsedCommitlogList.size() == 0) {
+            return;
+        }
+
+        Session<DownloadUnit> downloadSession = null;
+
+        try {
+            downloadSession = downloadTracker.submit(restorer, this, parsedCommitlogList, null, this.request.concurrentConnections);
+            downloadSession.waitUntilConsideredFinished();
+            downloadTracker.cancelIfNecessary(downloadSession);
+            logger.info("Download throughput: {}", request.downloadGovernor.getThroughput());
+        } finally {
+            downloadTracker.removeSession(downloadSession);
+        }
+    }
+
+    /**
+     * Finds commit logs of the requested time window, and the first commit log past it, by listing only hourly partitions
+     * of that window and by a single listing of keys after the window which stops at the first partition with a commit log.
+     * <p>
+     * Commit logs archived in the flat layout of older versions are all older than the oldest partition. They are listed,
+     * never together with partitions, whenever the window starts before the oldest partition ends, so a window spanning
+     * an upgrade to partitions gets commit logs of both layouts.
+     */
+    public static Set<ManifestEntry> findCommitLogs(final Restorer restorer, final RestoreCommitLogsOperationRequest request) throws Exception {
         final Pattern commitlogPattern = Pattern.compile(".*(CommitLog-\\d+-\\d+\\.log)\\.(\\d+)");
         final Set<ManifestEntry> parsedCommitlogList = new HashSet<>();
 
-        logger.info("Commencing processing of commit log listing");
         final AtomicReference<ManifestEntry> overhangingManifestEntry = new AtomicReference<>();
         final AtomicLong overhangingTimestamp = new AtomicLong(Long.MAX_VALUE);
 
-        restorer.consumeFiles(remoteObjectReference, commitlogFile -> {
+        final Consumer<RemoteObjectReference> commitlogConsumer = commitlogFile -> {
 
             final Matcher matcherCommitlog = commitlogPattern.matcher(commitlogFile.getObjectKey().toString());
 
@@ -141,27 +193,78 @@ public class RestoreCommitLogsOperation extends Operation<RestoreCommitLogsOpera
                                                                    null));
                 }
             }
-        });
+        };
+
+        final List<Path> partitions = CommitLogLayout.partitions(request.timestampStart, request.timestampEnd);
+        final RemoteObjectReference root = restorer.objectKeyToNodeAwareRemoteReference(CommitLogLayout.COMMIT_LOG_ROOT);
+
+        if (partitions.size() > MAX_LISTED_PARTITIONS) {
+            logger.info("Requested time window spans more than {} partitions, listing all archived commit logs", MAX_LISTED_PARTITIONS);
+            restorer.consumeFiles(root, commitlogConsumer);
+        } else {
+            for (final Path partition : partitions) {
+                restorer.consumeFiles(restorer.objectKeyToNodeAwareRemoteReference(partition), commitlogConsumer);
+            }
+
+            logger.info("Listed {} partitions of commit logs", partitions.size());
+
+            // the first commit log past the window is in the first partition with commit logs after it
+            if (overhangingManifestEntry.get() == null) {
+                restorer.consumeFilesAfter(root, CommitLogLayout.afterPartition(request.timestampEnd), commitlogFile -> {
+                    final Path objectKey = commitlogFile.getObjectKey();
+
+                    // commit logs in the flat layout are older than any partition
+                    if (!CommitLogLayout.isPartitioned(objectKey)) {
+                        return false;
+                    }
+
+                    final ManifestEntry overhanging = overhangingManifestEntry.get();
+
+                    // all of the partition with the first commit log past the window were seen
+                    if (overhanging != null && !overhanging.objectKey.getParent().equals(objectKey.getParent())) {
+                        return false;
+                    }
+
+                    commitlogConsumer.accept(commitlogFile);
+                    return true;
+                });
+            }
+
+            final Path oldestPartition = findOldestPartition(restorer, root);
+
+            if (oldestPartition == null || request.timestampStart < CommitLogLayout.partitionEnd(oldestPartition)) {
+                // keys of the flat layout are ordered by names of commit logs, not by time, so all of them are listed,
+                // their number does not grow anymore once commit logs are archived in partitions
+                logger.info("Requested time window starts before the oldest partition of commit logs, listing commit logs archived in the flat layout");
+                restorer.consumeFilesAfter(root, CommitLogLayout.FLAT_LAYOUT_START_AFTER, commitlogFile -> {
+                    commitlogConsumer.accept(commitlogFile);
+                    return true;
+                });
+            }
+        }
 
         if (overhangingManifestEntry.get() != null) {
             parsedCommitlogList.add(overhangingManifestEntry.get());
         }
 
-        logger.info("Found {} commit logs to download", parsedCommitlogList.size());
+        return parsedCommitlogList;
+    }
 
-        if (parsedCommitlogList.size() == 0) {
-            return;
-        }
+    /**
+     * @return partition of the oldest partitioned commit log or null if no commit log is archived in a partition
+     */
+    private static Path findOldestPartition(final Restorer restorer, final RemoteObjectReference root) throws Exception {
+        final AtomicReference<Path> oldest = new AtomicReference<>();
 
-        Session<DownloadUnit> downloadSession = null;
+        // partitions sort by time and before the flat layout so the very first key tells
+        restorer.consumeFilesAfter(root, CommitLogLayout.COMMIT_LOG_ROOT + "/", commitlogFile -> {
+            if (CommitLogLayout.isPartitioned(commitlogFile.getObjectKey())) {
+                oldest.set(commitlogFile.getObjectKey().getParent());
+            }
+            return false;
+        });
 
-        try {
-            downloadSession = downloadTracker.submit(restorer, this, parsedCommitlogList, null, this.request.concurrentConnections);
-            downloadSession.waitUntilConsideredFinished();
-            downloadTracker.cancelIfNecessary(downloadSession);
-        } finally {
-            downloadTracker.removeSession(downloadSession);
-        }
+        return oldest.get();
     }
 
     private void updateCommitLogArchivingProperties() {
@@ -0,0 +1,266 @@
+package com.instaclustr.esop.impl.restore;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instaclustr.esop.impl.ManifestEntry;
+
+/**
+ * Append-only journal of files which were downloaded and verified, kept in a download dir. A restore which is run
+ * again after it died does not hash files it has downloaded already, it trusts the journal as long as a file still
+ * has the size and the modification time it had when it was verified.
+ * <p>
+ * Every record is a line of JSON which is synced to disk before a download of a file is considered to be finished.
+ * The journal is kept open until it is closed, records written meanwhile by other downloads are synced together
+ * by one force of the journal. A line torn by a crash is cut off when the journal is read.
+ */
+public class RestoreJournal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestoreJournal.class);
+
+    public static final String JOURNAL_FILE_NAME = ".esop-restore-journal";
+
+    private final Path journalFile;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Record> records = new ConcurrentHashMap<>();
+
+    private final Object syncLock = new Object();
+    private FileChannel channel;
+    // number of records written to the journal and number of them synced to disk
+    private volatile long written;
+    private long synced;
+
+    public RestoreJournal(final Path dir) {
+        this.journalFile = dir.resolve(JOURNAL_FILE_NAME);
+        load();
+    }
+
+    public Path getJournalFile() {
+        return journalFile;
+    }
+
+    /**
+     * @return true if a file of given entry was verified already and it has not changed since then
+     */
+    public boolean isVerified(final ManifestEntry entry, final Path localPath) {
+        final Record record = records.get(localPath.toAbsolutePath().toString());
+
+        if (record == null || entry.hash == null || !entry.hash.equals(record.hash) || !entry.objectKey.toString().equals(record.objectKey)) {
+            return false;
+        }
+
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(localPath, BasicFileAttributes.class);
+
+            return attributes.size() == record.size && attributes.lastModifiedTime().to(TimeUnit.MICROSECONDS) == record.mtime;
+        } catch (final IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Records that a file of given entry was downloaded and verified.
+     */
+    public void record(final ManifestEntry entry, final Path localPath) throws IOException {
+        final BasicFileAttributes attributes = Files.readAttributes(localPath, BasicFileAttributes.class);
+
+        final Record record = new Record(entry.objectKey.toString(),
+                                         localPath.toAbsolutePath().toString(),
+                                         attributes.size(),
+                                         entry.hash,
+                                         attributes.lastModifiedTime().to(TimeUnit.MICROSECONDS));
+
+        final byte[] line = (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+
+        final long sequence;
+
+        synchronized (this) {
+            if (channel == null) {
+                Files.createDirectories(journalFile.getParent());
+                channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+
+            final ByteBuffer buffer = ByteBuffer.wrap(line);
+
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+
+            sequence = ++written;
+        }
+
+        sync(sequence);
+
+        records.put(record.localFile, record);
+    }
+
+    /**
+     * Waits until a record of given sequence is synced to disk. Only one thread forces the journal at a time,
+     * others keep writing their records meanwhile and one of them syncs all of them by the next force.
+     */
+    private void sync(final long sequence) throws IOException {
+        synchronized (syncLock) {
+            if (synced >= sequence) {
+                return;
+            }
+
+            final FileChannel channelToSync;
+            final long target;
+
+            synchronized (this) {
+                channelToSync = channel;
+                target = written;
+            }
+
+            if (channelToSync != null) {
+                channelToSync.force(false);
+            }
+
+            synced = target;
+        }
+    }
+
+    /**
+     * Syncs and closes the journal, it is opened again by the next record.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                if (channel == null) {
+                    return;
+                }
+
+                try {
+                    channel.force(false);
+                    synced = written;
+                } finally {
+                    channel.close();
+                    channel = null;
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return records.size();
+    }
+
+    private void load() {
+        if (!Files.exists(journalFile)) {
+            return;
+        }
+
+        try {
+            truncateTornRecord();
+        } catch (final IOException ex) {
+            logger.warn(String.format("Unable to cut off a torn record of restore journal %s", journalFile), ex);
+        }
+
+        try (final BufferedReader reader = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                try {
+                    final Record record = objectMapper.readValue(line, Record.class);
+                    records.put(record.localFile, record);
+                } catch (final IOException ex) {
+                    logger.warn("Skipping malformed record of restore journal {}: {}", journalFile, line);
+                }
+            }
+
+            logger.info("Loaded {} records of restore journal {}", records.size(), journalFile);
+        } catch (final IOException ex) {
+            logger.warn(String.format("Unable to read restore journal %s, all existing files will be verified", journalFile), ex);
+            records.clear();
+        }
+    }
+
+    /**
+     * Truncates the journal right after its last complete line so a record appended later does not continue a line torn by a crash.
+     */
+    private void truncateTornRecord() throws IOException {
+        try (final FileChannel journal = FileChannel.open(journalFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            final ByteBuffer buffer = ByteBuffer.allocate(8192);
+            long end = journal.size();
+
+            while (end > 0) {
+                final long start = Math.max(0, end - buffer.capacity());
+
+                buffer.clear();
+                buffer.limit((int) (end - start));
+
+                while (buffer.hasRemaining() && journal.read(buffer, start + buffer.position()) != -1) {
+                    // reading whole chunk
+                }
+
+                for (int i = buffer.position() - 1; i >= 0; i--) {
+                    if (buffer.get(i) == '\n') {
+                        final long validSize = start + i + 1;
+
+                        if (validSize < journal.size()) {
+                            logger.warn("Cutting off a torn record at the end of restore journal {}", journalFile);
+                            journal.truncate(validSize);
+                        }
+
+                        return;
+                    }
+                }
+
+                end = start;
+            }
+
+            if (journal.size() > 0) {
+                logger.warn("Cutting off a torn record at the end of restore journal {}", journalFile);
+                journal.truncate(0);
+            }
+        }
+    }
+
+    public static class Record {
+
+        @JsonProperty("objectKey")
+        public final String objectKey;
+
+        @JsonProperty("localFile")
+        public final String localFile;
+
+        @JsonProperty("size")
+        public final long size;
+
+        @JsonProperty("hash")
+        public final String hash;
+
+        @JsonProperty("mtime")
+        public final long mtime;
+
+        @JsonCreator
+        public Record(@JsonProperty("objectKey") final String objectKey,
+                      @JsonProperty("localFile") final String localFile,
+                      @JsonProperty("size") final long size,
+                      @JsonProperty("hash") final String hash,
+                      @JsonProperty("mtime") final long mtime) {
+            this.objectKey = objectKey;
+            this.localFile = localFile;
+            this.size = size;
+            this.hash = hash;
+            this.mtime = mtime;
+        }
+    }
+}
@@ -10,6 +10,7 @@ import java.util.UUID;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonProperty.Access;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.deser.std.UUIDDeserializer;
@@ -17,20 +18,24 @@ import com.fasterxml.jackson.databind.ser.std.UUIDSerializer;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import com.instaclustr.esop.guice.StorageProviders;
+import com.instaclustr.esop.impl.BandwidthGovernor.GovernedOperation;
+import com.instaclustr.esop.impl.BandwidthGovernor.Throughput;
 import com.instaclustr.esop.impl.DatabaseEntities;
 import com.instaclustr.esop.impl.ListPathSerializer;
 import com.instaclustr.esop.impl.ProxySettings;
 import com.instaclustr.esop.impl.StorageLocation;
+import com.instaclustr.esop.impl.hash.HashCache;
 import com.instaclustr.esop.impl._import.ImportOperationRequest;
 import com.instaclustr.esop.impl.restore.RestorationPhase.RestorationPhaseType;
 import com.instaclustr.esop.impl.restore.RestorationStrategy.RestorationStrategyType;
 import com.instaclustr.esop.impl.retry.RetrySpec;
 import com.instaclustr.jackson.PathDeserializer;
+import com.instaclustr.measure.DataRate;
 import com.instaclustr.operations.Operation;
 import com.instaclustr.operations.OperationCoordinator;
 import com.instaclustr.operations.OperationFailureException;
 
-public class RestoreOperation extends Operation<RestoreOperationRequest> implements Cloneable {
+public class RestoreOperation extends Operation<RestoreOperationRequest> implements Cloneable, GovernedOperation {
 
     private final OperationCoordinator<RestoreOperationRequest> coordinator;
     private final Set<String> storageProviders;
@@ -97,7 +102,10 @@ public class RestoreOperation extends Operation<RestoreOperationRequest> impleme
                              @JsonProperty("dataDirs")
                              @JsonSerialize(using = ListPathSerializer.class)
                              @JsonDeserialize(contentUsing = PathDeserializer.class) List<Path> dataDirs,
-                             @JsonProperty("kmsKeyId") final String kmsKeyId) {
+                             @JsonProperty("kmsKeyId") final String kmsKeyId,
+                             @JsonProperty("downloadBandwidth") final DataRate downloadBandwidth,
+                             @JsonProperty("dryRun") final boolean dryRun,
+                             @JsonProperty("pipelined") final boolean pipelined) {
         super(type, id, creationTime, state, errors, progress, startTime, new RestoreOperationRequest(type,
                                                                                                       storageLocation,
                                                                                                       concurrentConnections,
@@ -129,6 +137,9 @@ public class RestoreOperation extends Operation<RestoreOperationRequest> impleme
                                                                                                       singlePhase,
                                                                                                       dataDirs,
                                                                                                       kmsKeyId));
+        this.request.downloadBandwidth = downloadBandwidth;
+        this.request.dryRun = dryRun;
+        this.request.pipelined = pipelined;
         this.coordinator = null;
         this.storageProviders = null;
     }
@@ -138,11 +149,32 @@ public class RestoreOperation extends Operation<RestoreOperationRequest> impleme
         return super.clone();
     }
 
+    @Override
+    public void updateBandwidth(final DataRate bandwidth) {
+        request.downloadBandwidth = bandwidth;
+        request.downloadGovernor.setRate(bandwidth);
+    }
+
+    @Override
+    @JsonProperty(value = "throughput", access = Access.READ_ONLY)
+    public Throughput getThroughput() {
+        return request.downloadGovernor.getThroughput();
+    }
+
     @Override
     protected void run0() throws Exception {
         assert coordinator != null;
         assert storageProviders != null;
         request.validate(storageProviders);
-        coordinator.coordinate(this);
+        try {
+            coordinator.coordinate(this);
+        } finally {
+            if (request.restoreJournal != null) {
+                request.restoreJournal.close();
+                request.restoreJournal = null;
+            }
+
+            HashCache.getInstance().persist();
+        }
     }
 }
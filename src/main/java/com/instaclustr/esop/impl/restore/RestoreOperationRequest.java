@@ -174,6 +174,19 @@ public class RestoreOperationRequest extends BaseRestoreOperationRequest {
     @JsonProperty("dc")
     public String dc;
 
+    @Option(names = "--dry-run",
+        description = "If set, IN_PLACE restoration only logs which files would be downloaded and which local files would be deleted, "
+            + "with their sizes, without changing anything.")
+    @JsonProperty("dryRun")
+    public boolean dryRun;
+
+    @Option(names = "--pipelined",
+        description = "If set, IMPORT and HARDLINKS restorations download data in import phase, table by table, and every table is "
+            + "imported or hardlinked and its downloaded files deleted as soon as they are downloaded and verified, "
+            + "while next tables are being downloaded. Downloading phase does not download anything in that case.")
+    @JsonProperty("pipelined")
+    public boolean pipelined;
+
     public RestoreOperationRequest() {
         // for picocli
     }
@@ -274,6 +287,9 @@ public class RestoreOperationRequest extends BaseRestoreOperationRequest {
             .add("retry", retry)
             .add("singlePhase", singlePhase)
             .add("dataDirs", dataDirs)
+            .add("downloadBandwidth", downloadBandwidth)
+            .add("dryRun", dryRun)
+            .add("pipelined", pipelined)
             .toString();
     }
 
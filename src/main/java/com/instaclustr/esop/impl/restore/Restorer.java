@@ -1,20 +1,68 @@
 package com.instaclustr.esop.impl.restore;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.instaclustr.esop.impl.ManifestEntry;
 import com.instaclustr.esop.impl.RemoteObjectReference;
 import com.instaclustr.esop.impl.StorageInteractor;
+import com.instaclustr.esop.impl.hash.HashSpec;
+import com.instaclustr.esop.impl.hash.HashSpec.IncrementalHasher;
+import com.instaclustr.esop.impl.hash.HashingInputStream;
+import com.instaclustr.threading.Executors.FixedTasksExecutorSupplier;
+
+import static java.util.stream.Collectors.toList;
 
 public abstract class Restorer extends StorageInteractor {
 
+    private static final Logger logger = LoggerFactory.getLogger(Restorer.class);
+
     protected final BaseRestoreOperationRequest request;
 
+    protected final RangedDownloader rangedDownloader;
+
     public Restorer(final BaseRestoreOperationRequest request) {
         super(request.storageLocation);
         this.request = request;
+        this.rangedDownloader = new RangedDownloader(request, inputStream -> request.downloadGovernor.throttle(inputStream, null));
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            rangedDownloader.close();
+        }
+    }
+
+    protected InputStream throttle(final InputStream inputStream) {
+        return request.downloadGovernor.throttle(inputStream, null);
+    }
+
+    /**
+     * @param digest digest of a download the stream belongs to, if not null, the stream is hashed as it is read
+     */
+    protected InputStream throttle(final InputStream inputStream, final DownloadDigest digest) throws Exception {
+        return throttle(digest == null ? inputStream : digest.hash(inputStream));
     }
 
     public String downloadFileToString(final RemoteObjectReference objectReference, boolean isEncrypted) throws Exception {
@@ -29,6 +77,163 @@ public abstract class Restorer extends StorageInteractor {
         downloadFile(localPath, null, objectReference);
     }
 
+    /**
+     * Downloads a file, a restorer which downloads it as a single stream hashes that stream by given digest.
+     * A restorer which does not override this leaves the digest empty so a file is verified by reading it.
+     */
+    protected void downloadFile(final Path localPath,
+                                final ManifestEntry manifestEntry,
+                                final RemoteObjectReference objectReference,
+                                final DownloadDigest digest) throws Exception {
+        downloadFile(localPath, manifestEntry, objectReference);
+    }
+
+    /**
+     * Downloads a file and computes its hash from the very bytes which are written to disk so it does not need
+     * to be read again to be verified.
+     *
+     * @return hash of downloaded file or null if it could not be computed while downloading
+     */
+    public String downloadAndHashFile(final Path localPath,
+                                      final ManifestEntry manifestEntry,
+                                      final RemoteObjectReference objectReference,
+                                      final HashSpec hashSpec) throws Exception {
+        final DownloadDigest digest = new DownloadDigest(hashSpec);
+        downloadFile(localPath, manifestEntry, objectReference, digest);
+        return digest.getHash(localPath);
+    }
+
+    /**
+     * Hash of a downloaded file computed from the stream it was written from, or from its ranges in order of their offsets
+     * when it was downloaded in ranges. It is passed to a download explicitly so it does not matter which thread reads the stream.
+     */
+    public static class DownloadDigest {
+
+        private final HashSpec hashSpec;
+        private volatile HashingInputStream hashingStream;
+        private volatile IncrementalHasher rangesHasher;
+        private volatile long rangesBytesHashed;
+
+        public DownloadDigest(final HashSpec hashSpec) {
+            this.hashSpec = hashSpec;
+        }
+
+        public InputStream hash(final InputStream inputStream) throws Exception {
+            final HashingInputStream stream = new HashingInputStream(inputStream, hashSpec);
+            hashingStream = stream;
+            return stream;
+        }
+
+        /**
+         * Hashes bytes of a file downloaded in ranges, they have to be given in order of their offsets, by one thread at a time.
+         */
+        public void update(final byte[] bytes, final int offset, final int length) throws Exception {
+            if (rangesHasher == null) {
+                rangesHasher = hashSpec.algorithm.getHasher().incremental();
+            }
+
+            rangesHasher.update(bytes, offset, length);
+            rangesBytesHashed += length;
+        }
+
+        /**
+         * @return hash of a downloaded file or null if nothing was hashed or it was not the whole file
+         */
+        public String getHash(final Path localPath) throws Exception {
+            final HashingInputStream stream = hashingStream;
+
+            if (stream != null) {
+                return Files.exists(localPath) && stream.getBytesRead() == Files.size(localPath) ? stream.getHash() : null;
+            }
+
+            final IncrementalHasher hasher = rangesHasher;
+
+            if (hasher != null && Files.exists(localPath) && rangesBytesHashed == Files.size(localPath)) {
+                return hasher.getHash();
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * Synchronises a local cache of manifests with a bucket. Manifests never change once they are written so only
+     * manifests which are not cached yet are downloaded, concurrently up to the number of concurrent connections
+     * of a request. Everything else in the cache, e.g. manifests of removed backups, is deleted.
+     *
+     * @param downloadDir  local cache dir
+     * @param manifestKeys object keys of all manifests in a bucket, a manifest is cached under its key in the cache dir
+     */
+    public void syncManifestsToDirectory(final Path downloadDir, final List<Path> manifestKeys) throws Exception {
+        Files.createDirectories(downloadDir);
+
+        final Set<Path> expected = new HashSet<>();
+
+        for (final Path manifestKey : manifestKeys) {
+            expected.add(downloadDir.resolve(manifestKey));
+        }
+
+        int deleted = 0;
+
+        try (final Stream<Path> files = Files.walk(downloadDir)) {
+            for (final Path path : files.sorted(Comparator.reverseOrder()).collect(toList())) {
+                if (path.equals(downloadDir)) {
+                    continue;
+                }
+
+                if (Files.isDirectory(path)) {
+                    try (final Stream<Path> children = Files.list(path)) {
+                        if (!children.findAny().isPresent()) {
+                            Files.delete(path);
+                        }
+                    }
+                } else if (!expected.contains(path)) {
+                    Files.delete(path);
+                    deleted++;
+                }
+            }
+        }
+
+        final List<Path> missing = manifestKeys.stream().filter(key -> !Files.exists(downloadDir.resolve(key))).collect(toList());
+
+        if (!missing.isEmpty()) {
+            final int concurrency = Math.min(missing.size(), request.concurrentConnections == null ? 10 : Math.max(1, request.concurrentConnections));
+            final ListeningExecutorService executorService = new FixedTasksExecutorSupplier().get(concurrency);
+
+            try {
+                final List<ListenableFuture<Void>> downloads = new ArrayList<>();
+
+                for (final Path manifestKey : missing) {
+                    downloads.add(executorService.submit(() -> {
+                        final Path destination = downloadDir.resolve(manifestKey);
+                        // a manifest is cached only once it is complete so an interrupted sync does not leave a torn one behind
+                        final Path tempFile = destination.resolveSibling(destination.getFileName() + ".download");
+
+                        try {
+                            Files.createDirectories(destination.getParent());
+                            downloadFile(tempFile, objectKeyToRemoteReference(manifestKey));
+                            Files.move(tempFile, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                        } finally {
+                            Files.deleteIfExists(tempFile);
+                        }
+
+                        return null;
+                    }));
+                }
+
+                Futures.allAsList(downloads).get();
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+
+        logger.info("Synchronised manifests in {}: {} downloaded, {} deleted, {} already cached",
+                    downloadDir,
+                    missing.size(),
+                    deleted,
+                    manifestKeys.size() - missing.size());
+    }
+
     // topologies are always not encrypted
     public abstract String downloadTopology(final Path remotePrefix, final Predicate<String> keyFilter) throws Exception;
 
@@ -39,4 +244,30 @@ public abstract class Restorer extends StorageInteractor {
     public abstract String downloadNodeFile(final Path remotePrefix, final Predicate<String> keyFilter) throws Exception;
 
     public abstract void consumeFiles(final RemoteObjectReference prefix, final Consumer<RemoteObjectReference> consumer) throws Exception;
+
+    /**
+     * Consumes files under a prefix which object keys sort after a given key, in the order of their object keys,
+     * until a consumer returns false. This lists whole prefix, a restorer of a storage which lists from a key does better.
+     *
+     * @param startAfter object key, relative to a node, to consume files after
+     */
+    public void consumeFilesAfter(final RemoteObjectReference prefix,
+                                  final String startAfter,
+                                  final Predicate<RemoteObjectReference> consumer) throws Exception {
+        final List<RemoteObjectReference> references = new ArrayList<>();
+
+        consumeFiles(prefix, reference -> {
+            if (reference.getObjectKey().toString().compareTo(startAfter) > 0) {
+                references.add(reference);
+            }
+        });
+
+        references.sort(Comparator.comparing(reference -> reference.getObjectKey().toString()));
+
+        for (final RemoteObjectReference reference : references) {
+            if (!consumer.test(reference)) {
+                return;
+            }
+        }
+    }
 }
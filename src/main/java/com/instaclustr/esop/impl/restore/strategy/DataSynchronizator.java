@@ -1,17 +1,32 @@
 package com.instaclustr.esop.impl.restore.strategy;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import com.google.common.base.Throwables;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -21,9 +36,11 @@ import com.instaclustr.esop.impl.Manifest;
 import com.instaclustr.esop.impl.ManifestEntry;
 import com.instaclustr.esop.impl.SSTableUtils;
 import com.instaclustr.esop.impl.restore.RestoreOperationRequest;
+import com.instaclustr.measure.DataSize;
 
 import static com.instaclustr.io.FileUtils.cleanDirectory;
 import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toCollection;
 import static java.util.stream.Collectors.toList;
 
 public class DataSynchronizator {
@@ -55,6 +72,37 @@ public class DataSynchronizator {
 
         logger.info("Restoring to existing cluster: {}", localDataFiles.size() > 0);
 
+        return execute(entriesFromManifest, localDataFiles);
+    }
+
+    /**
+     * Computes which entries of a manifest have to be downloaded and which local files have to be deleted.
+     * <p>
+     * Entries are indexed by their local paths (e.g. "keyspace/table-with-id/me-5-big-Data.db") and local files
+     * by their trailing parts of the same lengths, so matching a file to an entry is a lookup rather than a scan
+     * of the other side. SSTables which are on both sides are compared in parallel and the hash of every SSTable
+     * is computed once, not for each of its components.
+     */
+    public DataSynchronizator execute(final List<ManifestEntry> entriesFromManifest, final Set<Path> localDataFiles) {
+        final Map<Path, ManifestEntry> manifestIndex = new HashMap<>();
+
+        for (final ManifestEntry entryFromManifest : entriesFromManifest) {
+            manifestIndex.putIfAbsent(entryFromManifest.localFile, entryFromManifest);
+        }
+
+        // entries of secondary indexes are one level deeper
+        final SortedSet<Integer> depths = manifestIndex.keySet().stream().map(Path::getNameCount).collect(toCollection(TreeSet::new));
+
+        final Map<Path, Path> localIndex = new HashMap<>();
+
+        for (final Path localDataFile : localDataFiles) {
+            final Path absoluteLocalDataFile = localDataFile.toAbsolutePath();
+
+            for (final int depth : depths) {
+                tail(absoluteLocalDataFile, depth).ifPresent(tail -> localIndex.putIfAbsent(tail, localDataFile));
+            }
+        }
+
         // the first round, see what is in manifest and what is currently present,
         // if it is not present, we will download it
 
@@ -64,7 +112,7 @@ public class DataSynchronizator {
                 continue;
             }
 
-            if (CassandraData.containsFile(localDataFiles, entryFromManifest.localFile)) {
+            if (localIndex.containsKey(entryFromManifest.localFile)) {
                 // this file exists on a local disk as well as in manifest, there is nothing to download nor remove
                 logger.info(String.format("%s found locally, not downloading", entryFromManifest.localFile));
             } else {
@@ -77,23 +125,121 @@ public class DataSynchronizator {
         // if it is not in manifest, we need to delete it,
         // otherwise we compare hashes, if they do not match, we delete as well
 
+        final Map<Path, ManifestEntry> filesToCompare = new HashMap<>();
+
         for (final Path localExistingFile : localDataFiles) {
-            final Optional<ManifestEntry> first = entriesFromManifest.stream().filter(me -> localExistingFile.endsWith(me.localFile)).findFirst();
+            final Optional<ManifestEntry> entry = depths.stream()
+                .map(depth -> tail(localExistingFile, depth).map(manifestIndex::get).orElse(null))
+                .filter(Objects::nonNull)
+                .findFirst();
 
-            if (first.isPresent()) {
-                // if it exists, hash has to be same, otherwise delete it
-                if (!SSTableUtils.isExistingSStable(localExistingFile,
-                                                    first.get().objectKey.getName(SSTableUtils.isSecondaryIndexManifest(first.get().objectKey) ? 4 : 3).toString())) {
-                    filesToDelete.add(localExistingFile);
-                }
+            if (entry.isPresent()) {
+                filesToCompare.put(localExistingFile, entry.get());
             } else {
                 filesToDelete.add(localExistingFile);
             }
         }
 
+        filesToDelete.addAll(findChangedFiles(filesToCompare));
+
+        logger.info("{} files ({}) to download, {} local files ({}) to delete",
+                    entriesToDownload.size(),
+                    DataSize.bytesToHumanReadable(getDownloadSize()),
+                    filesToDelete.size(),
+                    DataSize.bytesToHumanReadable(getDeletionSize()));
+
         return this;
     }
 
+    private List<Path> findChangedFiles(final Map<Path, ManifestEntry> filesToCompare) {
+        if (filesToCompare.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // hashes of SSTables by their local base paths, e.g. "/var/lib/cassandra/data/ks/table-with-id/me-5-big"
+        final Map<Path, String> sstableHashes = new ConcurrentHashMap<>();
+
+        final int parallelism = request.concurrentConnections == null ? 10 : Math.max(1, request.concurrentConnections);
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+
+        try {
+            return pool.submit(() -> filesToCompare.entrySet()
+                .parallelStream()
+                .filter(file -> !isExistingSSTable(file.getKey(), file.getValue(), sstableHashes))
+                .map(Map.Entry::getKey)
+                .collect(toList())).get();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while comparing local files with a manifest", ex);
+        } catch (final ExecutionException ex) {
+            Throwables.throwIfUnchecked(ex.getCause());
+            throw new IllegalStateException("Unable to compare local files with a manifest", ex.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static boolean isExistingSSTable(final Path localFile, final ManifestEntry entry, final Map<Path, String> sstableHashes) {
+        // objectKey is "data/keyspace/table/gen-hash/entry.db", one level deeper for secondary indexes
+        final String sstable = entry.objectKey.getName(SSTableUtils.isSecondaryIndexManifest(entry.objectKey) ? 4 : 3).toString();
+
+        final Matcher matcher = SSTableUtils.SSTABLE_RE.matcher(localFile.getFileName().toString());
+
+        if (!matcher.matches()) {
+            return SSTableUtils.isExistingSStable(localFile, sstable);
+        }
+
+        // all components of an SSTable have the same hash
+        final String localHash = sstableHashes.computeIfAbsent(localFile.resolveSibling(matcher.group(1)), sstableBase -> {
+            try {
+                return SSTableUtils.sstableHash(localFile);
+            } catch (final IOException ex) {
+                // SSTableUtils.sstableHash may throw exception if SSTable has not been probably downloaded
+                logger.error(ex.getMessage());
+                return "";
+            }
+        });
+
+        return localHash.equals(sstable);
+    }
+
+    private static Optional<Path> tail(final Path path, final int depth) {
+        final int nameCount = path.getNameCount();
+
+        if (nameCount < depth) {
+            return Optional.empty();
+        }
+
+        return Optional.of(path.subpath(nameCount - depth, nameCount));
+    }
+
+    public long getDownloadSize() {
+        return entriesToDownload.stream().mapToLong(entry -> entry.size).sum();
+    }
+
+    public long getDeletionSize() {
+        return filesToDelete.stream().mapToLong(DataSynchronizator::sizeOf).sum();
+    }
+
+    /**
+     * Logs every file to download and to delete together with their sizes.
+     */
+    public void logPlan() {
+        entriesToDownload.forEach(entry -> logger.info("To download: {} ({})", entry.objectKey, DataSize.bytesToHumanReadable(entry.size)));
+        filesToDelete.forEach(file -> logger.info("To delete: {} ({})", file, DataSize.bytesToHumanReadable(sizeOf(file))));
+
+        logger.info("Total to download: {} files, {}", entriesToDownload.size(), DataSize.bytesToHumanReadable(getDownloadSize()));
+        logger.info("Total to delete: {} files, {}", filesToDelete.size(), DataSize.bytesToHumanReadable(getDeletionSize()));
+    }
+
+    private static long sizeOf(final Path file) {
+        try {
+            return Files.size(file);
+        } catch (final IOException ex) {
+            return 0;
+        }
+    }
+
     public static abstract class SSTableClassifier<ENTRY_TYPE> {
 
         // some/path/keyspace/tableId/me-1-big-Data.db
@@ -134,21 +280,170 @@ public class DataSynchronizator {
             return classified;
         }
 
+        /**
+         * @return number of bytes an entry takes
+         */
+        public abstract long getSize(ENTRY_TYPE entry);
+
+        /**
+         * @return true if mapped entries take space in data dirs they are mapped to
+         */
+        protected boolean takesSpace() {
+            return true;
+        }
+
+        /**
+         * Maps SSTables to data dirs of a request. SSTables are placed from the biggest one, each to a data dir with
+         * the most usable space left after SSTables placed before, so disks of a node fill up evenly. Data dirs on the same
+         * disk share its space. If entries do not take space, SSTables are placed to data dirs with the least bytes
+         * placed to them.
+         *
+         * @throws IllegalStateException if some SSTable does not fit into any data dir, before anything is placed
+         */
         public void map(final Map<String, List<ENTRY_TYPE>> classified,
                         final RestoreOperationRequest request) {
-            Iterator<Map.Entry<String, List<ENTRY_TYPE>>> iterator = classified.entrySet().iterator();
+            final List<Path> dataDirs = request.dataDirs;
 
-            int sstableNumber = 0;
-            int numberOfDataDirs = request.dataDirs.size();
+            final Map<String, Long> sizes = new HashMap<>();
 
-            while (iterator.hasNext()) {
-                final Map.Entry<String, List<ENTRY_TYPE>> next = iterator.next();
-                final Path dataDir = request.dataDirs.get(sstableNumber % numberOfDataDirs);
-                List<ENTRY_TYPE> mapping = mapping(next.getValue(), dataDir);
-                next.setValue(mapping);
-                ++sstableNumber;
+            for (final Map.Entry<String, List<ENTRY_TYPE>> sstable : classified.entrySet()) {
+                sizes.put(sstable.getKey(), sstable.getValue().stream().mapToLong(this::getSize).sum());
+            }
+
+            final Map<Path, FileStore> fileStores = new HashMap<>();
+            final Map<FileStore, Long> usableSpace = new HashMap<>();
+
+            if (takesSpace()) {
+                for (final Path dataDir : dataDirs) {
+                    final FileStore fileStore = getFileStore(dataDir);
+                    fileStores.put(dataDir, fileStore);
+                    usableSpace.computeIfAbsent(fileStore, DataSynchronizator::getUsableSpace);
+                }
+            }
+
+            final Map<Path, Long> placedBytes = new HashMap<>();
+            dataDirs.forEach(dataDir -> placedBytes.put(dataDir, 0L));
+
+            final List<String> sstables = new ArrayList<>(classified.keySet());
+            sstables.sort(Comparator.comparing(sizes::get).reversed());
+
+            final Map<String, Path> placement = new HashMap<>();
+
+            for (final String sstable : sstables) {
+                final long size = sizes.get(sstable);
+
+                Path target = null;
+
+                for (final Path dataDir : dataDirs) {
+                    if (takesSpace() && usableSpace.get(fileStores.get(dataDir)) < size) {
+                        continue;
+                    }
+
+                    if (target == null || isBetter(dataDir, target, fileStores, usableSpace, placedBytes)) {
+                        target = dataDir;
+                    }
+                }
+
+                if (target == null) {
+                    throw new IllegalStateException(String.format("SSTable %s of size %s does not fit into any of data dirs %s, most usable space left is %s",
+                                                                  sstable,
+                                                                  DataSize.bytesToHumanReadable(size),
+                                                                  dataDirs,
+                                                                  DataSize.bytesToHumanReadable(usableSpace.values().stream().mapToLong(Long::longValue).max().orElse(0))));
+                }
+
+                placement.put(sstable, target);
+                placedBytes.merge(target, size, Long::sum);
+
+                if (takesSpace()) {
+                    usableSpace.merge(fileStores.get(target), -size, Long::sum);
+                }
+            }
+
+            for (final Map.Entry<String, List<ENTRY_TYPE>> sstable : classified.entrySet()) {
+                sstable.setValue(mapping(sstable.getValue(), placement.get(sstable.getKey())));
             }
         }
+
+        private boolean isBetter(final Path dataDir,
+                                 final Path target,
+                                 final Map<Path, FileStore> fileStores,
+                                 final Map<FileStore, Long> usableSpace,
+                                 final Map<Path, Long> placedBytes) {
+            if (takesSpace()) {
+                final int bySpace = Long.compare(usableSpace.get(fileStores.get(dataDir)), usableSpace.get(fileStores.get(target)));
+
+                if (bySpace != 0) {
+                    return bySpace > 0;
+                }
+            }
+
+            return placedBytes.get(dataDir) < placedBytes.get(target);
+        }
+    }
+
+    private static FileStore getFileStore(final Path dataDir) {
+        // a data dir might not exist yet, its disk is the disk of its closest existing parent
+        Path existing = dataDir.toAbsolutePath();
+
+        while (existing != null && !Files.exists(existing)) {
+            existing = existing.getParent();
+        }
+
+        try {
+            return Files.getFileStore(existing == null ? dataDir.toAbsolutePath().getRoot() : existing);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(String.format("Unable to resolve disk of data dir %s", dataDir), ex);
+        }
+    }
+
+    private static long getUsableSpace(final FileStore fileStore) {
+        try {
+            return fileStore.getUsableSpace();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(String.format("Unable to resolve usable space of %s", fileStore), ex);
+        }
+    }
+
+    /**
+     * Orders entries so consecutive ones are downloaded to different data dirs, so all disks are written to at once
+     * rather than one after another.
+     */
+    public static List<ManifestEntry> interleaveByDataDir(final List<ManifestEntry> entries, final List<Path> dataDirs) {
+        final Map<Path, List<ManifestEntry>> byDataDir = new LinkedHashMap<>();
+        dataDirs.forEach(dataDir -> byDataDir.put(dataDir, new ArrayList<>()));
+
+        final List<ManifestEntry> elsewhere = new ArrayList<>();
+
+        for (final ManifestEntry entry : entries) {
+            final Optional<Path> dataDir = dataDirs.stream().filter(dir -> entry.localFile.startsWith(dir)).findFirst();
+
+            if (dataDir.isPresent()) {
+                byDataDir.get(dataDir.get()).add(entry);
+            } else {
+                elsewhere.add(entry);
+            }
+        }
+
+        final List<ManifestEntry> interleaved = new ArrayList<>(entries.size());
+        final List<Iterator<ManifestEntry>> iterators = byDataDir.values().stream().map(List::iterator).collect(toList());
+
+        boolean added = true;
+
+        while (added) {
+            added = false;
+
+            for (final Iterator<ManifestEntry> iterator : iterators) {
+                if (iterator.hasNext()) {
+                    interleaved.add(iterator.next());
+                    added = true;
+                }
+            }
+        }
+
+        interleaved.addAll(elsewhere);
+
+        return interleaved;
     }
 
     public static class ManifestEntrySSTableClassifier extends SSTableClassifier<ManifestEntry> {
@@ -164,6 +459,11 @@ public class DataSynchronizator {
             }
         }
 
+        @Override
+        public long getSize(final ManifestEntry entry) {
+            return entry.size;
+        }
+
         @Override
         public List<ManifestEntry> mapping(List<ManifestEntry> entries, Path path) {
             for (final ManifestEntry entry : entries) {
@@ -186,6 +486,17 @@ public class DataSynchronizator {
             return request.importing.sourceDir.relativize(entry).toString();
         }
 
+        @Override
+        public long getSize(final Path entry) {
+            return sizeOf(entry);
+        }
+
+        @Override
+        protected boolean takesSpace() {
+            // hardlinks do not take any space
+            return false;
+        }
+
         @Override
         public List<Path> mapping(List<Path> entries, Path path) {
             return entries.stream().map(entry -> path.resolve(request.importing.sourceDir.relativize(entry))).collect(toList());
@@ -96,6 +96,12 @@ public class InPlaceRestorationStrategy implements RestorationStrategy {
 
             final DataSynchronizator synchronizator = new DataSynchronizator(manifest, request).execute();
 
+            if (request.dryRun) {
+                logger.info("Dry run of restoration of snapshot {}, nothing will be downloaded nor deleted", request.snapshotTag);
+                synchronizator.logPlan();
+                return;
+            }
+
             // here we need to categorize into what data dir entries to download will be downloaded
             // categorization will set "localFile" on manifest entry
             // we need to do it in such a way that sstables belonging together will be placed into same dir
@@ -109,10 +115,11 @@ public class InPlaceRestorationStrategy implements RestorationStrategy {
             try {
                 downloadSession = downloadTracker.submit(restorer,
                                                          operation,
-                                                         synchronizator.entriesToDownload(),
+                                                         DataSynchronizator.interleaveByDataDir(synchronizator.entriesToDownload(), request.dataDirs),
                                                          operation.request.snapshotTag, operation.request.concurrentConnections);
                 downloadSession.waitUntilConsideredFinished();
                 downloadTracker.cancelIfNecessary(downloadSession);
+                logger.info("Download throughput: {}", operation.request.downloadGovernor.getThroughput());
             } finally {
                 downloadTracker.removeSession(downloadSession);
             }
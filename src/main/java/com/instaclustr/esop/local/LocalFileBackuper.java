@@ -73,14 +73,14 @@ public class LocalFileBackuper extends Backuper {
     }
 
     @Override
-    public void uploadText(final String text, final RemoteObjectReference objectReference) throws Exception {
+    public void uploadBytes(final byte[] bytes, final RemoteObjectReference objectReference) throws Exception {
         Path dir = request.storageLocation.fileBackupDirectory.resolve(request.storageLocation.bucket);
         if (objectReference.objectKey.startsWith("topology/")) {
             Files.createDirectories(dir.resolve(objectReference.objectKey).getParent());
-            Files.write(dir.resolve(objectReference.objectKey), text.getBytes());
+            Files.write(dir.resolve(objectReference.objectKey), bytes);
         } else {
             Files.createDirectories(dir.resolve(objectReference.canonicalPath).getParent());
-            Files.write(dir.resolve(objectReference.canonicalPath), text.getBytes());
+            Files.write(dir.resolve(objectReference.canonicalPath), bytes);
         }
     }
 
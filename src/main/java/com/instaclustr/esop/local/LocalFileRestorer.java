@@ -1,6 +1,7 @@
 package com.instaclustr.esop.local;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileVisitResult;
@@ -15,6 +16,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,10 +25,13 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import com.instaclustr.esop.impl.Manifest;
+import com.instaclustr.esop.impl.Manifest.AllManifestsReport;
 import com.instaclustr.esop.impl.Manifest.ManifestAgePathComparator;
 import com.instaclustr.esop.impl.Manifest.ManifestReporter.ManifestReport;
+import com.instaclustr.esop.impl.ManifestCompression;
 import com.instaclustr.esop.impl.ManifestEntry;
 import com.instaclustr.esop.impl.ManifestEntry.Type;
+import com.instaclustr.esop.impl.ManifestSummaryReader;
 import com.instaclustr.esop.impl.RemoteObjectReference;
 import com.instaclustr.esop.impl.StorageLocation;
 import com.instaclustr.esop.impl.list.ListOperationRequest;
@@ -95,6 +100,14 @@ public class LocalFileRestorer extends Restorer {
 
     @Override
     public void downloadFile(final Path localFilePath, ManifestEntry manifestEntry, final RemoteObjectReference objectReference) throws Exception {
+        downloadFile(localFilePath, manifestEntry, objectReference, null);
+    }
+
+    @Override
+    protected void downloadFile(final Path localFilePath,
+                                final ManifestEntry manifestEntry,
+                                final RemoteObjectReference objectReference,
+                                final DownloadDigest digest) throws Exception {
         final Path remoteFilePath = request.storageLocation.fileBackupDirectory
             .resolve(request.storageLocation.bucket)
             .resolve(Paths.get(objectReference.canonicalPath));
@@ -102,7 +115,9 @@ public class LocalFileRestorer extends Restorer {
         //Assume that any path passed in to this function is a file
         Files.createDirectories(localFilePath.getParent());
 
-        Files.copy(remoteFilePath, localFilePath, StandardCopyOption.REPLACE_EXISTING);
+        try (final InputStream inputStream = throttle(Files.newInputStream(remoteFilePath), digest)) {
+            Files.copy(inputStream, localFilePath, StandardCopyOption.REPLACE_EXISTING);
+        }
     }
 
     @Override
@@ -125,7 +140,7 @@ public class LocalFileRestorer extends Restorer {
     public String downloadManifest(final Path remotePrefix, final Predicate<String> keyFilter) throws Exception {
         final Path pathToList = Paths.get(request.storageLocation.rawLocation.replaceAll("file://", "")).resolve(remotePrefix);
         final String blobItem = getManifest(pathToList, keyFilter, remotePrefix);
-        return new String(Files.readAllBytes(Paths.get(blobItem)));
+        return ManifestCompression.toString(Files.newInputStream(Paths.get(blobItem)));
     }
 
     @Override
@@ -173,14 +188,38 @@ public class LocalFileRestorer extends Restorer {
             .filter(Files::isRegularFile)
             .collect(toList());
 
+        final Path nodeDirectory = request.storageLocation.fileBackupDirectory.resolve(request.storageLocation.bucket).resolve(resolveNodeAwareRemoteRoot());
+
         for (final Path path : pathsList) {
-            consumer.accept(objectKeyToNodeAwareRemoteReference(path));
+            // object keys are relative to a node as they are for other storages
+            consumer.accept(objectKeyToNodeAwareRemoteReference(nodeDirectory.relativize(path)));
         }
     }
 
     @Override
     public List<Manifest> listManifests() throws Exception {
         assert objectMapper != null;
+
+        final List<Manifest> manifestsList = new ArrayList<>();
+
+        for (final ManifestEntry manifest : listManifestEntries()) {
+            final Manifest read = Manifest.read(manifest.localFile, objectMapper);
+            read.setManifest(manifest);
+            manifestsList.add(read);
+        }
+
+        Manifest.materialize(manifestsList);
+
+        return manifestsList;
+    }
+
+    @Override
+    public AllManifestsReport reportManifests() throws Exception {
+        assert objectMapper != null;
+        return AllManifestsReport.report(listManifestEntries(), new ManifestSummaryReader(objectMapper));
+    }
+
+    private List<ManifestEntry> listManifestEntries() throws Exception {
         Path path;
         if (!storageLocation.cloudLocation)
              path = Paths.get(storageLocation.rawLocation.replaceAll("file://", ""), "manifests");
@@ -190,19 +229,11 @@ public class LocalFileRestorer extends Restorer {
         if (!Files.exists(path))
             return Collections.emptyList();
 
-        final List<Path> manifests = Files.list(path)
-            .sorted(new ManifestAgePathComparator())
-            .collect(toList());
-
-        final List<Manifest> manifestsList = new ArrayList<>();
-
-        for (final Path manifest : manifests) {
-            final Manifest read = Manifest.read(manifest, objectMapper);
-            read.setManifest(new ManifestEntry(Paths.get("manifests", manifest.getFileName().toString()), manifest, Type.FILE, null, null));
-            manifestsList.add(read);
+        try (final Stream<Path> manifests = Files.list(path)) {
+            return manifests.sorted(new ManifestAgePathComparator())
+                            .map(manifest -> new ManifestEntry(Paths.get("manifests", manifest.getFileName().toString()), manifest, Type.FILE, null, null))
+                            .collect(toList());
         }
-
-        return manifestsList;
     }
 
     @Override
@@ -1,17 +1,32 @@
 
 package com.instaclustr.esop.s3.v2;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.security.MessageDigest;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+
 import com.instaclustr.esop.impl.hash.HashSpec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,8 +38,11 @@ import com.instaclustr.esop.impl.backup.BackupCommitLogsOperationRequest;
 import com.instaclustr.esop.impl.backup.BackupOperationRequest;
 import com.instaclustr.esop.impl.backup.Backuper;
 import com.instaclustr.esop.impl.backup.BaseBackupOperationRequest;
+import com.instaclustr.esop.impl.retry.Retrier.RetriableException;
 import com.instaclustr.esop.s3.S3RemoteObjectReference;
 import com.instaclustr.esop.s3.v2.S3ClientsFactory.S3Clients;
+import com.instaclustr.threading.Executors.FixedTasksExecutorSupplier;
+import com.instaclustr.measure.DataSize;
 import software.amazon.awssdk.core.sync.RequestBody;
 import software.amazon.awssdk.core.waiters.WaiterOverrideConfiguration;
 import software.amazon.awssdk.services.s3.S3Client;
@@ -36,19 +54,18 @@ import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
 import software.amazon.awssdk.services.s3.model.CompletedPart;
 import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
 import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
-import software.amazon.awssdk.services.s3.model.GetObjectAttributesRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectAttributesResponse;
 import software.amazon.awssdk.services.s3.model.GetObjectTaggingRequest;
 import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
 import software.amazon.awssdk.services.s3.model.ListMultipartUploadsRequest;
 import software.amazon.awssdk.services.s3.model.ListMultipartUploadsResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
 import software.amazon.awssdk.services.s3.model.MultipartUpload;
 import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
-import software.amazon.awssdk.services.s3.model.ObjectAttributes;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectTaggingRequest;
 import software.amazon.awssdk.services.s3.model.PutObjectTaggingResponse;
 import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
 import software.amazon.awssdk.services.s3.model.SdkPartType;
 import software.amazon.awssdk.services.s3.model.StorageClass;
 import software.amazon.awssdk.services.s3.model.Tag;
@@ -57,6 +74,7 @@ import software.amazon.awssdk.services.s3.model.UploadPartRequest;
 import software.amazon.awssdk.services.s3.model.UploadPartResponse;
 import software.amazon.encryption.s3.S3EncryptionClient;
 
+import static com.instaclustr.esop.impl.retry.RetrierFactory.getRetrier;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 public class BaseS3Backuper extends Backuper {
@@ -66,12 +84,30 @@ public class BaseS3Backuper extends Backuper {
     public final BucketService s3BucketService;
     public final MultipartAbortionService multipartAbortionService;
 
+    private static final int MAX_PARTS_IN_FLIGHT = Integer.parseInt(System.getProperty("upload.max.parts.in.flight", "4"));
+
+    private static final int HASHING_CHUNK_SIZE = 1024 * 1024;
+
+    private final PartBufferPool partBufferPool = PartBufferPool.getInstance();
+    private final ListeningExecutorService partUploadExecutor;
+
+    // below this number of files to upload, each of them is probed separately as listing would cost more
+    private static final int MIN_OBJECTS_TO_INDEX = Integer.parseInt(System.getProperty("upload.min.objects.to.index", "100"));
+
+    // prefixes of keyspaces uploaded by a backup, only objects under these are listed, null if nothing is listed
+    private volatile List<String> indexedPrefixes;
+
+    // keys of objects under indexed prefixes mapped to their sizes, listed once upon the first freshening
+    private volatile Map<String, Long> remoteObjects;
+    private volatile boolean remoteObjectsListed;
+
     public BaseS3Backuper(final S3Clients s3Clients,
                           final BackupOperationRequest request) {
         super(request);
         this.s3Clients = s3Clients;
         this.s3BucketService = new BaseS3BucketService(s3Clients);
         this.multipartAbortionService = new MultipartAbortionService(s3Clients.getClient(), this);
+        this.partUploadExecutor = createPartUploadExecutor(request);
     }
 
     public BaseS3Backuper(final S3Clients s3Clients,
@@ -80,6 +116,23 @@ public class BaseS3Backuper extends Backuper {
         this.s3Clients = s3Clients;
         this.s3BucketService = new BaseS3BucketService(s3Clients);
         this.multipartAbortionService = new MultipartAbortionService(s3Clients.getClient(), this);
+        this.partUploadExecutor = createPartUploadExecutor(request);
+    }
+
+    private ListeningExecutorService createPartUploadExecutor(final BaseBackupOperationRequest request) {
+        final int concurrentConnections = request.concurrentConnections == null ? 10 : request.concurrentConnections;
+        final int fullParts = partBufferPool.getPoolSize() / partBufferPool.getBufferSize();
+
+        if (fullParts < concurrentConnections) {
+            logger.warn("Buffer pool of {} holds only {} parts of size {}, uploads of streams bigger than that are effectively limited to {} concurrent parts, not {} concurrent connections",
+                        DataSize.bytesToHumanReadable(partBufferPool.getPoolSize()),
+                        fullParts,
+                        DataSize.bytesToHumanReadable(partBufferPool.getBufferSize()),
+                        fullParts,
+                        concurrentConnections);
+        }
+
+        return new FixedTasksExecutorSupplier().get(Math.max(1, concurrentConnections) * Math.max(1, MAX_PARTS_IN_FLIGHT));
     }
 
     @Override
@@ -95,16 +148,52 @@ public class BaseS3Backuper extends Backuper {
 
     @Override
     protected void cleanup() throws Exception {
+        partUploadExecutor.shutdown();
         s3Clients.close();
     }
 
     @Override
     public void init(List<ManifestEntry> manifestEntries) {
         multipartAbortionService.abortOrphanedMultiparts(manifestEntries, request);
+
+        // commit logs are never indexed, their archive is big and only a few of them are uploaded at once
+        if (!(request instanceof BackupOperationRequest) || manifestEntries.size() < MIN_OBJECTS_TO_INDEX) {
+            return;
+        }
+
+        // data/keyspace/table-id/... so keyspaces of uploaded files are listed, not the whole node
+        indexedPrefixes = manifestEntries.stream()
+                                         .filter(entry -> entry.type != ManifestEntry.Type.MANIFEST_FILE)
+                                         .filter(entry -> entry.objectKey.getNameCount() > 2)
+                                         .map(entry -> objectKeyToNodeAwareRemoteReference(entry.objectKey.subpath(0, 2)).canonicalPath + "/")
+                                         .distinct()
+                                         .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<String> getKmsKeyId() {
+        return s3Clients.getEncryptingClient().isPresent() ? s3Clients.getKMSKeyOfEncryptedClient() : Optional.empty();
     }
 
     @Override
     public FreshenResult freshenRemoteObject(ManifestEntry manifestEntry, RemoteObjectReference object) {
+        final Map<String, Long> remoteObjects = getRemoteObjects();
+
+        if (remoteObjects != null && isIndexed(object.canonicalPath)) {
+            final Long remoteSize = remoteObjects.get(object.canonicalPath);
+
+            if (remoteSize == null) {
+                return FreshenResult.UPLOAD_REQUIRED;
+            }
+
+            // Listing does not return tags so they have to be fetched for encrypted objects. An object of the very
+            // same size as a local file was not encrypted (encryption adds an authentication tag to it) so it needs to be
+            // uploaded again when encrypting, and it does not need to be checked at all when not encrypting.
+            if (remoteSize == manifestEntry.size) {
+                return s3Clients.getKMSKeyOfEncryptedClient().isPresent() ? FreshenResult.UPLOAD_REQUIRED : FreshenResult.FRESHENED;
+            }
+        }
+
         List<Tag> tags;
         try {
             tags = s3Clients.getNonEncryptingClient()
@@ -127,6 +216,7 @@ public class BaseS3Backuper extends Backuper {
             if (!tags.contains(kmsKeyTag)) {
                 return FreshenResult.UPLOAD_REQUIRED;
             }
+            manifestEntry.kmsKeyId = kmsKey;
             // However, if we have not set kmsKey as we do not want to encrypt
             // but remote tag contains kmsKey, then we need to basically re-upload
             // a file, but it will not be encrypted.
@@ -139,6 +229,56 @@ public class BaseS3Backuper extends Backuper {
         return FreshenResult.FRESHENED;
     }
 
+    private boolean isIndexed(final String key) {
+        return indexedPrefixes.stream().anyMatch(key::startsWith);
+    }
+
+    /**
+     * Lists objects under prefixes of keyspaces a backup uploads at once so freshening of files does not need to ask
+     * for each of them separately. Nothing is listed unless {@link #init(List)} resolved such prefixes.
+     *
+     * @return keys of remote objects under indexed prefixes with their sizes or null if they were not listed
+     */
+    private Map<String, Long> getRemoteObjects() {
+        if (remoteObjectsListed) {
+            return remoteObjects;
+        }
+
+        synchronized (this) {
+            if (remoteObjectsListed) {
+                return remoteObjects;
+            }
+
+            if (indexedPrefixes != null) {
+                try {
+                    final long start = System.currentTimeMillis();
+                    final Map<String, Long> listed = new ConcurrentHashMap<>();
+
+                    for (final String prefix : indexedPrefixes) {
+                        for (final S3Object s3Object : s3Clients.getNonEncryptingClient()
+                                                                .listObjectsV2Paginator(ListObjectsV2Request.builder()
+                                                                                                            .bucket(request.storageLocation.bucket)
+                                                                                                            .prefix(prefix)
+                                                                                                            .build())
+                                                                .contents()) {
+                            listed.put(s3Object.key(), s3Object.size());
+                        }
+                    }
+
+                    logger.info("Listed {} remote objects under {} prefixes in {} ms", listed.size(), indexedPrefixes.size(), System.currentTimeMillis() - start);
+
+                    remoteObjects = listed;
+                } catch (final Exception ex) {
+                    logger.warn("Unable to list remote objects, every object will be checked separately", ex);
+                }
+            }
+
+            remoteObjectsListed = true;
+
+            return remoteObjects;
+        }
+    }
+
     @Override
     public void uploadFile(ManifestEntry manifestEntry, InputStream localFileStream, RemoteObjectReference objectReference) {
         logger.info("Uploading {}", objectReference.canonicalPath);
@@ -177,9 +317,8 @@ public class BaseS3Backuper extends Backuper {
     }
 
     @Override
-    public void uploadText(String text, RemoteObjectReference objectReference) throws Exception {
+    public void uploadBytes(byte[] bytes, RemoteObjectReference objectReference) throws Exception {
         logger.info("Uploading {}", objectReference.canonicalPath);
-        byte[] bytes = text.getBytes(UTF_8);
 
         s3Clients.getNonEncryptingClient()
                  .putObject(getPutObjectRequest(objectReference,
@@ -239,39 +378,37 @@ public class BaseS3Backuper extends Backuper {
 
         try
         {
-            long partSize = Long.parseLong(System.getProperty("upload.max.part.size", Long.toString(100 * 1024 * 1024)));
+            long partSize = Math.min(PartBufferPool.getMaxPartSize(), partBufferPool.getBufferSize());
+
+            // parts of an encrypted object have to be uploaded sequentially as encryption is stateful across parts
+            int maxPartsInFlight = 1;
 
             if (s3Client instanceof S3EncryptionClient)
                 partSize = (partSize / 16) * 16;
-
-            int numberOfParts = (int) Math.ceil((double) manifestEntry.size / partSize);
-            List<CompletedPart> completedParts = new ArrayList<>();
-
-            byte[] buffer = new byte[(int) partSize];
-
-            for (int partNumber = 1; partNumber <= numberOfParts; partNumber++)
-            {
-                int bytesRead = localFileStream.read(buffer);
-                ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, bytesRead);
-                UploadPartRequest partRequest = UploadPartRequest.builder()
-                                                                 .bucket(request.storageLocation.bucket)
-                                                                 .key(objectReference.canonicalPath)
-                                                                 .uploadId(uploadId)
-                                                                 .partNumber(partNumber)
-                                                                 .checksumAlgorithm(ChecksumAlgorithm.SHA256)
-                                                                 .sdkPartType(partNumber == numberOfParts ? SdkPartType.LAST : SdkPartType.DEFAULT)
-                                                                 .build();
-
-                logger.info("Uploading part #{} of {}", partNumber, objectReference.canonicalPath);
-                UploadPartResponse partResponse = s3Client.uploadPart(partRequest, RequestBody.fromByteBuffer(byteBuffer));
-
-                completedParts.add(CompletedPart.builder()
-                                                .partNumber(partNumber)
-                                                .eTag(partResponse.eTag())
-                                                .checksumSHA256(partResponse.checksumSHA256())
-                                                .build());
-
-                sha256.update(byteBuffer);
+            else
+                maxPartsInFlight = MAX_PARTS_IN_FLIGHT;
+
+            List<CompletedPart> completedParts;
+
+            if (manifestEntry.localFile != null && Files.isRegularFile(manifestEntry.localFile)) {
+                completedParts = uploadFileParts(s3Client,
+                                                 localFileStream,
+                                                 manifestEntry.localFile,
+                                                 objectReference,
+                                                 uploadId,
+                                                 partSize,
+                                                 maxPartsInFlight,
+                                                 !(s3Client instanceof S3EncryptionClient),
+                                                 sha256);
+            } else {
+                completedParts = uploadParts(s3Client,
+                                             localFileStream,
+                                             objectReference,
+                                             uploadId,
+                                             manifestEntry.size,
+                                             (int) partSize,
+                                             maxPartsInFlight,
+                                             sha256);
             }
 
             // Complete the multipart upload
@@ -302,9 +439,11 @@ public class BaseS3Backuper extends Backuper {
 
             logger.debug("Object under key " + objectReference.canonicalPath + " exists");
 
+            byte[] fullObjectDigest = sha256.digest();
+
             Tag checksumTag = Tag.builder()
                     .key("fullObjectChecksum")
-                    .value(HashSpec.HashAlgorithm.SHA_256.getHasher().getHash(sha256.digest()))
+                    .value(HashSpec.HashAlgorithm.SHA_256.getHasher().getHash(fullObjectDigest))
                     .build();
 
             PutObjectTaggingResponse putObjectTaggingResponse = s3Client.putObjectTagging(PutObjectTaggingRequest.builder()
@@ -317,29 +456,297 @@ public class BaseS3Backuper extends Backuper {
             } else {
                 logger.debug("Tagged {} with {}", objectReference.canonicalPath, checksumTag.toString());
             }
+        } catch (Throwable t) {
+            t.printStackTrace();
+            multipartAbortionService.abortMultipartUpload(uploadId, request, objectReference);
+            throw new RuntimeException(t);
+        }
+    }
+
+    /**
+     * Uploads parts of a local file concurrently, at most maxPartsInFlight parts at a time. The stream of the file
+     * is read just once, sequentially, to compute the full object digest and part checksums (and whatever
+     * the stream itself computes, e.g. a hash for a manifest). Part bodies are then sent from the file by positional reads,
+     * hitting the page cache, so a part of a plain object is retried on its own and it is never copied to heap as a whole.
+     * Parts of an encrypted object are not retried, a failed upload is aborted and the upload unit uploads whole object again.
+     *
+     * @param withPartChecksums if true, SHA-256 of every part is computed here so it is not computed again upon sending
+     * @return completed parts ordered by their part number
+     */
+    private List<CompletedPart> uploadFileParts(S3Client s3Client,
+                                                InputStream localFileStream,
+                                                Path localFile,
+                                                RemoteObjectReference objectReference,
+                                                String uploadId,
+                                                long partSize,
+                                                int maxPartsInFlight,
+                                                boolean withPartChecksums,
+                                                MessageDigest sha256) throws Exception {
+        final boolean encrypted = s3Client instanceof S3EncryptionClient;
+
+        try (FileChannel channel = FileChannel.open(localFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int numberOfParts = (int) Math.max(1, (size + partSize - 1) / partSize);
+
+            Semaphore inFlight = new Semaphore(maxPartsInFlight);
+            List<ListenableFuture<CompletedPart>> parts = new ArrayList<>();
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            byte[] chunk = new byte[HASHING_CHUNK_SIZE];
+
+            try {
+                for (int partNumber = 1; partNumber <= numberOfParts && failure.get() == null; partNumber++) {
+                    long position = (partNumber - 1) * partSize;
+                    long length = Math.min(partSize, size - position);
+
+                    inFlight.acquire();
+
+                    String partChecksum;
+
+                    try {
+                        MessageDigest partDigest = withPartChecksums ? prepareMessageDigest() : null;
+
+                        for (long offset = 0; offset < length; ) {
+                            int read = localFileStream.read(chunk, 0, (int) Math.min(chunk.length, length - offset));
+
+                            if (read == -1) {
+                                throw new IllegalStateException(String.format("File %s was truncated while being uploaded", localFile));
+                            }
+
+                            sha256.update(chunk, 0, read);
+
+                            if (partDigest != null) {
+                                partDigest.update(chunk, 0, read);
+                            }
+
+                            offset += read;
+                        }
+
+                        partChecksum = partDigest != null ? getDigest(partDigest.digest()) : null;
+                    } catch (Throwable t) {
+                        inFlight.release();
+                        throw t;
+                    }
+
+                    UploadPartRequest partRequest = UploadPartRequest.builder()
+                                                                     .bucket(request.storageLocation.bucket)
+                                                                     .key(objectReference.canonicalPath)
+                                                                     .uploadId(uploadId)
+                                                                     .partNumber(partNumber)
+                                                                     .checksumAlgorithm(ChecksumAlgorithm.SHA256)
+                                                                     .checksumSHA256(partChecksum)
+                                                                     .sdkPartType(partNumber == numberOfParts ? SdkPartType.LAST : SdkPartType.DEFAULT)
+                                                                     .build();
+
+                    // bytes were already accounted by the bandwidth governor when the part was read from the stream
+                    RequestBody partBody = RequestBody.fromContentProvider(() -> new FileRegionInputStream(channel, position, length),
+                                                                           length,
+                                                                           "application/octet-stream");
+
+                    parts.add(partUploadExecutor.submit(() -> {
+                        try {
+                            final UploadPartResponse partResponse;
+
+                            if (encrypted) {
+                                // a part of an encrypted object is encrypted by cipher state carried over from previous parts so
+                                // it can not be sent again on its own, a failure aborts the multipart upload and whole object is uploaded again
+                                logger.info("Uploading part #{} of {}", partRequest.partNumber(), objectReference.canonicalPath);
+                                partResponse = s3Client.uploadPart(partRequest, partBody);
+                            } else {
+                                partResponse = getRetrier(request.retry).submit(() -> {
+                                    try {
+                                        logger.info("Uploading part #{} of {}", partRequest.partNumber(), objectReference.canonicalPath);
+                                        return s3Client.uploadPart(partRequest, partBody);
+                                    } catch (Exception ex) {
+                                        throw new RetriableException(String.format("Retrying upload of part #%s of %s", partRequest.partNumber(), objectReference.canonicalPath), ex);
+                                    }
+                                });
+                            }
+
+                            return CompletedPart.builder()
+                                                .partNumber(partRequest.partNumber())
+                                                .eTag(partResponse.eTag())
+                                                .checksumSHA256(partResponse.checksumSHA256())
+                                                .build();
+                        } catch (Throwable t) {
+                            failure.compareAndSet(null, t);
+                            throw t;
+                        } finally {
+                            inFlight.release();
+                        }
+                    }));
+                }
+
+                return Futures.allAsList(parts).get();
+            } finally {
+                // the channel has to stay open until all parts are finished
+                Futures.successfulAsList(parts).get();
+            }
+        }
+    }
+
+    /**
+     * Reads parts from a stream sequentially into pooled buffers and uploads them concurrently,
+     * at most maxPartsInFlight parts of one object at a time. A buffer is only as big as its part,
+     * so a small object does not take a buffer of the maximal part size from the pool.
+     *
+     * @return completed parts ordered by their part number
+     */
+    private List<CompletedPart> uploadParts(S3Client s3Client,
+                                            InputStream localFileStream,
+                                            RemoteObjectReference objectReference,
+                                            String uploadId,
+                                            long size,
+                                            int partSize,
+                                            int maxPartsInFlight,
+                                            MessageDigest sha256) throws Exception {
+        int numberOfParts = (int) Math.max(1, (size + partSize - 1) / partSize);
+        ReadableByteChannel channel = Channels.newChannel(localFileStream);
+        Semaphore inFlight = new Semaphore(maxPartsInFlight);
+        List<ListenableFuture<CompletedPart>> parts = new ArrayList<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        try {
+            for (int partNumber = 1; partNumber <= numberOfParts && failure.get() == null; partNumber++) {
+                inFlight.acquire();
+
+                ByteBuffer buffer;
 
-            if (s3Clients.hasEncryptingClient()) {
                 try {
-                    GetObjectAttributesResponse objectAttributes = s3Clients.getNonEncryptingClient()
-                            .getObjectAttributes(GetObjectAttributesRequest
-                                                         .builder()
-                                                         .bucket(request.storageLocation.bucket)
-                                                         .key(objectReference.canonicalPath)
-                                                         .objectAttributes(ObjectAttributes.OBJECT_SIZE)
-                                                         .build());
-
-                    manifestEntry.size = objectAttributes.objectSize();
-                    manifestEntry.hash = Base64.getEncoder().encodeToString(sha256.digest());
+                    buffer = partBufferPool.acquire((int) Math.max(0, Math.min(partSize, size - (long) (partNumber - 1) * partSize)));
+                } catch (InterruptedException ex) {
+                    inFlight.release();
+                    throw ex;
                 }
-                catch (Throwable t) {
-                    logger.warn("Unable to get attribute {} for key {} by GetObjectAttributes request. Please check your permissions.",
-                                ObjectAttributes.OBJECT_SIZE, objectReference.canonicalPath);
+
+                try {
+                    while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+                        // reading until a part is full or there is nothing to read anymore
+                    }
+
+                    buffer.flip();
+                    sha256.update(buffer.duplicate());
+                } catch (Throwable t) {
+                    partBufferPool.release(buffer);
+                    inFlight.release();
+                    throw t;
                 }
+
+                UploadPartRequest partRequest = UploadPartRequest.builder()
+                                                                 .bucket(request.storageLocation.bucket)
+                                                                 .key(objectReference.canonicalPath)
+                                                                 .uploadId(uploadId)
+                                                                 .partNumber(partNumber)
+                                                                 .checksumAlgorithm(ChecksumAlgorithm.SHA256)
+                                                                 .sdkPartType(partNumber == numberOfParts ? SdkPartType.LAST : SdkPartType.DEFAULT)
+                                                                 .build();
+
+                final ByteBuffer partBuffer = buffer;
+
+                parts.add(partUploadExecutor.submit(() -> {
+                    try {
+                        logger.info("Uploading part #{} of {}", partRequest.partNumber(), objectReference.canonicalPath);
+
+                        UploadPartResponse partResponse = s3Client.uploadPart(partRequest,
+                                                                              RequestBody.fromContentProvider(() -> new ByteBufferInputStream(partBuffer.duplicate()),
+                                                                                                              partBuffer.remaining(),
+                                                                                                              "application/octet-stream"));
+
+                        return CompletedPart.builder()
+                                            .partNumber(partRequest.partNumber())
+                                            .eTag(partResponse.eTag())
+                                            .checksumSHA256(partResponse.checksumSHA256())
+                                            .build();
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                        throw t;
+                    } finally {
+                        partBufferPool.release(partBuffer);
+                        inFlight.release();
+                    }
+                }));
             }
-        } catch (Throwable t) {
-            t.printStackTrace();
-            multipartAbortionService.abortMultipartUpload(uploadId, request, objectReference);
-            throw new RuntimeException(t);
+
+            return Futures.allAsList(parts).get();
+        } finally {
+            // do not return before all parts are finished so their buffers are back in the pool
+            Futures.successfulAsList(parts).get();
+        }
+    }
+
+    private static class FileRegionInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        FileRegionInputStream(final FileChannel channel, final long position, final long length) {
+            this.channel = channel;
+            this.position = position;
+            this.end = position + length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+
+            if (position >= end) {
+                return -1;
+            }
+
+            int read = channel.read(ByteBuffer.wrap(bytes, offset, (int) Math.min(length, end - position)), position);
+
+            if (read > 0) {
+                position += read;
+            }
+
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, end - position);
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(final byte[] bytes, final int offset, final int length) {
+            if (length == 0) {
+                return 0;
+            }
+
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+
+            int read = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, read);
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
         }
     }
 
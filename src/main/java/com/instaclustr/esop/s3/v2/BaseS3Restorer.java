@@ -1,5 +1,6 @@
 package com.instaclustr.esop.s3.v2;
 
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -19,6 +20,8 @@ import org.slf4j.LoggerFactory;
 
 import com.instaclustr.esop.impl.BucketService;
 import com.instaclustr.esop.impl.Manifest;
+import com.instaclustr.esop.impl.Manifest.AllManifestsReport;
+import com.instaclustr.esop.impl.ManifestCompression;
 import com.instaclustr.esop.impl.ManifestEntry;
 import com.instaclustr.esop.impl.RemoteObjectReference;
 import com.instaclustr.esop.impl.StorageLocation;
@@ -141,27 +144,33 @@ public class BaseS3Restorer extends Restorer
 
     @Override
     public void downloadFile(Path localPath, ManifestEntry manifestEntry, RemoteObjectReference objectReference) throws Exception {
+        downloadFile(localPath, manifestEntry, objectReference, null);
+    }
+
+    @Override
+    protected void downloadFile(Path localPath, ManifestEntry manifestEntry, RemoteObjectReference objectReference, DownloadDigest digest) throws Exception {
 
         try {
-            GetObjectTaggingResponse taggingResponse = s3Clients.getNonEncryptingClient()
-                                                                .getObjectTagging(GetObjectTaggingRequest.builder()
-                                                                                                         .bucket(request.storageLocation.bucket)
-                                                                                                         .key(objectReference.canonicalPath)
-                                                                                                         .build());
-
-            String kmsKey = taggingResponse.tagSet()
-                                           .stream()
-                                           .filter(t -> t.key().equals("kmsKey"))
-                                           .findFirst()
-                                           .map(Tag::value)
-                                           .orElse(null);
+            String kmsKey = resolveKmsKey(manifestEntry, objectReference);
 
             // We need to resolve S3 manager which uses kms key which remote file is encrypted with,
             // so we have the right one for decryption.
-            // It is expected that every file in a logical backup will be encrypted with same KMS key
-            // however we need to resolve it per manifest entry anyway
+            // Every file in a logical backup is encrypted with the same KMS key so a client
+            // for it is created once and cached.
             S3Client s3Client = resolveS3Client(kmsKey);
 
+            // ranges of encrypted objects can not be decrypted on their own
+            if (kmsKey == null && manifestEntry != null && rangedDownloader.isRanged(manifestEntry.size)) {
+                rangedDownloader.download(localPath, manifestEntry.size, (offset, length) -> {
+                    return s3Client.getObject(GetObjectRequest.builder()
+                                                              .bucket(request.storageLocation.bucket)
+                                                              .key(objectReference.canonicalPath)
+                                                              .range(format("bytes=%s-%s", offset, offset + length - 1))
+                                                              .build());
+                }, digest);
+                return;
+            }
+
             GetObjectRequest getObjectRequest = GetObjectRequest.builder()
                                                                 .bucket(request.storageLocation.bucket)
                                                                 .key(objectReference.canonicalPath)
@@ -169,9 +178,12 @@ public class BaseS3Restorer extends Restorer
 
             FileUtils.createDirectory(localPath.getParent());
 
-            Files.copy(s3Client.getObject(getObjectRequest), localPath, StandardCopyOption.REPLACE_EXISTING);
+            try (final InputStream inputStream = throttle(s3Client.getObject(getObjectRequest), digest)) {
+                Files.copy(inputStream, localPath, StandardCopyOption.REPLACE_EXISTING);
+            }
         } catch (Throwable t) {
-            t.printStackTrace();
+            // a download unit has to see a failure so it is marked as failed and retried
+            throw new RuntimeException(format("Unable to download %s to %s", objectReference.canonicalPath, localPath), t);
         }
     }
 
@@ -185,7 +197,12 @@ public class BaseS3Restorer extends Restorer
     public String downloadManifest(Path remotePrefix, Predicate<String> keyFilter) throws Exception {
         final S3Object manifestObject = getManifest(resolveNodeAwareRemotePath(remotePrefix), keyFilter);
         final String fileName = manifestObject.key().split("/")[manifestObject.key().split("/").length - 1];
-        return downloadFileToString(objectKeyToNodeAwareRemoteReference(remotePrefix.resolve(fileName)), false);
+        final GetObjectRequest getObjectRequest = GetObjectRequest.builder()
+                                                                  .bucket(request.storageLocation.bucket)
+                                                                  .key(objectKeyToNodeAwareRemoteReference(remotePrefix.resolve(fileName)).canonicalPath)
+                                                                  .build();
+
+        return ManifestCompression.toString(s3Clients.getNonEncryptingClient().getObject(getObjectRequest));
     }
 
     @Override
@@ -210,6 +227,32 @@ public class BaseS3Restorer extends Restorer
             listObjectsV2Response.contents().stream()
                                  .filter(o -> !o.key().endsWith("/"))
                                  .forEach(o -> consumer.accept(objectKeyToNodeAwareRemoteReference(bucketPath.relativize(Paths.get(o.key())))));
+            listObjectsV2Request = listObjectsV2Request.toBuilder().continuationToken(listObjectsV2Response.nextContinuationToken()).build();
+        } while (listObjectsV2Response.isTruncated());
+    }
+
+    @Override
+    public void consumeFilesAfter(RemoteObjectReference prefix, String startAfter, Predicate<RemoteObjectReference> consumer) throws Exception {
+        final Path bucketPath = Paths.get(request.storageLocation.clusterId).resolve(request.storageLocation.datacenterId).resolve(request.storageLocation.nodeId);
+        // S3 lists keys in their order so listing stops as soon as a consumer has all it needs
+        ListObjectsV2Request listObjectsV2Request = ListObjectsV2Request.builder()
+                                                                        .bucket(request.storageLocation.bucket)
+                                                                        .prefix(prefix.canonicalPath)
+                                                                        .startAfter(resolveNodeAwareRemotePath(Paths.get(startAfter)))
+                                                                        .build();
+
+        ListObjectsV2Response listObjectsV2Response;
+
+        do {
+            listObjectsV2Response = s3Clients.getClient().listObjectsV2(listObjectsV2Request);
+
+            for (final S3Object o : listObjectsV2Response.contents()) {
+                if (!o.key().endsWith("/") && !consumer.test(objectKeyToNodeAwareRemoteReference(bucketPath.relativize(Paths.get(o.key()))))) {
+                    return;
+                }
+            }
+
+            listObjectsV2Request = listObjectsV2Request.toBuilder().continuationToken(listObjectsV2Response.nextContinuationToken()).build();
         } while (listObjectsV2Response.isTruncated());
     }
 
@@ -296,6 +339,17 @@ public class BaseS3Restorer extends Restorer
 
     @Override
     public List<Manifest> listManifests() throws Exception {
+        downloadManifestsIfRequested();
+        return localFileRestorer.listManifests();
+    }
+
+    @Override
+    public AllManifestsReport reportManifests() throws Exception {
+        downloadManifestsIfRequested();
+        return localFileRestorer.reportManifests();
+    }
+
+    private void downloadManifestsIfRequested() throws Exception {
         //If skipDownload flag is not set, download manifests
         if (this.request instanceof ListOperationRequest) {
             if (!((ListOperationRequest) this.request).skipDownload) {
@@ -304,7 +358,6 @@ public class BaseS3Restorer extends Restorer
                 downloadManifestsToDirectory(downloadDirectory);
             }
         }
-        return localFileRestorer.listManifests();
     }
 
     @Override
@@ -343,6 +396,7 @@ public class BaseS3Restorer extends Restorer
                                  .filter(o -> !o.key().endsWith("/"))
                                  .filter(o -> keyFilter.test(o.key()))
                                  .collect(toCollection(() -> summaryList));
+            listObjectsV2Request = listObjectsV2Request.toBuilder().continuationToken(listObjectsV2Response.nextContinuationToken()).build();
         } while (listObjectsV2Response.isTruncated());
 
         return summaryList;
@@ -373,21 +427,36 @@ public class BaseS3Restorer extends Restorer
                           .orElseThrow(() -> new IllegalStateException("Unable to get the latest manifest from remote prefix " + remotePrefix));
     }
 
-    private S3Client resolveS3Client(String remoteKmsKey) {
-        if (remoteKmsKey == null) {
-            return s3Clients.getNonEncryptingClient();
+    /**
+     * Manifests record the KMS key their files are encrypted with. Only files of manifests of older versions,
+     * or files downloaded without any manifest, need to be asked for it.
+     */
+    private String resolveKmsKey(ManifestEntry manifestEntry, RemoteObjectReference objectReference) {
+        if (manifestEntry != null && manifestEntry.kmsKeyIdRecorded) {
+            return manifestEntry.kmsKeyId;
         }
 
-        S3Client s3Client = kmsSpecificS3Clients.get(remoteKmsKey);
+        GetObjectTaggingResponse taggingResponse = s3Clients.getNonEncryptingClient()
+                                                            .getObjectTagging(GetObjectTaggingRequest.builder()
+                                                                                                     .bucket(request.storageLocation.bucket)
+                                                                                                     .key(objectReference.canonicalPath)
+                                                                                                     .build());
+
+        return taggingResponse.tagSet()
+                              .stream()
+                              .filter(t -> t.key().equals("kmsKey"))
+                              .findFirst()
+                              .map(Tag::value)
+                              .orElse(null);
+    }
 
-        if (s3Client != null) {
-            return s3Client;
+    private S3Client resolveS3Client(String remoteKmsKey) {
+        if (remoteKmsKey == null) {
+            return s3Clients.getNonEncryptingClient();
         }
 
-        S3Client encryptingClient = new S3ClientsFactory().getEncryptingClient(s3Clients.getNonEncryptingClient(), remoteKmsKey);
-        kmsSpecificS3Clients.put(remoteKmsKey, encryptingClient);
-
-        return kmsSpecificS3Clients.get(remoteKmsKey);
+        return kmsSpecificS3Clients.computeIfAbsent(remoteKmsKey,
+                                                    key -> new S3ClientsFactory().getEncryptingClient(s3Clients.getNonEncryptingClient(), key));
     }
 
     public static List<List<String>> splitList(List<String> list, int maxLength) {
@@ -403,14 +472,7 @@ public class BaseS3Restorer extends Restorer
     }
 
     public void downloadManifestsToDirectory(Path downloadDir) throws Exception {
-        FileUtils.createDirectory(downloadDir);
-        FileUtils.cleanDirectory(downloadDir.toFile());
-
         final List<S3Object> manifestSumms = listBucket(resolveNodeAwareRemotePath(Paths.get("manifests")), filter -> true);
-        for (S3Object o : manifestSumms) {
-            Path manifestPath = Paths.get(o.key());
-            Path destination = downloadDir.resolve(manifestPath);
-            downloadFile(destination, objectKeyToRemoteReference(manifestPath));
-        }
+        syncManifestsToDirectory(downloadDir, manifestSumms.stream().map(o -> Paths.get(o.key())).collect(toList()));
     }
 }
@@ -0,0 +1,147 @@
+package com.instaclustr.esop.s3.v2;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.instaclustr.measure.DataSize;
+
+/**
+ * Pool of buffers for parts of multipart uploads, shared by all uploads in a JVM so the memory
+ * spent on parts is capped no matter how many files or parts are uploaded concurrently.
+ * <p>
+ * The pool is bounded by bytes, set by "upload.buffer.pool.size" (512 MiB by default), and buffers are
+ * allocated off-heap if "upload.buffer.pool.direct" is true. A buffer is as big as a part asked for, at most
+ * the maximal part size ("upload.max.part.size", 100 MiB by default), so a small object or the last part of
+ * an object takes only as many bytes as it needs. Buffers of the maximal part size are kept for reuse as long
+ * as nobody needs their memory for a smaller buffer. A caller asking for a buffer when the pool is exhausted
+ * blocks until some other upload returns enough bytes.
+ */
+public class PartBufferPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartBufferPool.class);
+
+    private static final long DEFAULT_PART_SIZE = 100 * 1024 * 1024;
+
+    private static final long DEFAULT_POOL_SIZE = 512 * 1024 * 1024;
+
+    private static final long WAIT_MILLIS = 100;
+
+    private static PartBufferPool instance;
+
+    private final int bufferSize;
+    private final int poolSize;
+    private final boolean direct;
+    // permits are bytes of buffers either in use or kept for reuse
+    private final Semaphore available;
+    private final Queue<ByteBuffer> buffers = new ConcurrentLinkedQueue<>();
+
+    public PartBufferPool(final int bufferSize, final long poolSize, final boolean direct) {
+        this.bufferSize = bufferSize;
+        this.poolSize = (int) Math.min(Integer.MAX_VALUE, Math.max(bufferSize, poolSize));
+        this.direct = direct;
+        this.available = new Semaphore(this.poolSize, true);
+    }
+
+    public static synchronized PartBufferPool getInstance() {
+        if (instance == null) {
+            final long partSize = getMaxPartSize();
+            final long poolSize = Long.parseLong(System.getProperty("upload.buffer.pool.size", Long.toString(DEFAULT_POOL_SIZE)));
+            final boolean direct = Boolean.parseBoolean(System.getProperty("upload.buffer.pool.direct", "false"));
+
+            if (partSize > Integer.MAX_VALUE) {
+                throw new IllegalStateException(String.format("upload.max.part.size has to be at most %s bytes", Integer.MAX_VALUE));
+            }
+
+            instance = new PartBufferPool((int) partSize, poolSize, direct);
+
+            logger.info("Pool of {} of {} buffers of size up to {} created for multipart uploads",
+                        DataSize.bytesToHumanReadable(instance.poolSize),
+                        direct ? "direct" : "heap",
+                        DataSize.bytesToHumanReadable(partSize));
+        }
+
+        return instance;
+    }
+
+    public static long getMaxPartSize() {
+        return Long.parseLong(System.getProperty("upload.max.part.size", Long.toString(DEFAULT_PART_SIZE)));
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * @return cleared buffer of size {@link #getBufferSize()}, blocking until some is available
+     */
+    public ByteBuffer acquire() throws InterruptedException {
+        return acquire(bufferSize);
+    }
+
+    /**
+     * @param size size of a buffer, at most {@link #getBufferSize()}
+     * @return cleared buffer of given size, blocking until the pool has enough bytes for it
+     */
+    public ByteBuffer acquire(final int size) throws InterruptedException {
+        if (size < 0 || size > bufferSize) {
+            throw new IllegalArgumentException(String.format("Size of a buffer has to be between 0 and %s bytes, it is %s", bufferSize, size));
+        }
+
+        while (true) {
+            if (size == bufferSize) {
+                final ByteBuffer buffer = buffers.poll();
+
+                if (buffer != null) {
+                    buffer.clear();
+                    return buffer;
+                }
+            }
+
+            if (available.tryAcquire(size)) {
+                return allocate(size);
+            }
+
+            if (size < bufferSize) {
+                // memory of a buffer kept for reuse is given to this smaller one instead
+                final ByteBuffer idle = buffers.poll();
+
+                if (idle != null) {
+                    available.release(idle.capacity());
+                    continue;
+                }
+            }
+
+            // buffers returned meanwhile are looked for again, they keep their bytes when they are kept for reuse
+            if (available.tryAcquire(size, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                return allocate(size);
+            }
+        }
+    }
+
+    public void release(final ByteBuffer buffer) {
+        if (buffer == null) {
+            return;
+        }
+
+        if (buffer.capacity() == bufferSize) {
+            buffer.clear();
+            buffers.offer(buffer);
+        } else {
+            available.release(buffer.capacity());
+        }
+    }
+
+    private ByteBuffer allocate(final int size) {
+        return direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+}
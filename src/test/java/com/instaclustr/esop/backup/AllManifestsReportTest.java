@@ -4,16 +4,23 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.instaclustr.esop.impl.KeyspaceTable;
 import com.instaclustr.esop.impl.Manifest;
 import com.instaclustr.esop.impl.ManifestEntry;
+import com.instaclustr.esop.impl.Snapshots.Snapshot;
+import com.instaclustr.esop.impl.Snapshots.Snapshot.Keyspace;
+import com.instaclustr.esop.impl.Snapshots.Snapshot.Keyspace.Table;
 import com.instaclustr.esop.impl.list.ListOperation;
 import com.instaclustr.esop.impl.list.ListOperationRequest;
 import org.testng.annotations.Test;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.Collections;
 
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertNull;
 
 public class AllManifestsReportTest {
 
@@ -126,6 +133,69 @@ public class AllManifestsReportTest {
         assertEquals(result, output);
     }
 
+    @Test
+    public void testReport() {
+        // b is shared, a is only in the first manifest, c is referenced twice but only by the second one
+        final Manifest first = manifest("snapshot1-1600000000000", "a", "b");
+        final Manifest second = manifest("snapshot2-1600000001000", "b", "c", "c");
+        final Path objectKeyOfB = second.getManifestEntries(false).get(0).objectKey;
+
+        final Manifest.AllManifestsReport report = Manifest.AllManifestsReport.report(Arrays.asList(first, second));
+
+        assertEquals(report.totalManifests, 2);
+        assertEquals(report.totalFiles, 3);
+        assertEquals(report.totalSize, 30);
+
+        assertEquals(report.get("snapshot1-1600000000000").get().removableEntries, Collections.singletonList("data/ks1/tb1/a"));
+        assertEquals(report.get("snapshot1-1600000000000").get().reclaimableSpace, 10);
+        assertEquals(report.get("snapshot2-1600000001000").get().removableEntries, Collections.emptyList());
+        assertEquals(report.get("snapshot2-1600000001000").get().reclaimableSpace, 0);
+
+        // entries of manifests are not changed by a report
+        assertSame(second.getManifestEntries(false).get(0).objectKey, objectKeyOfB);
+    }
+
+    @Test
+    public void testFilesCounter() {
+        final Manifest first = manifest("snapshot1-1600000000000", "a", "b");
+        final Manifest second = manifest("snapshot2-1600000001000", "b", "c");
+
+        final Manifest.ManifestFilesCounter counter = new Manifest.ManifestFilesCounter();
+        counter.add(first);
+        counter.add(second);
+
+        assertEquals(counter.getManifestsOfEntry("data/ks1/tb1/a"), Collections.singletonList("snapshot1-1600000000000.json"));
+        assertEquals(counter.getManifestsOfEntry("data/ks1/tb1/b"), Arrays.asList("snapshot1-1600000000000.json", "snapshot2-1600000001000.json"));
+        assertNull(counter.getManifestsOfEntry("data/ks1/tb1/d"));
+        assertEquals(counter.getSizeOfEntry("data/ks1/tb1/c"), Long.valueOf(10));
+        assertNull(counter.getSizeOfEntry("data/ks1/tb1/d"));
+        assertEquals(counter.count("data/ks1/tb1/b"), 2);
+        assertEquals(counter.getSize(), 30);
+    }
+
+    private Manifest manifest(final String name, final String... files) {
+        final Table table = new Table("tb1", null);
+        for (final String file : files) {
+            table.add(file, new ManifestEntry(Paths.get("data/ks1/tb1/" + file),
+                                              null,
+                                              ManifestEntry.Type.FILE,
+                                              10,
+                                              new KeyspaceTable("ks1", "tb1"),
+                                              null,
+                                              null));
+        }
+
+        final Keyspace keyspace = new Keyspace();
+        keyspace.add("tb1", table);
+
+        final Snapshot snapshot = new Snapshot();
+        snapshot.add("ks1", keyspace);
+
+        final Manifest manifest = new Manifest(snapshot);
+        manifest.setManifest(new ManifestEntry(Paths.get("manifests/" + name + ".json"), null, ManifestEntry.Type.MANIFEST_FILE, 1, null, null, null));
+        return manifest;
+    }
+
     private ListOperationRequest getRequest(boolean humanUnits, boolean json) {
         ListOperationRequest request = new ListOperationRequest();
         request.humanUnits = humanUnits;
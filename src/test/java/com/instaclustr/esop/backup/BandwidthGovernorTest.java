@@ -0,0 +1,141 @@
+package com.instaclustr.esop.backup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.io.ByteStreams;
+
+import com.instaclustr.esop.impl.BandwidthGovernor;
+import com.instaclustr.esop.impl.BandwidthGovernor.GovernedOperation;
+import com.instaclustr.esop.impl.BandwidthGovernor.Throughput;
+import com.instaclustr.esop.impl.bandwidth.UpdateBandwidthOperation;
+import com.instaclustr.esop.impl.bandwidth.UpdateBandwidthOperationRequest;
+import com.instaclustr.measure.DataRate;
+import com.instaclustr.measure.DataRate.DataRateUnit;
+import com.instaclustr.operations.Operation;
+import com.instaclustr.operations.OperationRequest;
+import com.instaclustr.operations.OperationsService;
+import com.instaclustr.threading.Executors.FixedTasksExecutorSupplier;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class BandwidthGovernorTest {
+
+    @Test
+    public void rateIsSharedAmongStreams() throws Exception {
+        final BandwidthGovernor governor = new BandwidthGovernor(null, new DataRate(1L, DataRateUnit.MBPS));
+
+        final long start = System.currentTimeMillis();
+
+        // 2 streams, 1 MB each, at 1 MB/s together, the first burst is not throttled
+        final CompletableFuture<Void> first = CompletableFuture.runAsync(() -> consume(governor, 1_000_000));
+        final CompletableFuture<Void> second = CompletableFuture.runAsync(() -> consume(governor, 1_000_000));
+
+        CompletableFuture.allOf(first, second).join();
+
+        final long duration = System.currentTimeMillis() - start;
+
+        Assert.assertTrue(duration >= 1500, "two streams took just " + duration + " ms");
+
+        final Throughput throughput = governor.getThroughput();
+
+        Assert.assertEquals(throughput.transferredBytes, 2_000_000);
+        Assert.assertEquals(throughput.targetBytesPerSecond, Long.valueOf(1_000_000));
+        Assert.assertTrue(throughput.achievedBytesPerSecond > 0);
+    }
+
+    @Test
+    public void rateIsChangeable() {
+        final BandwidthGovernor governor = new BandwidthGovernor(null, null);
+
+        Assert.assertNull(governor.getRate());
+        Assert.assertNull(governor.getThroughput().targetBytesPerSecond);
+
+        governor.setRate(new DataRate(10L, DataRateUnit.KBPS));
+        Assert.assertEquals(governor.getThroughput().targetBytesPerSecond, Long.valueOf(10_000));
+
+        governor.setRate(new DataRate(0L, DataRateUnit.KBPS));
+        Assert.assertNull(governor.getRate());
+    }
+
+    @Test
+    public void parentIsAccountedToo() {
+        final BandwidthGovernor parent = new BandwidthGovernor(null, null);
+        final BandwidthGovernor child = new BandwidthGovernor(parent, null);
+
+        consume(child, 1000);
+
+        Assert.assertEquals(parent.getThroughput().transferredBytes, 1000);
+        Assert.assertEquals(child.getThroughput().transferredBytes, 1000);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void readIsCancellable() throws Exception {
+        final BandwidthGovernor governor = new BandwidthGovernor(null, null);
+
+        try (final InputStream is = governor.throttle(new ByteArrayInputStream(new byte[10]), new AtomicBoolean(true))) {
+            is.read();
+        }
+    }
+
+    @Test
+    public void rateIsChangeableByOperation() {
+        final GovernedTestOperation governed = new GovernedTestOperation();
+
+        final Map<UUID, Operation<?>> operations = new HashMap<>();
+        operations.put(governed.id, governed);
+
+        final OperationsService operationsService = new OperationsService(Collections.emptyMap(), operations, new FixedTasksExecutorSupplier(), Collections.emptyMap());
+
+        final UpdateBandwidthOperation update = new UpdateBandwidthOperation(operationsService, new UpdateBandwidthOperationRequest(governed.id, new DataRate(5L, DataRateUnit.MBPS)));
+        update.run();
+
+        Assert.assertEquals(update.state, Operation.State.COMPLETED);
+        Assert.assertEquals(governed.getThroughput().targetBytesPerSecond, Long.valueOf(5_000_000));
+
+        // an operation which is not known can not be changed
+        final UpdateBandwidthOperation unknown = new UpdateBandwidthOperation(operationsService, new UpdateBandwidthOperationRequest(UUID.randomUUID(), null));
+        unknown.run();
+
+        Assert.assertEquals(unknown.state, Operation.State.FAILED);
+    }
+
+    private static class GovernedTestOperation extends Operation<OperationRequest> implements GovernedOperation {
+
+        private final BandwidthGovernor governor = new BandwidthGovernor(null, null);
+
+        GovernedTestOperation() {
+            super(new OperationRequest() {
+            });
+        }
+
+        @Override
+        public void updateBandwidth(final DataRate bandwidth) {
+            governor.setRate(bandwidth);
+        }
+
+        @Override
+        public Throughput getThroughput() {
+            return governor.getThroughput();
+        }
+
+        @Override
+        protected void run0() {
+        }
+    }
+
+    private void consume(final BandwidthGovernor governor, final int size) {
+        try (final InputStream is = governor.throttle(new ByteArrayInputStream(new byte[size]), new AtomicBoolean(false))) {
+            ByteStreams.exhaust(is);
+        } catch (final IOException ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.instaclustr.esop.backup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.instaclustr.esop.impl.CommitLogLayout;
+import com.instaclustr.esop.impl.StorageLocation;
+import com.instaclustr.esop.impl.restore.RestoreCommitLogsOperation;
+import com.instaclustr.esop.impl.restore.RestoreCommitLogsOperationRequest;
+import com.instaclustr.esop.local.LocalFileRestorer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static java.util.stream.Collectors.toSet;
+
+public class CommitLogLayoutTest {
+
+    @Test
+    public void testLayout() {
+        // 2021-03-25T14:10:32Z
+        final long lastModified = 1616681432000L;
+
+        Assert.assertEquals(CommitLogLayout.objectKey("CommitLog-7-1616681411243.log", lastModified),
+                            Paths.get("commitlog/2021-03-25-14/CommitLog-7-1616681411243.log.1616681432000"));
+
+        // from 13:59:59 to 16:00:00, both inclusive
+        Assert.assertEquals(CommitLogLayout.partitions(1616680799000L, 1616688000000L),
+                            Arrays.asList(Paths.get("commitlog/2021-03-25-13"),
+                                          Paths.get("commitlog/2021-03-25-14"),
+                                          Paths.get("commitlog/2021-03-25-15"),
+                                          Paths.get("commitlog/2021-03-25-16")));
+
+        Assert.assertEquals(CommitLogLayout.partitions(lastModified, lastModified), Arrays.asList(CommitLogLayout.partition(lastModified)));
+        Assert.assertTrue(CommitLogLayout.partitions(lastModified, 1616680799000L).isEmpty());
+    }
+
+    @Test
+    public void testListingAfterPartition() throws Exception {
+        final Path backupDir = Files.createTempDirectory("commitlog-layout");
+        final Path nodeDir = backupDir.resolve("bucket/cluster/dc/node");
+
+        final List<Path> objectKeys = Arrays.asList(CommitLogLayout.objectKey("CommitLog-7-1.log", 1616681432000L),
+                                                    // next hour
+                                                    CommitLogLayout.objectKey("CommitLog-7-2.log", 1616685032000L),
+                                                    CommitLogLayout.objectKey("CommitLog-7-3.log", 1616685033000L),
+                                                    // next day
+                                                    CommitLogLayout.objectKey("CommitLog-7-4.log", 1616771432000L),
+                                                    Paths.get("commitlog/CommitLog-6-1.log.1500000000000"));
+
+        for (final Path objectKey : objectKeys) {
+            Files.createDirectories(nodeDir.resolve(objectKey).getParent());
+            Files.write(nodeDir.resolve(objectKey), new byte[0]);
+        }
+
+        Assert.assertTrue(CommitLogLayout.isPartitioned(objectKeys.get(0)));
+        Assert.assertFalse(CommitLogLayout.isPartitioned(objectKeys.get(4)));
+
+        final RestoreCommitLogsOperationRequest request = new RestoreCommitLogsOperationRequest();
+        request.storageLocation = new StorageLocation("file://" + backupDir + "/bucket/cluster/dc/node");
+
+        try (final LocalFileRestorer restorer = new LocalFileRestorer(request)) {
+            final List<Path> afterPartition = new ArrayList<>();
+
+            restorer.consumeFilesAfter(restorer.objectKeyToNodeAwareRemoteReference(CommitLogLayout.COMMIT_LOG_ROOT),
+                                       CommitLogLayout.afterPartition(1616681432000L),
+                                       reference -> afterPartition.add(reference.getObjectKey()) && afterPartition.size() < 2);
+
+            // keys of the partition are skipped, listing is in order of keys and it stops when a consumer says so
+            Assert.assertEquals(afterPartition, objectKeys.subList(1, 3));
+
+            final List<Path> flat = new ArrayList<>();
+
+            restorer.consumeFilesAfter(restorer.objectKeyToNodeAwareRemoteReference(CommitLogLayout.COMMIT_LOG_ROOT),
+                                       CommitLogLayout.FLAT_LAYOUT_START_AFTER,
+                                       reference -> flat.add(reference.getObjectKey()));
+
+            // partitions are never among keys of the flat layout
+            Assert.assertEquals(flat, objectKeys.subList(4, 5));
+        }
+    }
+
+    @Test
+    public void testCommitLogsOfWindowSpanningUpgradeToPartitions() throws Exception {
+        final Path backupDir = Files.createTempDirectory("commitlog-layout");
+        final Path nodeDir = backupDir.resolve("bucket/cluster/dc/node");
+
+        // 11:00, 12:00 and 13:00 of 2021-03-25 in the flat layout, then archived in partitions from 14:10 on
+        final Path flat1 = Paths.get("commitlog/CommitLog-7-1.log.1616670000000");
+        final Path flat2 = Paths.get("commitlog/CommitLog-7-2.log.1616673600000");
+        final Path flat3 = Paths.get("commitlog/CommitLog-7-3.log.1616677200000");
+        final Path partitioned1 = CommitLogLayout.objectKey("CommitLog-7-4.log", 1616681432000L);
+        final Path partitioned2 = CommitLogLayout.objectKey("CommitLog-7-5.log", 1616685032000L);
+        final Path partitioned3 = CommitLogLayout.objectKey("CommitLog-7-6.log", 1616771432000L);
+
+        for (final Path objectKey : Arrays.asList(flat1, flat2, flat3, partitioned1, partitioned2, partitioned3)) {
+            Files.createDirectories(nodeDir.resolve(objectKey).getParent());
+            Files.write(nodeDir.resolve(objectKey), new byte[0]);
+        }
+
+        // from 11:30 to 14:30, commit logs of both layouts and the first one past the window
+        Assert.assertEquals(findCommitLogs(backupDir, 1616671800000L, 1616682600000L), new HashSet<>(Arrays.asList(flat2, flat3, partitioned1, partitioned2)));
+        // from 11:30 to 13:30, before the upgrade, the first commit log past the window is in a partition
+        Assert.assertEquals(findCommitLogs(backupDir, 1616671800000L, 1616679000000L), new HashSet<>(Arrays.asList(flat2, flat3, partitioned1)));
+        // from 11:30 to 12:30, the first commit log past the window is in the flat layout
+        Assert.assertEquals(findCommitLogs(backupDir, 1616671800000L, 1616675400000L), new HashSet<>(Arrays.asList(flat2, flat3)));
+        // from 15:00 to 16:00, only partitions
+        Assert.assertEquals(findCommitLogs(backupDir, 1616684400000L, 1616688000000L), new HashSet<>(Arrays.asList(partitioned2, partitioned3)));
+    }
+
+    private Set<Path> findCommitLogs(final Path backupDir, final long timestampStart, final long timestampEnd) throws Exception {
+        final RestoreCommitLogsOperationRequest request = new RestoreCommitLogsOperationRequest();
+        request.storageLocation = new StorageLocation("file://" + backupDir + "/bucket/cluster/dc/node");
+        request.commitlogDownloadDir = Paths.get("/tmp/commitlogs");
+        request.timestampStart = timestampStart;
+        request.timestampEnd = timestampEnd;
+
+        try (final LocalFileRestorer restorer = new LocalFileRestorer(request)) {
+            return RestoreCommitLogsOperation.findCommitLogs(restorer, request).stream().map(entry -> entry.objectKey).collect(toSet());
+        }
+    }
+}
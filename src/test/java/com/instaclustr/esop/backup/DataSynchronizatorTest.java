@@ -0,0 +1,131 @@
+package com.instaclustr.esop.backup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.instaclustr.esop.impl.ManifestEntry;
+import com.instaclustr.esop.impl.ManifestEntry.Type;
+import com.instaclustr.esop.impl.restore.RestoreOperationRequest;
+import com.instaclustr.esop.impl.restore.strategy.DataSynchronizator;
+import com.instaclustr.esop.impl.restore.strategy.DataSynchronizator.ManifestEntrySSTableClassifier;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class DataSynchronizatorTest {
+
+    @Test
+    public void testSynchronization() throws Exception {
+        final Path dataDir = Files.createTempDirectory("data-synchronizator");
+        final Path tableDir = Files.createDirectories(dataDir.resolve("ks1").resolve("t1-1234"));
+
+        final Set<Path> localFiles = new HashSet<>();
+        final List<ManifestEntry> entries = new ArrayList<>();
+
+        // present locally and in manifest with the same hash
+        localFiles.addAll(createSSTable(tableDir, 1, "1111"));
+        entries.addAll(entries(1, "1111"));
+
+        // present locally and in manifest but with a different hash
+        localFiles.addAll(createSSTable(tableDir, 2, "2222"));
+        entries.addAll(entries(2, "9999"));
+
+        // present only locally
+        localFiles.addAll(createSSTable(tableDir, 3, "3333"));
+
+        // present only in manifest
+        entries.addAll(entries(4, "4444"));
+
+        entries.add(new ManifestEntry(Paths.get("data/ks1/t1-1234/schema.cql"), Paths.get("ks1/t1-1234/schema.cql"), Type.CQL_SCHEMA, 10, null, null, null));
+
+        final DataSynchronizator synchronizator = new DataSynchronizator(null, new RestoreOperationRequest()).execute(entries, localFiles);
+
+        assertEquals(synchronizator.entriesToDownload().stream().map(entry -> entry.localFile).collect(Collectors.toSet()),
+                     new HashSet<>(Arrays.asList(Paths.get("ks1/t1-1234/nb-4-big-Data.db"), Paths.get("ks1/t1-1234/nb-4-big-Digest.crc32"))));
+
+        assertEquals(new HashSet<>(synchronizator.filesToDelete()),
+                     new HashSet<>(Arrays.asList(tableDir.resolve("nb-2-big-Data.db"),
+                                                 tableDir.resolve("nb-2-big-Digest.crc32"),
+                                                 tableDir.resolve("nb-3-big-Data.db"),
+                                                 tableDir.resolve("nb-3-big-Digest.crc32"))));
+
+        assertEquals(synchronizator.getDownloadSize(), 200);
+        assertEquals(synchronizator.getDeletionSize(), 2 * ("data".length() + "2222".length()));
+    }
+
+    @Test
+    public void testSizeAwarePlacement() throws Exception {
+        final Path root = Files.createTempDirectory("data-placement");
+
+        final RestoreOperationRequest request = new RestoreOperationRequest();
+        request.dataDirs = Arrays.asList(root.resolve("data1"), root.resolve("data2"), root.resolve("data3"));
+
+        final List<ManifestEntry> entries = new ArrayList<>();
+        entries.add(entry(1, 10));
+        entries.add(entry(2, 100));
+        entries.add(entry(3, 50));
+        entries.add(entry(4, 60));
+
+        final ManifestEntrySSTableClassifier classifier = new ManifestEntrySSTableClassifier();
+        final Map<String, List<ManifestEntry>> classified = classifier.classify(entries);
+        classifier.map(classified, request);
+
+        // all data dirs are on the same disk, the biggest SSTables go to empty dirs first, the smallest to the least filled one
+        assertEquals(entries.get(1).localFile, root.resolve("data1/ks1/t1-1234/nb-2-big-Data.db"));
+        assertEquals(entries.get(3).localFile, root.resolve("data2/ks1/t1-1234/nb-4-big-Data.db"));
+        assertEquals(entries.get(2).localFile, root.resolve("data3/ks1/t1-1234/nb-3-big-Data.db"));
+        assertEquals(entries.get(0).localFile, root.resolve("data3/ks1/t1-1234/nb-1-big-Data.db"));
+
+        assertEquals(DataSynchronizator.interleaveByDataDir(entries, request.dataDirs).stream().map(entry -> entry.localFile.getFileName().toString()).collect(Collectors.toList()),
+                     Arrays.asList("nb-2-big-Data.db", "nb-4-big-Data.db", "nb-1-big-Data.db", "nb-3-big-Data.db"));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testPlacementFailsWhenDataDoNotFit() throws Exception {
+        final RestoreOperationRequest request = new RestoreOperationRequest();
+        request.dataDirs = Arrays.asList(Files.createTempDirectory("data-placement"));
+
+        final ManifestEntrySSTableClassifier classifier = new ManifestEntrySSTableClassifier();
+        classifier.map(classifier.classify(Arrays.asList(entry(1, 1L << 50))), request);
+    }
+
+    private List<Path> createSSTable(final Path tableDir, final int generation, final String digest) throws Exception {
+        return Arrays.asList(Files.write(tableDir.resolve("nb-" + generation + "-big-Data.db"), "data".getBytes()),
+                             Files.write(tableDir.resolve("nb-" + generation + "-big-Digest.crc32"), digest.getBytes()));
+    }
+
+    private List<ManifestEntry> entries(final int generation, final String digest) {
+        final List<ManifestEntry> entries = new ArrayList<>();
+
+        for (final String component : Arrays.asList("Data.db", "Digest.crc32")) {
+            final String fileName = "nb-" + generation + "-big-" + component;
+            entries.add(new ManifestEntry(Paths.get("data/ks1/t1-1234").resolve(generation + "-" + digest).resolve(fileName),
+                                          Paths.get("ks1/t1-1234").resolve(fileName),
+                                          Type.FILE,
+                                          100,
+                                          null,
+                                          null,
+                                          null));
+        }
+
+        return entries;
+    }
+
+    private ManifestEntry entry(final int generation, final long size) {
+        return new ManifestEntry(Paths.get("data/ks1/t1-1234/" + generation + "-" + generation + "/nb-" + generation + "-big-Data.db"),
+                                 Paths.get("ks1/t1-1234/nb-" + generation + "-big-Data.db"),
+                                 Type.FILE,
+                                 size,
+                                 null,
+                                 null,
+                                 null);
+    }
+}
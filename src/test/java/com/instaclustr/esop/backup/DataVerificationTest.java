@@ -0,0 +1,62 @@
+package com.instaclustr.esop.backup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.instaclustr.esop.impl.ManifestEntry;
+import com.instaclustr.esop.impl.ManifestEntry.Type;
+import com.instaclustr.esop.impl.hash.HashCache;
+import com.instaclustr.esop.impl.hash.HashServiceImpl;
+import com.instaclustr.esop.impl.hash.HashSpec;
+import com.instaclustr.esop.impl.hash.HashSpec.HashAlgorithm;
+import com.instaclustr.esop.impl.restore.RestorationPhase.DataVerification;
+import com.instaclustr.esop.impl.restore.strategy.RestorationContext;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DataVerificationTest {
+
+    @Test
+    public void testParallelVerification() throws Exception {
+        final Path dataDir = Files.createTempDirectory("data-verification");
+        final HashServiceImpl hashService = new HashServiceImpl(new HashSpec(HashAlgorithm.XXHASH64), new HashCache(null, 0));
+
+        final List<ManifestEntry> entries = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            final Path localFile = dataDir.resolve("nb-" + i + "-big-Data.db");
+            Files.write(localFile, ("content of " + i).getBytes());
+            entries.add(entry(localFile, hashService.hash(localFile)));
+        }
+
+        entries.add(entry(dataDir.resolve("nb-50-big-Data.db"), "0"));
+        Files.write(dataDir.resolve("nb-51-big-Data.db"), "corrupted".getBytes());
+        entries.add(entry(dataDir.resolve("nb-51-big-Data.db"), hashService.hash(dataDir.resolve("nb-0-big-Data.db"))));
+
+        final RestorationContext ctxt = new RestorationContext();
+        ctxt.hashService = hashService;
+
+        System.setProperty("esop.verification.parallelism", "4");
+
+        try {
+            final DataVerification verification = new DataVerification(ctxt).verify(entries);
+
+            Assert.assertTrue(verification.hasErrors());
+            Assert.assertEquals(verification.nonExistingFiles.size(), 1);
+            Assert.assertTrue(verification.nonExistingFiles.get(0).endsWith("nb-50-big-Data.db"));
+            Assert.assertEquals(verification.corruptedFiles.size(), 1);
+            Assert.assertTrue(verification.corruptedFiles.get(0).endsWith("nb-51-big-Data.db"));
+        } finally {
+            System.clearProperty("esop.verification.parallelism");
+        }
+    }
+
+    private static ManifestEntry entry(final Path localFile, final String hash) {
+        final ManifestEntry entry = new ManifestEntry(Paths.get("data/ks1/t1").resolve(localFile.getFileName()), localFile, Type.FILE, hash, null);
+        entry.hashAlgorithm = HashAlgorithm.XXHASH64;
+        return entry;
+    }
+}
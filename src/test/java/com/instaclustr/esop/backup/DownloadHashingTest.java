@@ -0,0 +1,99 @@
+package com.instaclustr.esop.backup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.instaclustr.esop.impl.ManifestEntry;
+import com.instaclustr.esop.impl.ManifestEntry.Type;
+import com.instaclustr.esop.impl.RemoteObjectReference;
+import com.instaclustr.esop.impl.StorageLocation;
+import com.instaclustr.esop.impl.hash.HashCache;
+import com.instaclustr.esop.impl.hash.HashServiceImpl;
+import com.instaclustr.esop.impl.hash.HashSpec;
+import com.instaclustr.esop.impl.hash.HashSpec.HashAlgorithm;
+import com.instaclustr.esop.impl.restore.RestoreOperationRequest;
+import com.instaclustr.esop.local.LocalFileRestorer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class DownloadHashingTest {
+
+    @Test
+    public void testFileIsHashedWhileDownloading() throws Exception {
+        final Path backupDir = Files.createTempDirectory("download-hashing");
+        final Path objectKey = Paths.get("data/ks1/t1/nb-1-big-Data.db");
+        final Path remoteFile = backupDir.resolve("bucket/cluster/dc/node").resolve(objectKey);
+
+        final byte[] content = new byte[100_000];
+        new Random(0).nextBytes(content);
+        Files.createDirectories(remoteFile.getParent());
+        Files.write(remoteFile, content);
+
+        final RestoreOperationRequest request = new RestoreOperationRequest();
+        request.storageLocation = new StorageLocation("file://" + backupDir + "/bucket/cluster/dc/node");
+
+        final Path localFile = Files.createTempDirectory("download-hashing-data").resolve("nb-1-big-Data.db");
+        final HashSpec hashSpec = new HashSpec(HashAlgorithm.XXHASH64);
+
+        try (final LocalFileRestorer restorer = new LocalFileRestorer(request)) {
+            final RemoteObjectReference reference = restorer.objectKeyToNodeAwareRemoteReference(objectKey);
+            final ManifestEntry entry = new ManifestEntry(objectKey, localFile, Type.FILE, null, null);
+
+            final String hash = restorer.downloadAndHashFile(localFile, entry, reference, hashSpec);
+
+            Assert.assertEquals(Files.readAllBytes(localFile), content);
+            Assert.assertEquals(hash, new HashServiceImpl(hashSpec, new HashCache(null, 0)).hash(localFile));
+
+            // streams of other downloads are not hashed
+            Files.delete(localFile);
+            restorer.downloadFile(localFile, entry, reference);
+            Assert.assertEquals(Files.readAllBytes(localFile), content);
+        }
+    }
+
+    @Test
+    public void testFileIsHashedWhenDownloadedByOtherThread() throws Exception {
+        final Path backupDir = Files.createTempDirectory("download-hashing");
+        final Path objectKey = Paths.get("data/ks1/t1/nb-1-big-Data.db");
+        final Path remoteFile = backupDir.resolve("bucket/cluster/dc/node").resolve(objectKey);
+
+        final byte[] content = new byte[100_000];
+        new Random(1).nextBytes(content);
+        Files.createDirectories(remoteFile.getParent());
+        Files.write(remoteFile, content);
+
+        final RestoreOperationRequest request = new RestoreOperationRequest();
+        request.storageLocation = new StorageLocation("file://" + backupDir + "/bucket/cluster/dc/node");
+
+        final Path localFile = Files.createTempDirectory("download-hashing-data").resolve("nb-1-big-Data.db");
+        final HashSpec hashSpec = new HashSpec(HashAlgorithm.XXHASH64);
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // as a worker of a ranged download would, a stream is read by another thread than the one which asked for a hash
+        try (final LocalFileRestorer restorer = new LocalFileRestorer(request) {
+            @Override
+            protected void downloadFile(final Path localPath,
+                                        final ManifestEntry manifestEntry,
+                                        final RemoteObjectReference objectReference,
+                                        final DownloadDigest digest) throws Exception {
+                executor.submit(() -> {
+                    super.downloadFile(localPath, manifestEntry, objectReference, digest);
+                    return null;
+                }).get();
+            }
+        }) {
+            final RemoteObjectReference reference = restorer.objectKeyToNodeAwareRemoteReference(objectKey);
+            final ManifestEntry entry = new ManifestEntry(objectKey, localFile, Type.FILE, null, null);
+
+            final String hash = restorer.downloadAndHashFile(localFile, entry, reference, hashSpec);
+
+            Assert.assertEquals(hash, new HashServiceImpl(hashSpec, new HashCache(null, 0)).hash(localFile));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
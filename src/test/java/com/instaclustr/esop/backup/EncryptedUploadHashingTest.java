@@ -0,0 +1,140 @@
+package com.instaclustr.esop.backup;
+
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.instaclustr.esop.impl.AbstractTracker.Session;
+import com.instaclustr.esop.impl.ManifestEntry;
+import com.instaclustr.esop.impl.ManifestEntry.Type;
+import com.instaclustr.esop.impl.StorageLocation;
+import com.instaclustr.esop.impl.backup.BackupOperation;
+import com.instaclustr.esop.impl.backup.BackupOperationRequest;
+import com.instaclustr.esop.impl.backup.UploadTracker;
+import com.instaclustr.esop.impl.backup.UploadTracker.UploadUnit;
+import com.instaclustr.esop.impl.hash.HashCache;
+import com.instaclustr.esop.impl.hash.HashServiceImpl;
+import com.instaclustr.esop.impl.hash.HashSpec;
+import com.instaclustr.esop.impl.hash.HashSpec.HashAlgorithm;
+import com.instaclustr.esop.s3.v2.BaseS3Backuper;
+import com.instaclustr.esop.s3.v2.S3ClientsFactory.S3Clients;
+import com.instaclustr.operations.OperationsService;
+import com.instaclustr.threading.Executors.FixedTasksExecutorSupplier;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListMultipartUploadsResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectTaggingResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.waiters.S3Waiter;
+
+public class EncryptedUploadHashingTest {
+
+    // encryption adds an authentication tag to an object so an encrypted object is bigger than its file
+    private static final int AUTHENTICATION_TAG_LENGTH = 16;
+
+    @Test
+    public void testEncryptedFileIsVerifiedByHashOfItsPlaintext() throws Exception {
+        final Path dataDir = Files.createTempDirectory("encrypted-upload");
+        final Path localFile = dataDir.resolve("nb-1-big-Data.db");
+
+        final byte[] content = new byte[100_000];
+        new Random(0).nextBytes(content);
+        Files.write(localFile, content);
+
+        final HashSpec hashSpec = new HashSpec(HashAlgorithm.XXHASH64);
+        final Map<Integer, byte[]> uploadedParts = new ConcurrentHashMap<>();
+
+        final BackupOperationRequest request = new BackupOperationRequest();
+        request.storageLocation = new StorageLocation("s3://bucket/cluster/dc/node");
+
+        final ManifestEntry entry = new ManifestEntry(Paths.get("data/ks1/t1/nb-1-big-Data.db"), localFile, Type.FILE, content.length, null, null, null);
+
+        final ListeningExecutorService finisher = new FixedTasksExecutorSupplier().get(1);
+        final UploadTracker uploadTracker = new UploadTracker(finisher, new OperationsService(new FixedTasksExecutorSupplier().get(1)), hashSpec);
+
+        try (final BaseS3Backuper backuper = new BaseS3Backuper(new S3Clients(client(uploadedParts), client(uploadedParts), "kms-key"), request)) {
+            final Session<UploadUnit> session = uploadTracker.submit(backuper, new BackupOperation(request), Collections.singletonList(entry), "snapshot", 1);
+            session.waitUntilConsideredFinished();
+
+            Assert.assertTrue(session.isSuccessful());
+            uploadTracker.removeSession(session);
+        } finally {
+            finisher.shutdown();
+        }
+
+        // object was uploaded encrypted
+        Assert.assertEquals(uploadedParts.values().stream().mapToInt(part -> part.length).sum(), content.length + AUTHENTICATION_TAG_LENGTH);
+        Assert.assertEquals(entry.kmsKeyId, "kms-key");
+
+        // the manifest records the plaintext, as restore decrypts an object before it verifies it
+        Assert.assertEquals(entry.size, content.length);
+        Assert.assertEquals(entry.hash, new HashServiceImpl(hashSpec, new HashCache(null, 0)).hash(localFile));
+
+        final Path restoredFile = Files.createTempDirectory("encrypted-restore").resolve("nb-1-big-Data.db");
+        Files.write(restoredFile, content);
+
+        entry.localFile = restoredFile;
+        entry.hashAlgorithm = hashSpec.algorithm;
+        new HashServiceImpl(hashSpec, new HashCache(null, 0)).verify(entry);
+    }
+
+    /**
+     * A client which appends an authentication tag to the last part, as encryption would, and accepts everything else.
+     */
+    private S3Client client(final Map<Integer, byte[]> uploadedParts) {
+        final S3Client[] client = new S3Client[1];
+
+        client[0] = (S3Client) Proxy.newProxyInstance(S3Client.class.getClassLoader(), new Class<?>[]{S3Client.class}, (proxy, method, args) -> {
+            final SdkHttpResponse ok = SdkHttpResponse.builder().statusCode(200).build();
+
+            switch (method.getName()) {
+                case "createMultipartUpload":
+                    return CreateMultipartUploadResponse.builder().uploadId("upload").build();
+                case "uploadPart":
+                    final UploadPartRequest partRequest = (UploadPartRequest) args[0];
+                    try (final InputStream body = ((RequestBody) args[1]).contentStreamProvider().newStream()) {
+                        final byte[] bytes = ByteStreams.toByteArray(body);
+                        final boolean last = partRequest.sdkPartTypeAsString().equals("LAST");
+                        uploadedParts.put(partRequest.partNumber(), last ? new byte[bytes.length + AUTHENTICATION_TAG_LENGTH] : bytes);
+                    }
+                    return UploadPartResponse.builder().eTag("etag").build();
+                case "completeMultipartUpload":
+                    return CompleteMultipartUploadResponse.builder().sdkHttpResponse(ok).build();
+                case "headObject":
+                    return HeadObjectResponse.builder().sdkHttpResponse(ok).build();
+                case "putObjectTagging":
+                    return PutObjectTaggingResponse.builder().sdkHttpResponse(ok).build();
+                case "getObjectTagging":
+                    throw S3Exception.builder().statusCode(404).build();
+                case "listMultipartUploads":
+                    return ListMultipartUploadsResponse.builder().build();
+                case "waiter":
+                    return S3Waiter.builder().client(client[0]).build();
+                case "serviceName":
+                    return "s3";
+                case "close":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+
+        return client[0];
+    }
+}
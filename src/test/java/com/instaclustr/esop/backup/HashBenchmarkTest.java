@@ -0,0 +1,84 @@
+package com.instaclustr.esop.backup;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.instaclustr.esop.impl.hash.HashCache;
+import com.instaclustr.esop.impl.hash.HashServiceImpl;
+import com.instaclustr.esop.impl.hash.HashSpec;
+import com.instaclustr.esop.impl.hash.HashSpec.HashAlgorithm;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertNotNull;
+
+@Test(groups = {
+    "benchmarkTest",
+})
+public class HashBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashBenchmarkTest.class);
+
+    // sizes of files in megabytes, e.g. -Dbenchmark.hash.sizes=1,100,1024
+    private static final List<Integer> SIZES = Arrays.stream(System.getProperty("benchmark.hash.sizes", "1,100,1024").split(","))
+        .map(String::trim)
+        .map(Integer::parseInt)
+        .collect(Collectors.toList());
+
+    private static final int ITERATIONS = Integer.getInteger("benchmark.hash.iterations", 3);
+
+    @Test
+    public void benchmarkHashAlgorithms() throws Exception {
+        for (final int size : SIZES) {
+            final Path file = createFile(size);
+
+            try {
+                for (final HashAlgorithm algorithm : HashAlgorithm.values()) {
+                    if (algorithm == HashAlgorithm.NONE) {
+                        continue;
+                    }
+
+                    // results are not cached so every iteration reads and hashes the file
+                    final HashServiceImpl hashService = new HashServiceImpl(new HashSpec(algorithm), new HashCache(null, 0));
+
+                    // warm up
+                    assertNotNull(hashService.hash(file));
+
+                    final long start = System.nanoTime();
+
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        hashService.hash(file);
+                    }
+
+                    final double seconds = (System.nanoTime() - start) / 1_000_000_000d / ITERATIONS;
+
+                    logger.info(String.format("%s of %s MB file: %.3f s per file, %.0f MB/s", algorithm, size, seconds, size / seconds));
+                }
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private Path createFile(final int megabytes) throws Exception {
+        final Path file = Files.createTempFile("hash-benchmark", ".db");
+        final byte[] chunk = new byte[1024 * 1024];
+        final Random random = new Random(megabytes);
+
+        try (final OutputStream os = Files.newOutputStream(file)) {
+            for (int i = 0; i < megabytes; i++) {
+                random.nextBytes(chunk);
+                os.write(chunk);
+            }
+        }
+
+        return file;
+    }
+}
@@ -0,0 +1,120 @@
+package com.instaclustr.esop.backup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.instaclustr.esop.impl.hash.HashCache;
+import com.instaclustr.esop.impl.hash.HashServiceImpl;
+import com.instaclustr.esop.impl.hash.HashSpec;
+import com.instaclustr.esop.impl.hash.HashSpec.HashAlgorithm;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class HashCacheTest {
+
+    @Test
+    public void unchangedFileIsNotHashedAgain() throws Exception {
+        final Path cacheDir = Files.createTempDirectory("hash-cache");
+        final Path file = Files.createTempDirectory("hash-cache-data").resolve("mc-1-big-Data.db");
+        Files.write(file, "some data".getBytes());
+
+        final HashCache cache = new HashCache(cacheDir, 100);
+        final AtomicInteger computations = new AtomicInteger();
+
+        final String hash = cache.hash(file, HashAlgorithm.SHA_256, () -> {
+            computations.incrementAndGet();
+            return new HashServiceImpl(new HashSpec(), new HashCache(null, 0)).hash(file);
+        });
+
+        Assert.assertEquals(cache.hash(file, HashAlgorithm.SHA_256, () -> "wrong"), hash);
+        Assert.assertEquals(computations.get(), 1);
+        Assert.assertEquals(cache.getStats().hits, 1);
+        Assert.assertEquals(cache.getStats().misses, 1);
+        Assert.assertEquals(cache.getStats().getHitRate(), 0.5);
+
+        // other algorithm is cached separately
+        Assert.assertNull(cache.get(cache.key(file, HashAlgorithm.CRC)));
+
+        // cache survives restarts
+        cache.persist();
+
+        final HashCache reloaded = new HashCache(cacheDir, 100);
+        Assert.assertEquals(reloaded.get(reloaded.key(file, HashAlgorithm.SHA_256)), hash);
+
+        // changed file is not served from cache
+        Files.write(file, "other data".getBytes());
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+        Assert.assertNull(reloaded.get(reloaded.key(file, HashAlgorithm.SHA_256)));
+    }
+
+    @Test
+    public void entriesOfRemovedFilesAreEvicted() throws Exception {
+        final Path cacheDir = Files.createTempDirectory("hash-cache");
+        final Path tableDir = Files.createTempDirectory("hash-cache-data");
+        final Path snapshotDir = Files.createDirectories(tableDir.resolve("snapshots").resolve("snapshot1"));
+
+        final Path liveFile = tableDir.resolve("mc-1-big-Data.db");
+        final Path removedFile = tableDir.resolve("mc-2-big-Data.db");
+        Files.write(liveFile, "live".getBytes());
+        Files.write(removedFile, "removed".getBytes());
+
+        // hashed in a snapshot which is cleared afterwards, the file itself is still there
+        final Path snapshotFile = Files.createLink(snapshotDir.resolve(liveFile.getFileName()), liveFile);
+
+        final HashCache cache = new HashCache(cacheDir, 100);
+        cache.hash(snapshotFile, HashAlgorithm.SHA_256, () -> "hash1");
+        cache.hash(removedFile, HashAlgorithm.SHA_256, () -> "hash2");
+
+        Files.delete(snapshotFile);
+        Files.delete(removedFile);
+
+        cache.persist();
+
+        Assert.assertEquals(cache.getStats().entries, 1);
+        Assert.assertEquals(cache.get(cache.key(liveFile, HashAlgorithm.SHA_256)), "hash1");
+    }
+
+    @Test
+    public void entriesAreCheckedInBatches() throws Exception {
+        final Path cacheDir = Files.createTempDirectory("hash-cache");
+        final Path dataDir = Files.createTempDirectory("hash-cache-data");
+
+        final HashCache cache = new HashCache(cacheDir, 100, 1);
+
+        for (int i = 0; i < 2; i++) {
+            final Path file = dataDir.resolve("file" + i);
+            Files.write(file, ("content" + i).getBytes());
+            cache.hash(file, HashAlgorithm.CRC, () -> "hash");
+            Files.delete(file);
+        }
+
+        // just one entry is checked upon persisting, the other one on the next time
+        cache.persist();
+        Assert.assertEquals(cache.getStats().entries, 1);
+
+        cache.persist();
+        Assert.assertEquals(cache.getStats().entries, 0);
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvicted() throws Exception {
+        final Path cacheDir = Files.createTempDirectory("hash-cache");
+        final Path dataDir = Files.createTempDirectory("hash-cache-data");
+
+        final HashCache cache = new HashCache(cacheDir, 2);
+
+        for (int i = 0; i < 3; i++) {
+            final Path file = dataDir.resolve("file" + i);
+            Files.write(file, ("content" + i).getBytes());
+            cache.hash(file, HashAlgorithm.CRC, () -> "hash");
+            Thread.sleep(5);
+        }
+
+        cache.persist();
+
+        Assert.assertEquals(cache.getStats().entries, 2);
+        Assert.assertNull(cache.get(cache.key(dataDir.resolve("file0"), HashAlgorithm.CRC)));
+    }
+}
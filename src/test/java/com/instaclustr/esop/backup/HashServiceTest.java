@@ -1,11 +1,22 @@
 package com.instaclustr.esop.backup;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.util.Random;
+import java.util.zip.Checksum;
+
+import com.google.common.io.ByteStreams;
 
 import com.instaclustr.esop.impl.hash.HashService;
 import com.instaclustr.esop.impl.hash.HashServiceImpl;
 import com.instaclustr.esop.impl.hash.HashSpec;
+import com.instaclustr.esop.impl.hash.HashSpec.CRC32CHasher.GuavaCRC32C;
+import com.instaclustr.esop.impl.hash.HashSpec.HashAlgorithm;
+import com.instaclustr.esop.impl.hash.HashingInputStream;
+import com.instaclustr.esop.impl.hash.XXHash64;
+import org.testng.Assert;
 import org.testng.annotations.Test;
 
 public class HashServiceTest {
@@ -18,4 +29,70 @@ public class HashServiceTest {
         hashService.verify(f.toPath(), hashService.hash(f.toPath()));
     }
 
+    @Test
+    public void testHashingWhileReading() throws Exception {
+        final byte[] content = new byte[3 * 1024 * 1024 + 17];
+        new Random(1).nextBytes(content);
+
+        final File f = File.createTempFile("hashingTest", ".tmp");
+        f.deleteOnExit();
+        Files.write(f.toPath(), content);
+
+        for (final HashAlgorithm algorithm : HashAlgorithm.values()) {
+            final HashSpec hashSpec = new HashSpec(algorithm);
+
+            try (final HashingInputStream is = new HashingInputStream(new ByteArrayInputStream(content), hashSpec)) {
+                ByteStreams.exhaust(is);
+
+                Assert.assertEquals(is.getBytesRead(), content.length);
+                Assert.assertEquals(is.getHash(), new HashServiceImpl(hashSpec).hash(f.toPath()), algorithm.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testKnownHashes() throws Exception {
+        Assert.assertEquals(hash(HashAlgorithm.SHA_256, ""), "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855");
+        Assert.assertEquals(hash(HashAlgorithm.CRC, "123456789"), Long.toString(0xCBF43926L));
+        Assert.assertEquals(hash(HashAlgorithm.CRC32C, "123456789"), Long.toString(0xE3069283L));
+        Assert.assertEquals(hash(HashAlgorithm.XXHASH64, ""), "ef46db3751d8e999");
+        Assert.assertEquals(hash(HashAlgorithm.XXHASH64, "a"), "d24ec4f1a98c6e5b");
+        Assert.assertEquals(hash(HashAlgorithm.XXHASH64, "abc"), "44bc2cf5ad770999");
+    }
+
+    @Test
+    public void testCRC32CFallback() throws Exception {
+        final byte[] content = new byte[100_000];
+        new Random(2).nextBytes(content);
+
+        final Checksum fallback = new GuavaCRC32C();
+        fallback.update(content, 0, content.length);
+
+        Assert.assertEquals(Long.toString(fallback.getValue()),
+                            HashAlgorithm.CRC32C.getHasher().getHash(new ByteArrayInputStream(content)));
+    }
+
+    @Test
+    public void testIncrementalXXHash64() {
+        final byte[] content = new byte[1000];
+        new Random(3).nextBytes(content);
+
+        final XXHash64 whole = new XXHash64();
+        whole.update(content, 0, content.length);
+
+        // feeding by chunks of all sizes gives the same hash as feeding all bytes at once
+        for (int chunk = 1; chunk < 70; chunk++) {
+            final XXHash64 chunked = new XXHash64();
+
+            for (int offset = 0; offset < content.length; offset += chunk) {
+                chunked.update(content, offset, Math.min(chunk, content.length - offset));
+            }
+
+            Assert.assertEquals(chunked.getValue(), whole.getValue(), "chunk of size " + chunk);
+        }
+    }
+
+    private String hash(final HashAlgorithm algorithm, final String content) throws Exception {
+        return algorithm.getHasher().getHash(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)));
+    }
 }
@@ -0,0 +1,129 @@
+package com.instaclustr.esop.backup;
+
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.instaclustr.esop.impl.ManifestEntry;
+import com.instaclustr.esop.impl.RemoteObjectReference;
+import com.instaclustr.esop.impl.StorageLocation;
+import com.instaclustr.esop.impl.restore.RestoreOperationRequest;
+import com.instaclustr.esop.local.LocalFileObjectReference;
+import com.instaclustr.esop.local.LocalFileRestorer;
+import com.instaclustr.esop.s3.v2.BaseS3Restorer;
+import com.instaclustr.esop.s3.v2.S3ClientsFactory.S3Clients;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+public class ManifestCacheSyncTest {
+
+    @Test
+    public void testManifestsAreSynchronisedIncrementally() throws Exception {
+        final Path backupDir = Files.createTempDirectory("manifest-sync");
+        final Path cacheDir = Files.createTempDirectory("manifest-sync-cache");
+
+        final Path first = Paths.get("cluster/dc/node1/manifests/snapshot1-1600000000000.json");
+        final Path second = Paths.get("cluster/dc/node1/manifests/snapshot2-1600000001000.json");
+        final Path removed = Paths.get("cluster/dc/node2/manifests/snapshot1-1600000000000.json");
+
+        for (final Path manifest : Arrays.asList(first, second)) {
+            Files.createDirectories(backupDir.resolve("bucket").resolve(manifest).getParent());
+            Files.write(backupDir.resolve("bucket").resolve(manifest), manifest.toString().getBytes());
+        }
+
+        // first is cached already, removed is not in the bucket anymore, a torn download is left behind
+        for (final Path manifest : Arrays.asList(first, removed)) {
+            Files.createDirectories(cacheDir.resolve(manifest).getParent());
+            Files.write(cacheDir.resolve(manifest), "cached".getBytes());
+        }
+        Files.write(cacheDir.resolve(second.toString() + ".download"), "torn".getBytes());
+
+        final RestoreOperationRequest request = new RestoreOperationRequest();
+        request.storageLocation = new StorageLocation("file://" + backupDir + "/bucket/cluster/dc/node1");
+        request.concurrentConnections = 4;
+
+        final Map<Path, AtomicInteger> downloads = new ConcurrentHashMap<>();
+
+        try (final LocalFileRestorer restorer = new LocalFileRestorer(request) {
+            @Override
+            public RemoteObjectReference objectKeyToRemoteReference(final Path objectKey) {
+                return new LocalFileObjectReference(objectKey, objectKey.toString());
+            }
+
+            @Override
+            public void downloadFile(final Path localFilePath, final ManifestEntry manifestEntry, final RemoteObjectReference objectReference) throws Exception {
+                downloads.computeIfAbsent(objectReference.getObjectKey(), key -> new AtomicInteger()).incrementAndGet();
+                super.downloadFile(localFilePath, manifestEntry, objectReference);
+            }
+        }) {
+            final List<Path> manifestKeys = Arrays.asList(first, second);
+
+            restorer.syncManifestsToDirectory(cacheDir, manifestKeys);
+
+            // only the missing manifest is downloaded, cached one is trusted as manifests never change
+            Assert.assertEquals(downloads.keySet(), Collections.singleton(second));
+            Assert.assertEquals(new String(Files.readAllBytes(cacheDir.resolve(first))), "cached");
+            Assert.assertEquals(new String(Files.readAllBytes(cacheDir.resolve(second))), second.toString());
+            Assert.assertFalse(Files.exists(cacheDir.resolve(second.toString() + ".download")));
+            Assert.assertFalse(Files.exists(cacheDir.resolve(removed)));
+            Assert.assertFalse(Files.exists(cacheDir.resolve("cluster/dc/node2")));
+
+            restorer.syncManifestsToDirectory(cacheDir, manifestKeys);
+
+            Assert.assertEquals(downloads.get(second).get(), 1);
+        }
+    }
+
+    @Test
+    public void testManifestsOfAllPagesOfS3ListingAreKept() throws Exception {
+        final Path cacheDir = Files.createTempDirectory("manifest-sync-cache");
+
+        final Path first = Paths.get("cluster/dc/node/manifests/snapshot1-1600000000000.json");
+        final Path second = Paths.get("cluster/dc/node/manifests/snapshot2-1600000001000.json");
+
+        for (final Path manifest : Arrays.asList(first, second)) {
+            Files.createDirectories(cacheDir.resolve(manifest).getParent());
+            Files.write(cacheDir.resolve(manifest), "cached".getBytes());
+        }
+
+        final RestoreOperationRequest request = new RestoreOperationRequest();
+        request.storageLocation = new StorageLocation("s3://bucket/cluster/dc/node");
+
+        // every manifest is on its own page of a listing
+        final S3Client client = (S3Client) Proxy.newProxyInstance(S3Client.class.getClassLoader(), new Class<?>[]{S3Client.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "listObjectsV2":
+                    if (((ListObjectsV2Request) args[0]).continuationToken() == null) {
+                        return ListObjectsV2Response.builder()
+                                                    .contents(S3Object.builder().key(first.toString()).build())
+                                                    .isTruncated(true)
+                                                    .nextContinuationToken("page2")
+                                                    .build();
+                    }
+                    return ListObjectsV2Response.builder().contents(S3Object.builder().key(second.toString()).build()).isTruncated(false).build();
+                case "close":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+
+        try (final BaseS3Restorer restorer = new BaseS3Restorer(new S3Clients(client), request)) {
+            restorer.downloadManifestsToDirectory(cacheDir);
+        }
+
+        Assert.assertTrue(Files.exists(cacheDir.resolve(first)));
+        Assert.assertTrue(Files.exists(cacheDir.resolve(second)));
+    }
+}
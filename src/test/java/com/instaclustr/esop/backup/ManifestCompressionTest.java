@@ -0,0 +1,38 @@
+package com.instaclustr.esop.backup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instaclustr.esop.impl.Manifest;
+import com.instaclustr.esop.impl.ManifestCompression;
+import com.instaclustr.esop.impl.ManifestSummaryReader;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ManifestCompressionTest {
+
+    @Test
+    public void testCompressedManifestIsReadAsPlainOne() throws Exception {
+        final ObjectMapper objectMapper = new ObjectMapper();
+        final Path plainManifest = Paths.get("src/test/resources/cassandra-data-test-manifest.json");
+        final Manifest manifest = Manifest.read(plainManifest, objectMapper);
+
+        final byte[] compressed = ManifestCompression.compress(manifest, objectMapper);
+        final Path compressedManifest = Files.createTempDirectory("manifest-compression").resolve("snapshot1-1600000000000.json");
+        Files.write(compressedManifest, compressed);
+
+        Assert.assertTrue(compressed.length * 5 < Files.size(plainManifest));
+
+        Assert.assertEquals(Manifest.read(compressedManifest, objectMapper), manifest);
+        Assert.assertEquals(Manifest.read(ManifestCompression.toString(new ByteArrayInputStream(compressed)), objectMapper), manifest);
+        Assert.assertEquals(ManifestCompression.toString(Files.newInputStream(plainManifest)), new String(Files.readAllBytes(plainManifest)));
+
+        final AtomicInteger entries = new AtomicInteger();
+        new ManifestSummaryReader(objectMapper).read(compressedManifest, (objectKey, size) -> entries.incrementAndGet());
+        Assert.assertEquals(entries.get(), manifest.getManifestEntries(false).size());
+    }
+}
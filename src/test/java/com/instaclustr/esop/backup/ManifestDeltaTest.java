@@ -0,0 +1,194 @@
+package com.instaclustr.esop.backup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instaclustr.esop.impl.KeyspaceTable;
+import com.instaclustr.esop.impl.Manifest;
+import com.instaclustr.esop.impl.Manifest.AllManifestsReport;
+import com.instaclustr.esop.impl.Manifest.ManifestReporter.ManifestReport;
+import com.instaclustr.esop.impl.ManifestEntry;
+import com.instaclustr.esop.impl.ManifestEntry.Type;
+import com.instaclustr.esop.impl.ManifestSummaryReader;
+import com.instaclustr.esop.impl.Snapshots.Snapshot;
+import com.instaclustr.esop.impl.Snapshots.Snapshot.Keyspace;
+import com.instaclustr.esop.impl.Snapshots.Snapshot.Keyspace.Table;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import static com.instaclustr.esop.impl.remove.RemoveBackupOperation.withoutParentsOfRemainingBackups;
+import static java.util.stream.Collectors.toSet;
+
+public class ManifestDeltaTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testDeltaIsMaterialisedByItsParent() throws Exception {
+        final Manifest parent = manifest("manifests/snapshot1-1600000000000.json", "1", "2", "3");
+        final Manifest delta = manifest("manifests/snapshot2-1600000001000.json", "2", "3", "4").toDelta(parent);
+
+        Assert.assertTrue(delta.isDelta());
+        Assert.assertEquals(delta.getParent(), "manifests/snapshot1-1600000000000.json");
+        Assert.assertEquals(delta.getChainLength(), 1);
+        Assert.assertEquals(keys(delta), keys("4"));
+        Assert.assertEquals(delta.getRemovedEntries(), Collections.singletonList("data/ks1/tb1/nb-1-big-Data.db"));
+
+        final Manifest read = Manifest.read(Manifest.write(delta, objectMapper), objectMapper);
+        Assert.assertEquals(read.getParent(), delta.getParent());
+        Assert.assertEquals(read.getChainLength(), delta.getChainLength());
+        Assert.assertEquals(read.getRemovedEntries(), delta.getRemovedEntries());
+        Assert.assertEquals(keys(read), keys("4"));
+
+        read.materialize(parent);
+
+        Assert.assertFalse(read.isDelta());
+        Assert.assertEquals(keys(read), keys("2", "3", "4"));
+        Assert.assertEquals(read.getObjectKey(), "manifests/snapshot2-1600000001000.json");
+    }
+
+    @Test
+    public void testFullManifestHasNoChainFields() throws Exception {
+        final Manifest manifest = manifest(null, "1");
+
+        final String json = Manifest.write(manifest, objectMapper);
+
+        Assert.assertFalse(json.contains("\"parent\""));
+        Assert.assertFalse(json.contains("\"chainLength\""));
+        Assert.assertFalse(json.contains("\"removedEntries\""));
+        Assert.assertFalse(Manifest.read(json, objectMapper).isDelta());
+    }
+
+    @Test
+    public void testReportOfChainOfDeltas() throws Exception {
+        final List<ManifestEntry> manifestEntries = writeChain();
+
+        final AllManifestsReport streamed = AllManifestsReport.report(manifestEntries, new ManifestSummaryReader(objectMapper));
+
+        final List<Manifest> manifests = new ArrayList<>();
+
+        for (final ManifestEntry manifestEntry : manifestEntries) {
+            final Manifest manifest = Manifest.read(manifestEntry.localFile, objectMapper);
+            manifest.setManifest(manifestEntry);
+            manifests.add(manifest);
+        }
+
+        Manifest.materialize(manifests);
+
+        Assert.assertEquals(keys(manifests.get(0)), keys("3", "4", "5"));
+
+        final AllManifestsReport expected = AllManifestsReport.report(manifests);
+
+        Assert.assertEquals(streamed.totalFiles, 5);
+        Assert.assertEquals(streamed.totalFiles, expected.totalFiles);
+        Assert.assertEquals(streamed.totalSize, expected.totalSize);
+
+        for (int i = 0; i < expected.reports.size(); i++) {
+            final ManifestReport expectedReport = expected.reports.get(i);
+            final ManifestReport streamedReport = streamed.reports.get(i);
+
+            Assert.assertEquals(streamedReport.files, 3);
+            Assert.assertEquals(streamedReport.files, expectedReport.files);
+            Assert.assertEquals(streamedReport.size, expectedReport.size);
+            Assert.assertEquals(streamedReport.parent, expectedReport.parent);
+            Assert.assertEqualsNoOrder(streamedReport.removableEntries.toArray(), expectedReport.removableEntries.toArray());
+        }
+
+        Assert.assertEquals(streamed.reports.get(0).parent, "manifests/snapshot2-1600000001000.json");
+        Assert.assertEquals(streamed.reports.get(0).removableEntries, Collections.singletonList("data/ks1/tb1/nb-5-big-Data.db"));
+        Assert.assertEquals(streamed.reports.get(1).removableEntries, Collections.emptyList());
+        Assert.assertEquals(streamed.reports.get(2).removableEntries, Collections.singletonList("data/ks1/tb1/nb-1-big-Data.db"));
+    }
+
+    @Test
+    public void testRemovalKeepsChainsOfDeltasWhole() throws Exception {
+        final AllManifestsReport report = AllManifestsReport.report(writeChain(), new ManifestSummaryReader(objectMapper));
+
+        final ManifestReport delta2 = report.reports.get(0);
+        final ManifestReport delta1 = report.reports.get(1);
+        final ManifestReport full = report.reports.get(2);
+
+        // oldest backup has deltas which are not removed
+        Assert.assertEquals(withoutParentsOfRemainingBackups(report, Collections.singletonList(full)), Collections.emptyList());
+        Assert.assertEquals(withoutParentsOfRemainingBackups(report, Collections.singletonList(delta1)), Collections.emptyList());
+        // the newest delta of a chain is not a parent of any backup
+        Assert.assertEquals(withoutParentsOfRemainingBackups(report, Collections.singletonList(delta2)), Collections.singletonList(delta2));
+        // a delta of a delta is not removed so neither its parent nor the full manifest are
+        Assert.assertEquals(withoutParentsOfRemainingBackups(report, Arrays.asList(delta1, full)), Collections.emptyList());
+        // a chain is removed only as a whole
+        Assert.assertEquals(withoutParentsOfRemainingBackups(report, Arrays.asList(delta2, delta1, full)), Arrays.asList(delta2, delta1, full));
+    }
+
+    /**
+     * @return entries of a full manifest, its delta and a delta of that delta, newest first as manifests are listed
+     */
+    private List<ManifestEntry> writeChain() throws Exception {
+        final Path dir = Files.createTempDirectory("manifest-delta");
+
+        final Manifest full = manifest("manifests/snapshot1-1600000000000.json", "1", "2", "3");
+        final Manifest delta1 = manifest("manifests/snapshot2-1600000001000.json", "2", "3", "4").toDelta(full);
+        final Manifest delta2 = manifest("manifests/snapshot3-1600000002000.json", "3", "4", "5")
+            .toDelta(manifest("manifests/snapshot2-1600000001000.json", "2", "3", "4").toDelta(full).materialize(full));
+
+        Assert.assertEquals(delta2.getChainLength(), 2);
+        Assert.assertEquals(keys(delta2), keys("5"));
+
+        final List<ManifestEntry> manifestEntries = new ArrayList<>();
+        manifestEntries.add(write(delta2, dir));
+        manifestEntries.add(write(delta1, dir));
+        manifestEntries.add(write(full, dir));
+
+        return manifestEntries;
+    }
+
+    private ManifestEntry write(final Manifest manifest, final Path dir) throws Exception {
+        final Path objectKey = Paths.get(manifest.getObjectKey());
+        final Path localFile = dir.resolve(objectKey.getFileName());
+        Files.write(localFile, Manifest.write(manifest, objectMapper).getBytes());
+        return new ManifestEntry(objectKey, localFile, Type.FILE, null, null);
+    }
+
+    private Set<Path> keys(final Manifest manifest) {
+        return manifest.getManifestEntries(false).stream().map(entry -> entry.objectKey).collect(toSet());
+    }
+
+    private Set<Path> keys(final String... generations) {
+        return Arrays.stream(generations).map(this::objectKey).collect(toSet());
+    }
+
+    private Path objectKey(final String generation) {
+        return Paths.get("data/ks1/tb1/nb-" + generation + "-big-Data.db");
+    }
+
+    private Manifest manifest(final String objectKey, final String... generations) {
+        final Table table = new Table("tb1", null);
+
+        for (final String generation : generations) {
+            table.add("nb-" + generation + "-big", new ManifestEntry(objectKey(generation),
+                                                                     null,
+                                                                     Type.FILE,
+                                                                     100,
+                                                                     new KeyspaceTable("ks1", "tb1"),
+                                                                     null,
+                                                                     null));
+        }
+
+        final Keyspace keyspace = new Keyspace();
+        keyspace.add("tb1", table);
+
+        final Snapshot snapshot = new Snapshot();
+        snapshot.add("ks1", keyspace);
+
+        final Manifest manifest = new Manifest(snapshot);
+        manifest.setObjectKey(objectKey);
+
+        return manifest;
+    }
+}
@@ -0,0 +1,94 @@
+package com.instaclustr.esop.backup;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.instaclustr.esop.impl.KeyspaceTable;
+import com.instaclustr.esop.impl.Manifest;
+import com.instaclustr.esop.impl.Manifest.AllManifestsReport;
+import com.instaclustr.esop.impl.ManifestEntry;
+import com.instaclustr.esop.impl.ManifestEntry.Type;
+import com.instaclustr.esop.impl.Snapshots.Snapshot;
+import com.instaclustr.esop.impl.Snapshots.Snapshot.Keyspace;
+import com.instaclustr.esop.impl.Snapshots.Snapshot.Keyspace.Table;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+@Test(groups = {
+    "benchmarkTest",
+})
+public class ManifestIndexBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ManifestIndexBenchmarkTest.class);
+
+    private static final int NUMBER_OF_MANIFESTS = Integer.getInteger("benchmark.manifests", 1_000);
+
+    private static final int ENTRIES_PER_MANIFEST = Integer.getInteger("benchmark.manifest.entries", 1_000);
+
+    // every sstable is referenced by this many consecutive manifests, as if it was compacted away after that
+    private static final int MANIFESTS_PER_SSTABLE = 10;
+
+    private static final long ENTRY_SIZE = 1024;
+
+    @Test
+    public void benchmarkAllManifestsReport() {
+        final int newEntriesPerManifest = Math.max(1, ENTRIES_PER_MANIFEST / MANIFESTS_PER_SSTABLE);
+        final List<Manifest> manifests = new ArrayList<>();
+
+        for (int i = 0; i < NUMBER_OF_MANIFESTS; i++) {
+            manifests.add(manifest(i, i * newEntriesPerManifest, ENTRIES_PER_MANIFEST));
+        }
+
+        final long start = System.nanoTime();
+        final AllManifestsReport report = AllManifestsReport.report(manifests);
+        final long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+        logger.info("Reported {} manifests of {} entries each in {} ms", NUMBER_OF_MANIFESTS, ENTRIES_PER_MANIFEST, elapsed);
+
+        final int distinctEntries = (NUMBER_OF_MANIFESTS - 1) * newEntriesPerManifest + ENTRIES_PER_MANIFEST;
+
+        assertEquals(report.totalManifests, NUMBER_OF_MANIFESTS);
+        assertEquals(report.totalFiles, distinctEntries);
+        assertEquals(report.totalSize, distinctEntries * ENTRY_SIZE);
+
+        // only sstables which are not shared with the next manifest are removable with the first one
+        assertEquals(report.reports.get(0).removableEntries.size(), Math.min(newEntriesPerManifest, ENTRIES_PER_MANIFEST));
+        assertEquals(report.reports.get(0).reclaimableSpace, Math.min(newEntriesPerManifest, ENTRIES_PER_MANIFEST) * ENTRY_SIZE);
+    }
+
+    private static Manifest manifest(final int number, final int firstGeneration, final int entries) {
+        final Table table = new Table("table1", "a5f3b2c0e1d411eb8c3f0d7b2e6a9c41");
+
+        for (int generation = firstGeneration; generation < firstGeneration + entries; generation++) {
+            final String sstable = "nb-" + generation + "-big";
+            table.add(sstable, new ManifestEntry(Paths.get("data/ks1/table1-a5f3b2c0e1d411eb8c3f0d7b2e6a9c41/" + sstable + "-Data.db"),
+                                                 null,
+                                                 Type.FILE,
+                                                 ENTRY_SIZE,
+                                                 new KeyspaceTable("ks1", "table1"),
+                                                 null,
+                                                 null));
+        }
+
+        final Keyspace keyspace = new Keyspace();
+        keyspace.add("table1", table);
+
+        final Snapshot snapshot = new Snapshot();
+        snapshot.add("ks1", keyspace);
+
+        final Manifest manifest = new Manifest(snapshot);
+        manifest.setManifest(new ManifestEntry(Paths.get("manifests/snapshot-" + number + "-" + (1_600_000_000_000L + number) + ".json"),
+                                               null,
+                                               Type.MANIFEST_FILE,
+                                               100,
+                                               null,
+                                               null,
+                                               null));
+        return manifest;
+    }
+}
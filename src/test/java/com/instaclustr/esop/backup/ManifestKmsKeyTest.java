@@ -0,0 +1,41 @@
+package com.instaclustr.esop.backup;
+
+import java.nio.file.Paths;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instaclustr.esop.impl.Manifest;
+import com.instaclustr.esop.impl.ManifestEntry;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ManifestKmsKeyTest {
+
+    @Test
+    public void testKmsKeyIdIsRecordedInManifest() throws Exception {
+        final ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.setDefaultPropertyInclusion(JsonInclude.Include.NON_ABSENT);
+
+        final Manifest manifest = Manifest.read(Paths.get("src/test/resources/cassandra-data-test-manifest.json"), objectMapper);
+
+        // older manifests do not know whether their files are encrypted
+        Assert.assertFalse(manifest.getManifestEntries(false).isEmpty());
+        for (final ManifestEntry entry : manifest.getManifestEntries(false)) {
+            Assert.assertFalse(entry.kmsKeyIdRecorded);
+        }
+
+        manifest.recordKmsKeyId("some-kms-key");
+
+        for (final ManifestEntry entry : Manifest.read(Manifest.write(manifest, objectMapper), objectMapper).getManifestEntries(false)) {
+            Assert.assertTrue(entry.kmsKeyIdRecorded);
+            Assert.assertEquals(entry.kmsKeyId, "some-kms-key");
+        }
+
+        manifest.recordKmsKeyId(null);
+
+        for (final ManifestEntry entry : Manifest.read(Manifest.write(manifest, objectMapper), objectMapper).getManifestEntries(false)) {
+            Assert.assertTrue(entry.kmsKeyIdRecorded);
+            Assert.assertNull(entry.kmsKeyId);
+        }
+    }
+}
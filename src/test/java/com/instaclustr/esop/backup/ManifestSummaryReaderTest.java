@@ -0,0 +1,104 @@
+package com.instaclustr.esop.backup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.instaclustr.esop.impl.KeyspaceTable;
+import com.instaclustr.esop.impl.Manifest;
+import com.instaclustr.esop.impl.Manifest.AllManifestsReport;
+import com.instaclustr.esop.impl.Manifest.ManifestReporter.ManifestReport;
+import com.instaclustr.esop.impl.ManifestEntry;
+import com.instaclustr.esop.impl.ManifestEntry.Type;
+import com.instaclustr.esop.impl.ManifestSummaryReader;
+import com.instaclustr.esop.impl.Snapshots.Snapshot;
+import com.instaclustr.esop.impl.Snapshots.Snapshot.Keyspace;
+import com.instaclustr.esop.impl.Snapshots.Snapshot.Keyspace.Table;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ManifestSummaryReaderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testStreamedReportIsSameAsReportOfReadManifests() throws Exception {
+        final Path dir = Files.createTempDirectory("manifest-summary");
+
+        final List<ManifestEntry> manifestEntries = new ArrayList<>();
+
+        // manifests before 2.0.0 have entries of tables, not sstables
+        manifestEntries.add(copy(Paths.get("src/test/resources/cassandra-data-test-manifest.json"), dir, "snapshot1-1600000000000.json"));
+        manifestEntries.add(write(manifest("1", "2"), dir, "snapshot2-1600000001000.json"));
+        manifestEntries.add(write(manifest("2", "3"), dir, "snapshot3-1600000002000.json"));
+
+        final List<Manifest> manifests = new ArrayList<>();
+
+        for (final ManifestEntry manifestEntry : manifestEntries) {
+            final Manifest manifest = Manifest.read(manifestEntry.localFile, objectMapper);
+            manifest.setManifest(manifestEntry);
+            manifests.add(manifest);
+        }
+
+        final AllManifestsReport expected = AllManifestsReport.report(manifests);
+        final AllManifestsReport streamed = AllManifestsReport.report(manifestEntries, new ManifestSummaryReader(objectMapper));
+
+        Assert.assertEquals(streamed.totalFiles, expected.totalFiles);
+        Assert.assertEquals(streamed.totalSize, expected.totalSize);
+        Assert.assertEquals(streamed.totalManifests, 3);
+
+        for (int i = 0; i < expected.reports.size(); i++) {
+            final ManifestReport expectedReport = expected.reports.get(i);
+            final ManifestReport streamedReport = streamed.reports.get(i);
+
+            Assert.assertEquals(streamedReport.name, expectedReport.name);
+            Assert.assertEquals(streamedReport.files, expectedReport.files);
+            Assert.assertEquals(streamedReport.size, expectedReport.size);
+            Assert.assertEquals(streamedReport.reclaimableSpace, expectedReport.reclaimableSpace);
+            Assert.assertEqualsNoOrder(streamedReport.removableEntries.toArray(), expectedReport.removableEntries.toArray());
+            Assert.assertEquals(streamedReport.unixtimestamp, expectedReport.unixtimestamp);
+            Assert.assertSame(streamedReport.manifest, manifestEntries.get(i));
+        }
+
+        Assert.assertTrue(streamed.reports.get(0).files > 0);
+        Assert.assertEquals(streamed.reports.get(1).removableEntries, Arrays.asList("data/ks1/tb1/nb-1-big-Data.db"));
+    }
+
+    private ManifestEntry copy(final Path manifest, final Path dir, final String name) throws Exception {
+        final Path localFile = dir.resolve(name);
+        Files.copy(manifest, localFile);
+        return new ManifestEntry(Paths.get("manifests", name), localFile, Type.FILE, null, null);
+    }
+
+    private ManifestEntry write(final Manifest manifest, final Path dir, final String name) throws Exception {
+        final Path localFile = dir.resolve(name);
+        Files.write(localFile, Manifest.write(manifest, objectMapper).getBytes());
+        return new ManifestEntry(Paths.get("manifests", name), localFile, Type.FILE, null, null);
+    }
+
+    private Manifest manifest(final String... generations) {
+        final Table table = new Table("tb1", null);
+
+        for (final String generation : generations) {
+            table.add("nb-" + generation + "-big", new ManifestEntry(Paths.get("data/ks1/tb1/nb-" + generation + "-big-Data.db"),
+                                                                     null,
+                                                                     Type.FILE,
+                                                                     100,
+                                                                     new KeyspaceTable("ks1", "tb1"),
+                                                                     null,
+                                                                     null));
+        }
+
+        final Keyspace keyspace = new Keyspace();
+        keyspace.add("tb1", table);
+
+        final Snapshot snapshot = new Snapshot();
+        snapshot.add("ks1", keyspace);
+
+        return new Manifest(snapshot);
+    }
+}
@@ -0,0 +1,100 @@
+package com.instaclustr.esop.backup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.instaclustr.esop.s3.v2.PartBufferPool;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class PartBufferPoolTest {
+
+    @Test
+    public void poolIsCapped() throws Exception {
+        final PartBufferPool pool = new PartBufferPool(1024, 2048, false);
+
+        final ByteBuffer first = pool.acquire();
+        final ByteBuffer second = pool.acquire();
+
+        Assert.assertEquals(first.capacity(), 1024);
+        Assert.assertNotSame(first, second);
+
+        final CompletableFuture<ByteBuffer> third = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.acquire();
+            } catch (final InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+
+        try {
+            third.get(500, TimeUnit.MILLISECONDS);
+            Assert.fail("pool should not give more buffers than its size allows");
+        } catch (final TimeoutException ex) {
+            // expected
+        }
+
+        first.put((byte) 1);
+        pool.release(first);
+
+        final ByteBuffer reused = third.get(5, TimeUnit.SECONDS);
+
+        Assert.assertSame(reused, first);
+        Assert.assertEquals(reused.position(), 0);
+        Assert.assertEquals(reused.limit(), 1024);
+
+        pool.release(second);
+        pool.release(reused);
+    }
+
+    @Test
+    public void directBuffers() throws Exception {
+        final PartBufferPool pool = new PartBufferPool(1024, 1, true);
+
+        final ByteBuffer buffer = pool.acquire();
+
+        Assert.assertTrue(buffer.isDirect());
+
+        pool.release(buffer);
+    }
+
+    @Test
+    public void buffersAreOnlyAsBigAsParts() throws Exception {
+        final PartBufferPool pool = new PartBufferPool(1024, 2048, false);
+
+        final ByteBuffer full = pool.acquire();
+        pool.release(full);
+
+        // the full buffer kept for reuse gives its bytes to smaller ones
+        final ByteBuffer first = pool.acquire(600);
+        final ByteBuffer second = pool.acquire(600);
+        final ByteBuffer third = pool.acquire(600);
+
+        Assert.assertEquals(first.capacity(), 600);
+        Assert.assertEquals(first.limit(), 600);
+
+        final CompletableFuture<ByteBuffer> fourth = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.acquire(600);
+            } catch (final InterruptedException ex) {
+                throw new RuntimeException(ex);
+            }
+        });
+
+        try {
+            fourth.get(500, TimeUnit.MILLISECONDS);
+            Assert.fail("pool should not give more bytes than its size");
+        } catch (final TimeoutException ex) {
+            // expected
+        }
+
+        pool.release(first);
+
+        Assert.assertEquals(fourth.get(5, TimeUnit.SECONDS).capacity(), 600);
+
+        pool.release(second);
+        pool.release(third);
+    }
+}
@@ -0,0 +1,139 @@
+package com.instaclustr.esop.backup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import com.instaclustr.esop.impl.ManifestEntry;
+import com.instaclustr.esop.impl.ManifestEntry.Type;
+import com.instaclustr.esop.impl.StorageLocation;
+import com.instaclustr.esop.impl.hash.HashSpec;
+import com.instaclustr.esop.impl.hash.HashSpec.HashAlgorithm;
+import com.instaclustr.esop.impl.restore.RangedDownloader;
+import com.instaclustr.esop.impl.restore.RestoreOperationRequest;
+import com.instaclustr.esop.impl.restore.Restorer.DownloadDigest;
+import com.instaclustr.esop.impl.retry.RetrySpec;
+import com.instaclustr.esop.impl.retry.RetrySpec.RetryStrategy;
+import com.instaclustr.esop.s3.v2.BaseS3Restorer;
+import com.instaclustr.esop.s3.v2.S3ClientsFactory.S3Clients;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.s3.S3Client;
+
+public class RangedDownloaderTest {
+
+    @Test
+    public void testRangedDownload() throws Exception {
+        final byte[] content = new byte[10_000];
+        new Random(0).nextBytes(content);
+
+        final Path localFile = Files.createTempDirectory("ranged-download").resolve("nb-1-big-Data.db");
+        Files.write(localFile, "previous content".getBytes());
+
+        final Map<Long, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        final DownloadDigest digest = new DownloadDigest(new HashSpec(HashAlgorithm.SHA_256));
+
+        try (final RangedDownloader downloader = new RangedDownloader(1024, 3, 1, noBackOff(3), Function.identity())) {
+            Assert.assertFalse(downloader.isRanged(1024L));
+            Assert.assertFalse(downloader.isRanged(null));
+            Assert.assertTrue(downloader.isRanged((long) content.length));
+
+            downloader.download(localFile, content.length, (offset, length) -> {
+                // the first attempt of one range fails in the middle of it, only that range is downloaded again
+                if (attempts.computeIfAbsent(offset, o -> new AtomicInteger()).incrementAndGet() == 1 && offset == 2048) {
+                    return failingStream(content, offset, length / 2);
+                }
+                return new ByteArrayInputStream(content, (int) offset, (int) length);
+            }, digest);
+        }
+
+        Assert.assertTrue(Arrays.equals(Files.readAllBytes(localFile), content));
+        // ranges are hashed in order of their offsets even when a range before them is downloaded again
+        Assert.assertEquals(digest.getHash(localFile), HashAlgorithm.SHA_256.getHasher().getHash(new ByteArrayInputStream(content)));
+        Assert.assertEquals(attempts.size(), 10);
+        Assert.assertEquals(attempts.get(2048L).get(), 2);
+        Assert.assertEquals(attempts.values().stream().mapToInt(AtomicInteger::get).sum(), 11);
+        Assert.assertFalse(Files.exists(localFile.resolveSibling("nb-1-big-Data.db.download")));
+    }
+
+    @Test
+    public void testFailedDownloadLeavesNoFile() throws Exception {
+        final Path localFile = Files.createTempDirectory("ranged-download").resolve("nb-1-big-Data.db");
+
+        try (final RangedDownloader downloader = new RangedDownloader(1024, 2, 1, noBackOff(1), Function.identity())) {
+            downloader.download(localFile, 4096, (offset, length) -> failingStream(new byte[4096], offset, 10));
+            Assert.fail("download should fail");
+        } catch (final Exception ex) {
+            // expected
+        }
+
+        Assert.assertFalse(Files.exists(localFile));
+        Assert.assertFalse(Files.exists(localFile.resolveSibling("nb-1-big-Data.db.download")));
+    }
+
+    @Test
+    public void testFailedRangedDownloadOfS3ObjectIsRethrown() throws Exception {
+        final Path localFile = Files.createTempDirectory("ranged-download").resolve("nb-1-big-Data.db");
+
+        final RestoreOperationRequest request = new RestoreOperationRequest();
+        request.storageLocation = new StorageLocation("s3://bucket/cluster/dc/node");
+        request.retry = noBackOff(3);
+
+        final S3Client client = (S3Client) Proxy.newProxyInstance(S3Client.class.getClassLoader(), new Class<?>[]{S3Client.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getObject":
+                    throw SdkClientException.create("connection reset");
+                case "close":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+
+        final ManifestEntry entry = new ManifestEntry(Paths.get("data/ks1/t1/nb-1-big-Data.db"), localFile, Type.FILE, RangedDownloader.getPartSize() + 1, null, null, null);
+        entry.kmsKeyIdRecorded = true;
+
+        try (final BaseS3Restorer restorer = new BaseS3Restorer(new S3Clients(client), request)) {
+            restorer.downloadFile(localFile, entry, restorer.objectKeyToNodeAwareRemoteReference(entry.objectKey));
+            Assert.fail("download should fail");
+        } catch (final RuntimeException ex) {
+            Assert.assertTrue(ex.getCause() != null);
+        }
+
+        Assert.assertFalse(Files.exists(localFile));
+        Assert.assertFalse(Files.exists(localFile.resolveSibling("nb-1-big-Data.db.download")));
+    }
+
+    /**
+     * @return retry spec which retries immediately so a test does not sleep
+     */
+    private static RetrySpec noBackOff(final int maxAttempts) {
+        final RetrySpec retry = new RetrySpec(1, RetryStrategy.LINEAR, maxAttempts, true);
+        retry.interval = 0;
+        return retry;
+    }
+
+    private static InputStream failingStream(final byte[] content, final long offset, final long length) {
+        return new ByteArrayInputStream(content, (int) offset, (int) length) {
+            @Override
+            public synchronized int read(final byte[] b, final int off, final int len) {
+                final int read = super.read(b, off, len);
+                if (read == -1) {
+                    throw new RuntimeException(new IOException("connection reset"));
+                }
+                return read;
+            }
+        };
+    }
+}
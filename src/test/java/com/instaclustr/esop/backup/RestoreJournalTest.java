@@ -0,0 +1,59 @@
+package com.instaclustr.esop.backup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+
+import com.instaclustr.esop.impl.ManifestEntry;
+import com.instaclustr.esop.impl.ManifestEntry.Type;
+import com.instaclustr.esop.impl.restore.RestoreJournal;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class RestoreJournalTest {
+
+    @Test
+    public void testJournal() throws Exception {
+        final Path downloadDir = Files.createTempDirectory("restore-journal");
+        final Path localFile = Files.createDirectories(downloadDir.resolve("ks1/t1-1234")).resolve("nb-1-big-Data.db");
+        Files.write(localFile, "data".getBytes());
+
+        final ManifestEntry entry = new ManifestEntry(Paths.get("data/ks1/t1-1234/1-1/nb-1-big-Data.db"), localFile, Type.FILE, "abcd", null);
+
+        final RestoreJournal journal = new RestoreJournal(downloadDir);
+        Assert.assertFalse(journal.isVerified(entry, localFile));
+
+        journal.record(entry, localFile);
+        Assert.assertTrue(journal.isVerified(entry, localFile));
+
+        journal.close();
+
+        // a record torn by a crash is skipped
+        Files.write(journal.getJournalFile(), "{\"objectKey\":\"data/ks1".getBytes(), StandardOpenOption.APPEND);
+
+        final RestoreJournal reloaded = new RestoreJournal(downloadDir);
+        Assert.assertEquals(reloaded.size(), 1);
+        Assert.assertTrue(reloaded.isVerified(entry, localFile));
+
+        // a record appended after a torn one is not lost
+        final Path otherFile = localFile.resolveSibling("nb-1-big-Index.db");
+        Files.write(otherFile, "index".getBytes());
+        final ManifestEntry otherEntry = new ManifestEntry(Paths.get("data/ks1/t1-1234/1-1/nb-1-big-Index.db"), otherFile, Type.FILE, "ijkl", null);
+
+        reloaded.record(otherEntry, otherFile);
+        reloaded.close();
+
+        final RestoreJournal appended = new RestoreJournal(downloadDir);
+        Assert.assertEquals(appended.size(), 2);
+        Assert.assertTrue(appended.isVerified(otherEntry, otherFile));
+
+        // an entry with another hash is not the one which was verified
+        Assert.assertFalse(reloaded.isVerified(new ManifestEntry(entry.objectKey, localFile, Type.FILE, "efgh", null), localFile));
+
+        // a file which was changed is not trusted anymore
+        Files.setLastModifiedTime(localFile, FileTime.fromMillis(Files.getLastModifiedTime(localFile).toMillis() - 10_000));
+        Assert.assertFalse(reloaded.isVerified(entry, localFile));
+    }
+}
@@ -0,0 +1,132 @@
+package com.instaclustr.esop.backup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.io.ByteStreams;
+import com.instaclustr.esop.impl.ManifestEntry;
+import com.instaclustr.esop.impl.ManifestEntry.Type;
+import com.instaclustr.esop.impl.StorageLocation;
+import com.instaclustr.esop.impl.backup.BackupOperationRequest;
+import com.instaclustr.esop.impl.retry.RetrySpec;
+import com.instaclustr.esop.impl.retry.RetrySpec.RetryStrategy;
+import com.instaclustr.esop.s3.v2.BaseS3Backuper;
+import com.instaclustr.esop.s3.v2.S3ClientsFactory.S3Clients;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.PutObjectTaggingResponse;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+import software.amazon.awssdk.services.s3.waiters.S3Waiter;
+
+public class S3FilePartsUploadTest {
+
+    private static final int PART_SIZE = 64 * 1024;
+
+    @Test
+    public void testPartOfFileIsRetriedOnItsOwn() throws Exception {
+        final Path localFile = Files.createTempFile("file-parts-upload", "nb-1-big-Data.db");
+
+        final byte[] content = new byte[PART_SIZE * 3 + 1000];
+        new Random(0).nextBytes(content);
+        Files.write(localFile, content);
+
+        final BackupOperationRequest request = new BackupOperationRequest();
+        request.storageLocation = new StorageLocation("s3://bucket/cluster/dc/node");
+        request.retry = new RetrySpec(1, RetryStrategy.LINEAR, 2, true);
+        // no back-off between attempts
+        request.retry.interval = 0;
+
+        final Map<Integer, AtomicInteger> attempts = new ConcurrentHashMap<>();
+        final Map<Integer, byte[]> uploadedParts = new ConcurrentHashMap<>();
+
+        final String maxPartSize = System.getProperty("upload.max.part.size");
+        System.setProperty("upload.max.part.size", Integer.toString(PART_SIZE));
+
+        final ManifestEntry entry = new ManifestEntry(Paths.get("data/ks1/t1/nb-1-big-Data.db"), localFile, Type.FILE, content.length, null, null, null);
+
+        try (final BaseS3Backuper backuper = new BaseS3Backuper(new S3Clients(client(attempts, uploadedParts)), request);
+             final InputStream stream = Files.newInputStream(localFile)) {
+            backuper.uploadFile(entry, stream, backuper.objectKeyToNodeAwareRemoteReference(entry.objectKey));
+        } finally {
+            if (maxPartSize == null) {
+                System.clearProperty("upload.max.part.size");
+            } else {
+                System.setProperty("upload.max.part.size", maxPartSize);
+            }
+            Files.deleteIfExists(localFile);
+        }
+
+        Assert.assertEquals(attempts.size(), 4);
+        Assert.assertEquals(attempts.get(2).get(), 2);
+        Assert.assertEquals(attempts.values().stream().mapToInt(AtomicInteger::get).sum(), 5);
+
+        final ByteArrayOutputStream uploaded = new ByteArrayOutputStream();
+
+        for (final byte[] part : new TreeMap<>(uploadedParts).values()) {
+            uploaded.write(part);
+        }
+
+        Assert.assertEquals(uploaded.toByteArray(), content);
+    }
+
+    /**
+     * A client which fails the first attempt of the second part in the middle of reading its body.
+     */
+    private S3Client client(final Map<Integer, AtomicInteger> attempts, final Map<Integer, byte[]> uploadedParts) {
+        final S3Client[] client = new S3Client[1];
+
+        client[0] = (S3Client) Proxy.newProxyInstance(S3Client.class.getClassLoader(), new Class<?>[]{S3Client.class}, (proxy, method, args) -> {
+            final SdkHttpResponse ok = SdkHttpResponse.builder().statusCode(200).build();
+
+            switch (method.getName()) {
+                case "createMultipartUpload":
+                    return CreateMultipartUploadResponse.builder().uploadId("upload").build();
+                case "uploadPart":
+                    final int partNumber = ((UploadPartRequest) args[0]).partNumber();
+                    final int attempt = attempts.computeIfAbsent(partNumber, p -> new AtomicInteger()).incrementAndGet();
+
+                    try (final InputStream body = ((RequestBody) args[1]).contentStreamProvider().newStream()) {
+                        if (partNumber == 2 && attempt == 1) {
+                            ByteStreams.skipFully(body, 100);
+                            throw SdkClientException.create("connection reset");
+                        }
+                        uploadedParts.put(partNumber, ByteStreams.toByteArray(body));
+                    }
+                    return UploadPartResponse.builder().eTag("etag").build();
+                case "completeMultipartUpload":
+                    return CompleteMultipartUploadResponse.builder().sdkHttpResponse(ok).build();
+                case "headObject":
+                    return HeadObjectResponse.builder().sdkHttpResponse(ok).build();
+                case "putObjectTagging":
+                    return PutObjectTaggingResponse.builder().sdkHttpResponse(ok).build();
+                case "waiter":
+                    return S3Waiter.builder().client(client[0]).build();
+                case "serviceName":
+                    return "s3";
+                case "close":
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+
+        return client[0];
+    }
+}
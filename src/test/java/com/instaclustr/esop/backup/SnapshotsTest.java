@@ -0,0 +1,187 @@
+package com.instaclustr.esop.backup;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.instaclustr.esop.impl.Snapshots;
+import com.instaclustr.esop.impl.Snapshots.Snapshot;
+import com.instaclustr.esop.impl.Snapshots.Snapshot.Keyspace.Table;
+import com.instaclustr.esop.impl.hash.HashSpec;
+import com.instaclustr.esop.impl.hash.HashSpec.HashAlgorithm;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import static com.instaclustr.io.FileUtils.deleteDirectory;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class SnapshotsTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotsTest.class);
+
+    private static final int NUMBER_OF_TABLES = Integer.getInteger("benchmark.snapshots.tables", 10_000);
+
+    private final List<Path> tempDirs = new ArrayList<>();
+
+    @AfterMethod(alwaysRun = true)
+    public void cleanup() throws Exception {
+        for (final Path tempDir : tempDirs) {
+            deleteDirectory(tempDir);
+        }
+
+        tempDirs.clear();
+    }
+
+    @Test
+    public void testParsingOfSnapshots() throws Exception {
+        final Path dataDir1 = createTempDirectory("snapshots-test");
+        final Path dataDir2 = createTempDirectory("snapshots-test");
+
+        createTable(dataDir1, "ks1", "t1", 1, 2, "snap1", "snap2");
+        createTable(dataDir2, "ks1", "t1", 3, 2, "snap1");
+        createTable(dataDir1, "ks2", "t2", 5, 1, "snap1", "truncated-1234-t2", "dropped-1234-t2");
+        createTable(dataDir2, "ks2", "t3", 7, 1);
+
+        final Snapshots snapshots = Snapshots.parse(Arrays.asList(dataDir1, dataDir2), null, new HashSpec(HashAlgorithm.NONE));
+
+        assertEquals(snapshots.size(), 2);
+
+        final Snapshot snap1 = snapshots.get("snap1").get();
+
+        // sstables of a table in both data dirs are merged
+        assertEquals(snap1.getTable("ks1", "t1").get().getSstables().size(), 4);
+        assertEquals(snap1.getTable("ks2", "t2").get().getSstables().size(), 1);
+        assertFalse(snap1.containsTable("ks2", "t3"));
+
+        assertEquals(snapshots.get("snap2").get().getTable("ks1", "t1").get().getSstables().size(), 2);
+
+        final Snapshots onlySnap2 = Snapshots.parse(Arrays.asList(dataDir1, dataDir2), "snap2", new HashSpec(HashAlgorithm.NONE));
+
+        assertEquals(onlySnap2.size(), 1);
+        assertTrue(onlySnap2.get("snap2").isPresent());
+    }
+
+    @Test
+    public void testFindingOfSnapshotsInNonStandardLayout() throws Exception {
+        final Path dataDir = createTempDirectory("snapshots-test");
+
+        // keyspaces are not right in the given directory but one level deeper
+        createTable(dataDir.resolve("data"), "ks1", "t1", 1, 2, "snap1", "snap2", "truncated-1234-t1");
+
+        assertEquals(Snapshots.findSnapshotPaths(dataDir, null).size(), 2);
+        assertEquals(Snapshots.findSnapshotPaths(dataDir, "snap1").size(), 1);
+        assertTrue(Snapshots.findSnapshotPaths(dataDir, "snap3").isEmpty());
+
+        final Snapshots snapshots = Snapshots.parse(Collections.singletonList(dataDir), "snap1", new HashSpec(HashAlgorithm.NONE));
+
+        assertEquals(snapshots.get("snap1").get().getTable("ks1", "t1").get().getSstables().size(), 2);
+    }
+
+    @Test(groups = "benchmarkTest")
+    public void benchmarkSnapshotDiscovery() throws Exception {
+        final List<Path> dataDirs = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            dataDirs.add(createTempDirectory("snapshots-benchmark"));
+        }
+
+        for (int i = 0; i < NUMBER_OF_TABLES; i++) {
+            // every table has some live sstables which are not part of the snapshot
+            createTable(dataDirs.get(i % dataDirs.size()), "ks" + (i % 20), "table" + i, 1, 10, "snapshot");
+        }
+
+        final long serialStart = System.nanoTime();
+        final int serialTables = parseByWalkingWholeTree(dataDirs, "snapshot");
+        final double serialSeconds = (System.nanoTime() - serialStart) / 1_000_000_000d;
+
+        final long start = System.nanoTime();
+        final Snapshots snapshots = Snapshots.parse(dataDirs, "snapshot", new HashSpec(HashAlgorithm.NONE));
+        final double seconds = (System.nanoTime() - start) / 1_000_000_000d;
+
+        final int tables = snapshots.get("snapshot").get().getKeyspaces().values().stream().mapToInt(ks -> ks.getTables().size()).sum();
+
+        assertEquals(serialTables, NUMBER_OF_TABLES);
+        assertEquals(tables, NUMBER_OF_TABLES);
+
+        logger.info(String.format("Snapshot of %s tables: walking of whole tree and serial parsing took %.3f s, targeted parallel parsing took %.3f s (%.1fx)",
+                                  NUMBER_OF_TABLES,
+                                  serialSeconds,
+                                  seconds,
+                                  serialSeconds / seconds));
+    }
+
+    /**
+     * Parsing as it was done before, walking all directories and files of data dirs one after another.
+     */
+    private int parseByWalkingWholeTree(final List<Path> dataDirs, final String snapshot) throws Exception {
+        final List<Path> snapshotPaths = new ArrayList<>();
+
+        for (final Path dataDir : dataDirs) {
+            Files.walkFileTree(dataDir, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) {
+                    if (dir.getParent() != null && dir.getParent().getFileName().toString().equals("snapshots")) {
+                        if (dir.getFileName().toString().equals(snapshot)) {
+                            snapshotPaths.add(dir);
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        }
+
+        for (final Path snapshotPath : snapshotPaths) {
+            final Path tableDir = snapshotPath.getParent().getParent();
+            Table.parse(tableDir.getParent().getFileName().toString(), tableDir.getFileName().toString(), Collections.singletonList(snapshotPath), new HashSpec(HashAlgorithm.NONE));
+        }
+
+        return snapshotPaths.size();
+    }
+
+    private Path createTempDirectory(final String prefix) throws IOException {
+        final Path tempDir = Files.createTempDirectory(prefix);
+        tempDirs.add(tempDir);
+        return tempDir;
+    }
+
+    private void createTable(final Path dataDir,
+                             final String keyspace,
+                             final String table,
+                             final int firstGeneration,
+                             final int numberOfSSTables,
+                             final String... snapshots) throws IOException {
+        final Path tableDir = Files.createDirectories(dataDir.resolve(keyspace).resolve(table + "-" + UUID.randomUUID().toString().replace("-", "")));
+
+        for (int generation = firstGeneration; generation < firstGeneration + numberOfSSTables; generation++) {
+            createSSTable(tableDir, generation);
+        }
+
+        for (final String snapshot : snapshots) {
+            final Path snapshotDir = Files.createDirectories(tableDir.resolve("snapshots").resolve(snapshot));
+
+            for (int generation = firstGeneration; generation < firstGeneration + Math.min(2, numberOfSSTables); generation++) {
+                createSSTable(snapshotDir, generation);
+            }
+
+            Files.write(snapshotDir.resolve("schema.cql"), "CREATE TABLE ...".getBytes());
+        }
+    }
+
+    private void createSSTable(final Path dir, final int generation) throws IOException {
+        Files.write(dir.resolve("nb-" + generation + "-big-Data.db"), "data".getBytes());
+        Files.write(dir.resolve("nb-" + generation + "-big-Digest.crc32"), Integer.toString(1000 + generation).getBytes());
+    }
+}
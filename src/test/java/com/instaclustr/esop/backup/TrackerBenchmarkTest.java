@@ -0,0 +1,191 @@
+package com.instaclustr.esop.backup;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.instaclustr.esop.impl.AbstractTracker.Session;
+import com.instaclustr.esop.impl.ManifestEntry;
+import com.instaclustr.esop.impl.backup.BackupOperation;
+import com.instaclustr.esop.impl.backup.BackupOperationRequest;
+import com.instaclustr.esop.impl.backup.Backuper;
+import com.instaclustr.esop.impl.backup.UploadTracker;
+import com.instaclustr.esop.impl.backup.UploadTracker.UploadUnit;
+import com.instaclustr.esop.impl.hash.HashSpec;
+import com.instaclustr.esop.impl.restore.DownloadTracker;
+import com.instaclustr.esop.impl.restore.DownloadTracker.DownloadUnit;
+import com.instaclustr.esop.impl.restore.RestoreOperation;
+import com.instaclustr.esop.impl.restore.RestoreOperationRequest;
+import com.instaclustr.esop.impl.restore.Restorer;
+import com.instaclustr.esop.local.LocalFileBackuper;
+import com.instaclustr.operations.OperationsService;
+import com.instaclustr.threading.Executors.FixedTasksExecutorSupplier;
+import org.testng.annotations.Test;
+
+import static com.instaclustr.esop.impl.AbstractTracker.Unit.State.FINISHED;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Test(groups = {
+    "benchmarkTest",
+})
+public class TrackerBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrackerBenchmarkTest.class);
+
+    private static final int NUMBER_OF_ENTRIES = Integer.getInteger("benchmark.tracker.entries", 500_000);
+
+    @Test
+    public void benchmarkUploadTracker() throws Exception {
+        final ListeningExecutorService finisher = new FixedTasksExecutorSupplier().get(10);
+        final OperationsService operationsService = new OperationsService(new FixedTasksExecutorSupplier().get(1));
+        // units are held until all entries are submitted so the second submission hits units which are in progress
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final UploadTracker uploadTracker = new UploadTracker(finisher, operationsService, new HashSpec()) {
+            @Override
+            public UploadUnit constructUnitToSubmit(final Backuper backuper,
+                                                    final ManifestEntry manifestEntry,
+                                                    final AtomicBoolean shouldCancel,
+                                                    final String snapshotTag,
+                                                    final HashSpec hashSpec) {
+                return new UploadUnit(backuper, manifestEntry, shouldCancel, snapshotTag, hashSpec) {
+                    @Override
+                    public Void call() {
+                        Uninterruptibles.awaitUninterruptibly(release);
+                        setState(FINISHED);
+                        return null;
+                    }
+                };
+            }
+        };
+
+        final BackupOperationRequest request = new BackupOperationRequest();
+        final BackupOperation operation = new BackupOperation(request);
+        final List<ManifestEntry> entries = generateEntries(NUMBER_OF_ENTRIES);
+
+        try (final LocalFileBackuper backuper = new LocalFileBackuper(request)) {
+            final long start = System.nanoTime();
+
+            final Session<UploadUnit> session = uploadTracker.submit(backuper, operation, entries, "benchmark", 10);
+            // submitting the same entries again has to be deduplicated
+            final Session<UploadUnit> duplicateSession = uploadTracker.submit(backuper, operation, entries, "benchmark", 10);
+
+            final long submitted = System.nanoTime();
+
+            release.countDown();
+
+            session.waitUntilConsideredFinished();
+            duplicateSession.waitUntilConsideredFinished();
+
+            final long finished = System.nanoTime();
+
+            report("UploadTracker", start, submitted, finished);
+
+            assertEquals(uploadTracker.submittedUnits.get(), NUMBER_OF_ENTRIES);
+            assertTrue(session.isSuccessful());
+            assertTrue(duplicateSession.isSuccessful());
+
+            uploadTracker.removeSession(session);
+            uploadTracker.removeSession(duplicateSession);
+        } finally {
+            finisher.shutdown();
+            finisher.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    @Test
+    public void benchmarkDownloadTracker() throws Exception {
+        final ListeningExecutorService finisher = new FixedTasksExecutorSupplier().get(10);
+        final OperationsService operationsService = new OperationsService(new FixedTasksExecutorSupplier().get(1));
+        // units are held until all entries are submitted so the second submission hits units which are in progress
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final DownloadTracker downloadTracker = new DownloadTracker(finisher, operationsService, new HashSpec()) {
+            @Override
+            public DownloadUnit constructUnitToSubmit(final Restorer restorer,
+                                                      final ManifestEntry manifestEntry,
+                                                      final AtomicBoolean shouldCancel,
+                                                      final String snapshotTag,
+                                                      final HashSpec hashSpec) {
+                return new DownloadUnit(restorer, manifestEntry, shouldCancel, snapshotTag, hashSpec) {
+                    @Override
+                    public Void call() {
+                        Uninterruptibles.awaitUninterruptibly(release);
+                        setState(FINISHED);
+                        return null;
+                    }
+                };
+            }
+        };
+
+        final RestoreOperation operation = new RestoreOperation(new RestoreOperationRequest());
+        final List<ManifestEntry> entries = generateEntries(NUMBER_OF_ENTRIES);
+
+        try {
+            final long start = System.nanoTime();
+
+            final Session<DownloadUnit> session = downloadTracker.submit(null, operation, entries, "benchmark", 10);
+            final Session<DownloadUnit> duplicateSession = downloadTracker.submit(null, operation, entries, "benchmark", 10);
+
+            final long submitted = System.nanoTime();
+
+            release.countDown();
+
+            session.waitUntilConsideredFinished();
+            duplicateSession.waitUntilConsideredFinished();
+
+            final long finished = System.nanoTime();
+
+            report("DownloadTracker", start, submitted, finished);
+
+            assertEquals(downloadTracker.submittedUnits.get(), NUMBER_OF_ENTRIES);
+            assertTrue(session.isSuccessful());
+            assertTrue(duplicateSession.isSuccessful());
+
+            downloadTracker.removeSession(session);
+            downloadTracker.removeSession(duplicateSession);
+        } finally {
+            finisher.shutdown();
+            finisher.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+
+    private List<ManifestEntry> generateEntries(final int numberOfEntries) {
+        final List<ManifestEntry> entries = new ArrayList<>(numberOfEntries);
+
+        for (int i = 0; i < numberOfEntries; i++) {
+            entries.add(new ManifestEntry(Paths.get("data/ks" + (i % 10) + "/tb" + (i % 100) + "/" + i + "/nb-" + i + "-big-Data.db"),
+                                          null,
+                                          ManifestEntry.Type.FILE,
+                                          1024,
+                                          null,
+                                          Integer.toString(i),
+                                          null));
+        }
+
+        return entries;
+    }
+
+    private void report(final String tracker, final long start, final long submitted, final long finished) {
+        final double submissionSeconds = (submitted - start) / 1_000_000_000d;
+        final double totalSeconds = (finished - start) / 1_000_000_000d;
+
+        logger.info(String.format("%s: submitted 2 x %s entries in %.3f s (%.0f entries/s), all finished in %.3f s (%.0f entries/s)",
+                                  tracker,
+                                  NUMBER_OF_ENTRIES,
+                                  submissionSeconds,
+                                  2 * NUMBER_OF_ENTRIES / submissionSeconds,
+                                  totalSeconds,
+                                  2 * NUMBER_OF_ENTRIES / totalSeconds));
+    }
+}